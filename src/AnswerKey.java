@@ -0,0 +1,176 @@
+import java.util.List;
+
+/**
+ * AnswerKey is the compiled scoring form of a quiz's correct answers and marks.
+ * The key is packed exactly like an answer sheet (see PackedAnswers), so grading
+ * 64 questions is two XORs, two ANDs and a popcount instead of 64 isCorrect calls.
+ *
+ * Packing a sheet costs more than one compare per answer, so unpacked int[] sheets
+ * are graded against a flat byte[] copy of the key instead; the bit-plane path pays
+ * off when sheets are stored packed and graded or re-graded many times.
+ */
+public final class AnswerKey {
+    private final PackedAnswers key;
+    private final byte[] correct;
+    private final int[] marks;
+    private final int uniformMarks; // marks of every question when they are all equal, else -1
+    private final int totalMarks;
+
+    private AnswerKey(PackedAnswers key, byte[] correct, int[] marks, int uniformMarks, int totalMarks) {
+        this.key = key;
+        this.correct = correct;
+        this.marks = marks;
+        this.uniformMarks = uniformMarks;
+        this.totalMarks = totalMarks;
+    }
+
+    /**
+     * Compiles the key for a list of questions
+     */
+    public static AnswerKey compile(List<Question> questions) {
+        int[] correct = new int[questions.size()];
+        byte[] flat = new byte[correct.length];
+        int[] marks = new int[correct.length];
+        int uniform = correct.length > 0 ? questions.get(0).getMarks() : 0;
+        int total = 0;
+        for (int i = 0; i < correct.length; i++) {
+            Question q = questions.get(i);
+            correct[i] = q.getCorrectAnswerIndex();
+            flat[i] = (byte) correct[i];
+            marks[i] = q.getMarks();
+            total += marks[i];
+            if (marks[i] != uniform) {
+                uniform = -1;
+            }
+        }
+        return new AnswerKey(PackedAnswers.pack(correct), flat, marks, uniform, total);
+    }
+
+    /**
+     * @return number of questions in the key
+     */
+    public int length() {
+        return key.length();
+    }
+
+    /**
+     * Counts correct answers on a packed sheet
+     * @throws IllegalArgumentException if the sheet length does not match the key
+     */
+    public int countCorrect(PackedAnswers sheet) {
+        checkLength(sheet);
+        long[] kLow = key.low, kHigh = key.high;
+        long[] aLow = sheet.low, aHigh = sheet.high, answered = sheet.answered;
+        int correct = 0;
+        for (int w = 0; w < kLow.length; w++) {
+            // A bit survives only where both planes agree and the question was answered
+            long match = ~((kLow[w] ^ aLow[w]) | (kHigh[w] ^ aHigh[w])) & answered[w];
+            correct += Long.bitCount(match);
+        }
+        return correct;
+    }
+
+    /**
+     * Counts correct answers on an unpacked answer array (-1 never matches)
+     * @throws IllegalArgumentException if the array length does not match the key
+     */
+    public int countCorrect(int[] answers) {
+        if (answers.length != correct.length) {
+            throw new IllegalArgumentException("Answer sheet has " + answers.length
+                + " answers but the key has " + correct.length);
+        }
+        int count = 0;
+        for (int i = 0; i < answers.length; i++) {
+            count += answers[i] == correct[i] ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * @return sum of the marks of all questions
+     */
+    public int totalMarks() {
+        return totalMarks;
+    }
+
+    /**
+     * @return the marks a question is worth
+     */
+    public int marks(int index) {
+        return marks[index];
+    }
+
+    /**
+     * Sums the marks of the questions answered correctly on an unpacked answer array
+     * @throws IllegalArgumentException if the array length does not match the key
+     */
+    public int score(int[] answers) {
+        if (uniformMarks >= 0) {
+            return countCorrect(answers) * uniformMarks;
+        }
+        if (answers.length != correct.length) {
+            throw new IllegalArgumentException("Answer sheet has " + answers.length
+                + " answers but the key has " + correct.length);
+        }
+        int score = 0;
+        for (int i = 0; i < answers.length; i++) {
+            score += answers[i] == correct[i] ? marks[i] : 0;
+        }
+        return score;
+    }
+
+    /**
+     * Sums the marks of the questions set in a bitmap from {@link #correctMask}
+     */
+    public int score(long[] mask) {
+        if (uniformMarks >= 0) {
+            int count = 0;
+            for (long word : mask) {
+                count += Long.bitCount(word);
+            }
+            return count * uniformMarks;
+        }
+        int score = 0;
+        for (int w = 0; w < mask.length; w++) {
+            // Visit set bits only, lowest first
+            for (long bits = mask[w]; bits != 0; bits &= bits - 1) {
+                score += marks[(w << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return the correct choice index for a question
+     */
+    public int correctAnswer(int index) {
+        return correct[index];
+    }
+
+    /**
+     * Computes the per-question correctness bitmap of a sheet
+     * @return one bit per question, set when the answer is correct
+     */
+    public long[] correctMask(PackedAnswers sheet) {
+        checkLength(sheet);
+        long[] mask = new long[key.low.length];
+        for (int w = 0; w < mask.length; w++) {
+            mask[w] = ~((key.low[w] ^ sheet.low[w]) | (key.high[w] ^ sheet.high[w])) & sheet.answered[w];
+        }
+        return mask;
+    }
+
+    private void checkLength(PackedAnswers sheet) {
+        if (sheet.length() != key.length()) {
+            throw new IllegalArgumentException("Answer sheet has " + sheet.length()
+                + " answers but the key has " + key.length());
+        }
+    }
+
+    /**
+     * Tests whether question {@code index} is marked correct in a bitmap from {@link #correctMask}
+     */
+    public static boolean isSet(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,553 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * AttemptColumns is a read-only, column-oriented copy of quiz_attempts and
+ * user_answers for analytics.
+ *
+ * Each column is a primitive array; user and quiz ids are dictionary-encoded to
+ * dense codes so per-user and per-quiz aggregates are plain array indexing.
+ * Answers are stored in attempt order with an offset column per attempt.
+ * Refreshing appends only attempts newer than the highest id already loaded,
+ * and readers always see a consistent {@link Snapshot} without locking.
+ *
+ * Optionally the columns are saved to a memory-mapped file, so a restart loads
+ * them with bulk copies and only reads new attempts from the database.
+ */
+public class AttemptColumns {
+    private static final int MAGIC = 0x51434F4C; // "QCOL"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+
+    private static AttemptColumns instance;
+
+    private final Path file;
+    private final Object refreshLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    /**
+     * @param file columns file to load from and save to, or null to keep them in memory only
+     */
+    public AttemptColumns(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Get singleton instance of AttemptColumns.
+     * Set the system property quiz.columns.file to persist the columns between runs.
+     */
+    public static synchronized AttemptColumns getInstance() {
+        if (instance == null) {
+            String path = System.getProperty("quiz.columns.file");
+            instance = new AttemptColumns(path != null ? Paths.get(path) : null);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the latest snapshot without touching the database
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Append attempts recorded since the last refresh and return the new snapshot.
+     * The first call loads the columns file, if configured, before reading the database.
+     */
+    public Snapshot refresh() {
+        synchronized (refreshLock) {
+            Snapshot current = snapshot;
+            if (current.size == 0 && file != null && Files.exists(file)) {
+                try {
+                    current = readFile(file);
+                } catch (IOException | RuntimeException e) {
+                    Log.log(Log.Level.WARN, "AttemptColumns", -1, -1, -1, "Columns file ignored; reloading from the database", e);
+                    current = Snapshot.empty();
+                }
+            }
+
+            Appender appender = new Appender(current);
+            DatabaseManager db = DatabaseManager.getInstance();
+            // One pass per id range (per shard when sharded); ranges ascend, so rows still arrive in id order
+            for (int[] range : db.getAttemptIdRanges()) {
+                int lastAttemptId = current.getLastAttemptId(range[0], range[1]);
+                int upperAttemptId = db.streamAttemptsAfter(lastAttemptId, appender::addAttempt);
+                if (upperAttemptId > lastAttemptId) {
+                    db.streamAnswersAfter(lastAttemptId, upperAttemptId, appender::addAnswer);
+                }
+            }
+            Snapshot next = appender.finish();
+            snapshot = next;
+
+            if (file != null && next.size > current.size) {
+                try {
+                    writeFile(next, file);
+                } catch (IOException e) {
+                    Log.error("AttemptColumns", "Save columns file error", e);
+                }
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Drop all columns (and the file) so the next refresh reloads everything,
+     * e.g. after stored scores were re-graded
+     */
+    public void invalidate() {
+        synchronized (refreshLock) {
+            snapshot = Snapshot.empty();
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    Log.error("AttemptColumns", "Delete columns file error", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives one quiz_attempts row at a time
+     */
+    public interface AttemptConsumer {
+        void accept(int attemptId, int userId, int quizId, int score, float percentage, long completedAt);
+    }
+
+    /**
+     * Receives one user_answers row at a time, ordered by attempt id
+     */
+    public interface AnswerConsumer {
+        void accept(int attemptId, int questionId, int selectedIndex, boolean correct);
+    }
+
+    /**
+     * Immutable view of the columns; rows beyond {@link #size()} are never read
+     */
+    public static final class Snapshot {
+        private final int size;
+        private final int[] attemptIds;
+        private final int[] userCodes;
+        private final int[] quizCodes;
+        private final int[] scores;
+        private final float[] percentages;
+        private final long[] completedAt;
+        private final int[] answerStart;
+        private final int answerCount;
+        private final int[] questionIds;
+        private final byte[] selected;
+        private final byte[] correct;
+        private final int[] userIds;
+        private final int userCount;
+        private final int[] quizIds;
+        private final int quizCount;
+
+        private Snapshot(int size, int[] attemptIds, int[] userCodes, int[] quizCodes, int[] scores,
+                         float[] percentages, long[] completedAt, int[] answerStart, int answerCount,
+                         int[] questionIds, byte[] selected, byte[] correct,
+                         int[] userIds, int userCount, int[] quizIds, int quizCount) {
+            this.size = size;
+            this.attemptIds = attemptIds;
+            this.userCodes = userCodes;
+            this.quizCodes = quizCodes;
+            this.scores = scores;
+            this.percentages = percentages;
+            this.completedAt = completedAt;
+            this.answerStart = answerStart;
+            this.answerCount = answerCount;
+            this.questionIds = questionIds;
+            this.selected = selected;
+            this.correct = correct;
+            this.userIds = userIds;
+            this.userCount = userCount;
+            this.quizIds = quizIds;
+            this.quizCount = quizCount;
+        }
+
+        private static Snapshot empty() {
+            return new Snapshot(0, new int[0], new int[0], new int[0], new int[0], new float[0], new long[0],
+                new int[]{0}, 0, new int[0], new byte[0], new byte[0], new int[0], 0, new int[0], 0);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getAnswerCount() {
+            return answerCount;
+        }
+
+        public int getLastAttemptId() {
+            return size == 0 ? 0 : attemptIds[size - 1];
+        }
+
+        /**
+         * @return highest loaded attempt id in [first, last], or first - 1 if there is none
+         */
+        int getLastAttemptId(int first, int last) {
+            // Ids within one range only grow, so the newest row in the range is its highest
+            for (int row = size - 1; row >= 0; row--) {
+                if (attemptIds[row] >= first && attemptIds[row] <= last) {
+                    return attemptIds[row];
+                }
+            }
+            return first - 1;
+        }
+
+        /**
+         * Average percentage per quiz id
+         */
+        public Map<Integer, Double> averagePercentageByQuiz() {
+            double[] sums = sumByCode(quizCodes, quizCount, row -> percentages[row]);
+            return averages(sums, quizIds, quizCount);
+        }
+
+        /**
+         * Average percentage per user id
+         */
+        public Map<Integer, Double> averagePercentageByUser() {
+            double[] sums = sumByCode(userCodes, userCount, row -> percentages[row]);
+            return averages(sums, userIds, userCount);
+        }
+
+        /**
+         * Number of attempts per quiz id
+         */
+        public Map<Integer, Long> attemptsByQuiz() {
+            double[] sums = sumByCode(quizCodes, quizCount, row -> 0);
+            Map<Integer, Long> counts = new HashMap<>();
+            for (int code = 0; code < quizCount; code++) {
+                counts.put(quizIds[code], (long) sums[code * 2 + 1]);
+            }
+            return counts;
+        }
+
+        /**
+         * Number of attempts of a quiz completed in a time range
+         * @param from first second (epoch seconds, inclusive)
+         * @param to   last second (epoch seconds, inclusive)
+         */
+        public long countAttempts(int quizId, long from, long to) {
+            int code = codeOf(quizIds, quizCount, quizId);
+            if (code < 0) {
+                return 0;
+            }
+            return IntStream.range(0, size).parallel()
+                .filter(row -> quizCodes[row] == code && completedAt[row] >= from && completedAt[row] <= to)
+                .count();
+        }
+
+        /**
+         * Share of answers that were correct (0-1) per question id of a quiz
+         */
+        public Map<Integer, Double> correctRateByQuestion(int quizId) {
+            int code = codeOf(quizIds, quizCount, quizId);
+            Map<Integer, Double> rates = new HashMap<>();
+            if (code < 0) {
+                return rates;
+            }
+            Map<Integer, long[]> totals = IntStream.range(0, size).parallel()
+                .filter(row -> quizCodes[row] == code)
+                .collect(HashMap<Integer, long[]>::new, (acc, row) -> {
+                    for (int a = answerStart[row]; a < answerStart[row + 1]; a++) {
+                        long[] t = acc.computeIfAbsent(questionIds[a], id -> new long[2]);
+                        t[0] += correct[a];
+                        t[1]++;
+                    }
+                }, (left, right) -> right.forEach((id, t) -> {
+                    long[] l = left.computeIfAbsent(id, k -> new long[2]);
+                    l[0] += t[0];
+                    l[1] += t[1];
+                }));
+            totals.forEach((id, t) -> rates.put(id, (double) t[0] / t[1]));
+            return rates;
+        }
+
+        /**
+         * Selected option (0-3, -1 for blank) of one answer row
+         */
+        public int getSelected(int answerRow) {
+            return selected[answerRow];
+        }
+
+        /**
+         * Per-code {sum, count} pairs, accumulated in parallel
+         */
+        private double[] sumByCode(int[] codes, int codeCount, IntToDoubleFunction value) {
+            return IntStream.range(0, size).parallel().collect(
+                () -> new double[codeCount * 2],
+                (acc, row) -> {
+                    int slot = codes[row] * 2;
+                    acc[slot] += value.applyAsDouble(row);
+                    acc[slot + 1]++;
+                },
+                (left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                });
+        }
+
+        private static Map<Integer, Double> averages(double[] sums, int[] ids, int count) {
+            Map<Integer, Double> result = new HashMap<>();
+            for (int code = 0; code < count; code++) {
+                if (sums[code * 2 + 1] > 0) {
+                    result.put(ids[code], sums[code * 2] / sums[code * 2 + 1]);
+                }
+            }
+            return result;
+        }
+
+        private static int codeOf(int[] ids, int count, int id) {
+            for (int code = 0; code < count; code++) {
+                if (ids[code] == id) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Appends rows after a snapshot's last row, growing arrays by doubling.
+     * Earlier rows are never written, so older snapshots sharing the arrays stay valid.
+     */
+    private static class Appender {
+        private int size;
+        private int[] attemptIds;
+        private int[] userCodes;
+        private int[] quizCodes;
+        private int[] scores;
+        private float[] percentages;
+        private long[] completedAt;
+        private int[] answerStart;
+        private int answerCount;
+        private int[] questionIds;
+        private byte[] selected;
+        private byte[] correct;
+        private int[] userIds;
+        private int userCount;
+        private int[] quizIds;
+        private int quizCount;
+        private final Map<Integer, Integer> userCodeById = new HashMap<>();
+        private final Map<Integer, Integer> quizCodeById = new HashMap<>();
+        private int answerRow; // attempt row the next answer belongs to
+
+        Appender(Snapshot base) {
+            size = base.size;
+            attemptIds = base.attemptIds;
+            userCodes = base.userCodes;
+            quizCodes = base.quizCodes;
+            scores = base.scores;
+            percentages = base.percentages;
+            completedAt = base.completedAt;
+            answerStart = base.answerStart;
+            answerCount = base.answerCount;
+            questionIds = base.questionIds;
+            selected = base.selected;
+            correct = base.correct;
+            userIds = base.userIds;
+            userCount = base.userCount;
+            quizIds = base.quizIds;
+            quizCount = base.quizCount;
+            for (int code = 0; code < userCount; code++) {
+                userCodeById.put(userIds[code], code);
+            }
+            for (int code = 0; code < quizCount; code++) {
+                quizCodeById.put(quizIds[code], code);
+            }
+            answerRow = size;
+        }
+
+        void addAttempt(int attemptId, int userId, int quizId, int score, float percentage, long completed) {
+            if (size == attemptIds.length) {
+                int capacity = Math.max(1024, size * 2);
+                attemptIds = Arrays.copyOf(attemptIds, capacity);
+                userCodes = Arrays.copyOf(userCodes, capacity);
+                quizCodes = Arrays.copyOf(quizCodes, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                percentages = Arrays.copyOf(percentages, capacity);
+                completedAt = Arrays.copyOf(completedAt, capacity);
+                answerStart = Arrays.copyOf(answerStart, capacity + 1);
+            }
+            attemptIds[size] = attemptId;
+            userCodes[size] = userCodeById.computeIfAbsent(userId, id -> {
+                if (userCount == userIds.length) {
+                    userIds = Arrays.copyOf(userIds, Math.max(64, userCount * 2));
+                }
+                userIds[userCount] = id;
+                return userCount++;
+            });
+            quizCodes[size] = quizCodeById.computeIfAbsent(quizId, id -> {
+                if (quizCount == quizIds.length) {
+                    quizIds = Arrays.copyOf(quizIds, Math.max(64, quizCount * 2));
+                }
+                quizIds[quizCount] = id;
+                return quizCount++;
+            });
+            scores[size] = score;
+            percentages[size] = percentage;
+            completedAt[size] = completed;
+            size++;
+            answerStart[size] = answerCount;
+        }
+
+        void addAnswer(int attemptId, int questionId, int selectedIndex, boolean isCorrect) {
+            // Answers arrive in attempt order; skip to the attempt they belong to
+            while (answerRow < size && attemptIds[answerRow] < attemptId) {
+                answerRow++;
+                answerStart[answerRow] = answerCount;
+            }
+            if (answerRow == size || attemptIds[answerRow] != attemptId) {
+                return;
+            }
+            if (answerCount == questionIds.length) {
+                int capacity = Math.max(4096, answerCount * 2);
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                selected = Arrays.copyOf(selected, capacity);
+                correct = Arrays.copyOf(correct, capacity);
+            }
+            questionIds[answerCount] = questionId;
+            selected[answerCount] = (byte) selectedIndex;
+            correct[answerCount] = (byte) (isCorrect ? 1 : 0);
+            answerCount++;
+        }
+
+        Snapshot finish() {
+            // Close the offsets of the last attempt with answers and any attempts after it
+            for (int row = answerRow + 1; row <= size; row++) {
+                answerStart[row] = answerCount;
+            }
+            return new Snapshot(size, attemptIds, userCodes, quizCodes, scores, percentages, completedAt,
+                answerStart, answerCount, questionIds, selected, correct, userIds, userCount, quizIds, quizCount);
+        }
+    }
+
+    // ==================== COLUMNS FILE ====================
+
+    private static void writeFile(Snapshot s, Path target) throws IOException {
+        long length = 4L * HEADER_INTS
+            + (long) s.size * (4 * 5 + 8)
+            + 4L * (s.size + 1)
+            + (long) s.answerCount * (4 + 1 + 1)
+            + 4L * (s.userCount + s.quizCount);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            out.putInt(MAGIC).putInt(VERSION).putInt(s.size).putInt(s.answerCount).putInt(s.userCount).putInt(s.quizCount);
+            out.asIntBuffer().put(s.attemptIds, 0, s.size);
+            skip(out, 4L * s.size);
+            out.asIntBuffer().put(s.userCodes, 0, s.size);
+            skip(out, 4L * s.size);
+            out.asIntBuffer().put(s.quizCodes, 0, s.size);
+            skip(out, 4L * s.size);
+            out.asIntBuffer().put(s.scores, 0, s.size);
+            skip(out, 4L * s.size);
+            out.asFloatBuffer().put(s.percentages, 0, s.size);
+            skip(out, 4L * s.size);
+            out.asLongBuffer().put(s.completedAt, 0, s.size);
+            skip(out, 8L * s.size);
+            out.asIntBuffer().put(s.answerStart, 0, s.size + 1);
+            skip(out, 4L * (s.size + 1));
+            out.asIntBuffer().put(s.questionIds, 0, s.answerCount);
+            skip(out, 4L * s.answerCount);
+            out.put(s.selected, 0, s.answerCount);
+            out.put(s.correct, 0, s.answerCount);
+            out.asIntBuffer().put(s.userIds, 0, s.userCount);
+            skip(out, 4L * s.userCount);
+            out.asIntBuffer().put(s.quizIds, 0, s.quizCount);
+            out.force();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Snapshot readFile(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("not a columns file");
+            }
+            int size = in.getInt();
+            int answerCount = in.getInt();
+            int userCount = in.getInt();
+            int quizCount = in.getInt();
+
+            int[] attemptIds = readInts(in, size);
+            int[] userCodes = readInts(in, size);
+            int[] quizCodes = readInts(in, size);
+            int[] scores = readInts(in, size);
+            float[] percentages = new float[size];
+            in.asFloatBuffer().get(percentages);
+            skip(in, 4L * size);
+            long[] completedAt = new long[size];
+            in.asLongBuffer().get(completedAt);
+            skip(in, 8L * size);
+            int[] answerStart = readInts(in, size + 1);
+            int[] questionIds = readInts(in, answerCount);
+            byte[] selected = new byte[answerCount];
+            in.get(selected);
+            byte[] correct = new byte[answerCount];
+            in.get(correct);
+            int[] userIds = readInts(in, userCount);
+            int[] quizIds = readInts(in, quizCount);
+            return new Snapshot(size, attemptIds, userCodes, quizCodes, scores, percentages, completedAt,
+                answerStart, answerCount, questionIds, selected, correct, userIds, userCount, quizIds, quizCount);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        skip(in, 4L * count);
+        return values;
+    }
+
+    private static void skip(ByteBuffer buffer, long bytes) {
+        buffer.position(buffer.position() + (int) bytes);
+    }
+
+    /**
+     * Command-line entry point: refreshes the columns and prints a short report with timings
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        AttemptColumns columns = getInstance();
+
+        long start = System.nanoTime();
+        Snapshot s = columns.refresh();
+        System.out.printf("Loaded %d attempts and %d answers in %.1f ms%n",
+            s.size(), s.getAnswerCount(), (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        Map<Integer, Double> byQuiz = s.averagePercentageByQuiz();
+        Map<Integer, Long> countByQuiz = s.attemptsByQuiz();
+        Map<Integer, Double> byUser = s.averagePercentageByUser();
+        System.out.printf("Aggregated %d quizzes and %d users in %.1f ms%n",
+            byQuiz.size(), byUser.size(), (System.nanoTime() - start) / 1e6);
+
+        byQuiz.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(e -> System.out.printf("  quiz %d: %d attempts, average %.1f%%%n",
+                e.getKey(), countByQuiz.get(e.getKey()), e.getValue()));
+
+        start = System.nanoTime();
+        s = columns.refresh();
+        System.out.printf("Incremental refresh up to attempt %d in %.1f ms%n",
+            s.getLastAttemptId(), (System.nanoTime() - start) / 1e6);
+        QuizService.getInstance().shutdown();
+    }
+}
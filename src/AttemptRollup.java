@@ -0,0 +1,52 @@
+import java.sql.Timestamp;
+
+/**
+ * AttemptRollup summarizes the attempts of one quiz within one hour or day.
+ */
+public class AttemptRollup {
+    private long periodStart;
+    private long attempts;
+    private long scoreSum;
+    private long passes;
+
+    /**
+     * @param periodStart start of the hour or day, in epoch seconds (UTC)
+     */
+    public AttemptRollup(long periodStart, long attempts, long scoreSum, long passes) {
+        this.periodStart = periodStart;
+        this.attempts = attempts;
+        this.scoreSum = scoreSum;
+        this.passes = passes;
+    }
+
+    public long getPeriodStart() {
+        return periodStart;
+    }
+
+    public Timestamp getPeriodStartTimestamp() {
+        return new Timestamp(periodStart * 1000);
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    public long getPasses() {
+        return passes;
+    }
+
+    public double getAverageScore() {
+        return attempts == 0 ? 0 : (double) scoreSum / attempts;
+    }
+
+    /**
+     * @return share of attempts that passed (0-100)
+     */
+    public double getPassRate() {
+        return attempts == 0 ? 0 : (double) passes / attempts * 100;
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AttemptRollups serves attempt counts, score sums and pass counts per hour and day.
+ *
+ * DatabaseManager adds every saved attempt to an hourly bucket in the same
+ * transaction. A background thread compacts hourly buckets older than
+ * {@link #HOURLY_RETENTION_HOURS} into daily buckets, so a year of history is at
+ * most a few hundred rows per quiz and range queries never touch quiz_attempts.
+ */
+public class AttemptRollups {
+    /** Attempts at or above this percentage count as passed (grade D or better) */
+    public static final double PASS_PERCENTAGE = 50;
+    /** Hourly buckets are kept this long before being folded into days */
+    public static final int HOURLY_RETENTION_HOURS = 48;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private static AttemptRollups instance;
+
+    private final ScheduledExecutorService compactor;
+
+    private AttemptRollups() {
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rollup-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, 1, 60, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Get singleton instance of AttemptRollups; starts background compaction
+     */
+    public static synchronized AttemptRollups getInstance() {
+        if (instance == null) {
+            instance = new AttemptRollups();
+        }
+        return instance;
+    }
+
+    /**
+     * Get one rollup per day with attempts in the range, oldest first
+     * @param quizId quiz to summarize, or a non-positive id for all quizzes
+     * @param days   number of days back from today (UTC), including today
+     */
+    public List<AttemptRollup> getDaily(int quizId, int days) {
+        long today = System.currentTimeMillis() / 1000 / SECONDS_PER_DAY * SECONDS_PER_DAY;
+        long from = today - (long) (days - 1) * SECONDS_PER_DAY;
+        return DatabaseManager.getInstance().getDailyRollups(quizId, from, today + SECONDS_PER_DAY - 1);
+    }
+
+    /**
+     * Get one rollup per hour with attempts during the last {@link #HOURLY_RETENTION_HOURS} hours
+     */
+    public List<AttemptRollup> getRecentHourly(int quizId) {
+        long now = System.currentTimeMillis() / 1000;
+        return DatabaseManager.getInstance().getHourlyRollups(quizId, now - HOURLY_RETENTION_HOURS * 3600L, now);
+    }
+
+    /**
+     * Recompute a quiz's rollups from its attempts, e.g. after re-grading
+     */
+    public boolean rebuild(int quizId) {
+        return DatabaseManager.getInstance().rebuildRollups(quizId, compactionCutoff());
+    }
+
+    /**
+     * Fold whole days of hourly buckets that are past retention into daily buckets
+     */
+    public void compact() {
+        DatabaseManager.getInstance().compactRollups(compactionCutoff());
+    }
+
+    private static long compactionCutoff() {
+        return (System.currentTimeMillis() / 1000 - HOURLY_RETENTION_HOURS * 3600L) / SECONDS_PER_DAY * SECONDS_PER_DAY;
+    }
+
+    /**
+     * Stop background compaction
+     */
+    public void shutdown() {
+        compactor.shutdown();
+    }
+}
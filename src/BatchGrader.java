@@ -0,0 +1,335 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BatchGrader grades keyed-in paper answer sheets against a saved quiz in bulk.
+ *
+ * Sheet files are plain text, one student per line:
+ *   username,ABDC-A
+ * Each letter is the chosen option (A-D) and '-' or '.' marks a blank answer;
+ * commas and spaces between answers are ignored. Blank lines and lines starting
+ * with '#' are skipped.
+ *
+ * Files are streamed in chunks. Each chunk is parsed and graded in parallel on a
+ * ForkJoinPool while the previous chunk is written to the database in one
+ * transaction, so grading scales with cores and memory stays bounded.
+ * Rows that cannot be graded are reported with file and line, never scored as zero.
+ */
+public class BatchGrader {
+    private static final int CHUNK_SIZE = 4096;
+    private static final int SPLIT_THRESHOLD = 128;
+
+    private final Quiz quiz;
+    private final Map<String, Integer> userIds;
+    private final ForkJoinPool pool;
+    private final boolean dryRun;
+
+    /**
+     * @param quiz    saved quiz with questions loaded
+     * @param userIds user ids keyed by username
+     * @param pool    pool that grades the rows
+     * @param dryRun  grade and report without writing to the database
+     */
+    public BatchGrader(Quiz quiz, Map<String, Integer> userIds, ForkJoinPool pool, boolean dryRun) {
+        this.quiz = quiz;
+        this.userIds = userIds;
+        this.pool = pool;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Grades every sheet in the given files
+     */
+    public Report grade(List<Path> files) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        quiz.getAnswerKey(); // compile once before the workers share it
+
+        CompletableFuture<Row[]> pending = null;
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String trimmed = line.trim();
+                    if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                        continue;
+                    }
+                    chunk.add(new Row(file, lineNumber, trimmed));
+                    if (chunk.size() == CHUNK_SIZE) {
+                        pending = submit(chunk, pending, report);
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    pending = submit(chunk, pending, report);
+                }
+            }
+        }
+        if (pending != null) {
+            persist(pending.join(), report);
+        }
+
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Starts grading a chunk, then persists the previously graded chunk while it runs
+     */
+    private CompletableFuture<Row[]> submit(List<Row> chunk, CompletableFuture<Row[]> previous, Report report) {
+        Row[] rows = chunk.toArray(new Row[0]);
+        CompletableFuture<Row[]> graded = CompletableFuture.supplyAsync(() -> {
+            new GradeTask(rows, 0, rows.length).invoke();
+            return rows;
+        }, pool);
+        if (previous != null) {
+            persist(previous.join(), report);
+        }
+        return graded;
+    }
+
+    private void persist(Row[] rows, Report report) {
+        int ok = 0;
+        for (Row row : rows) {
+            if (row.error == null) ok++;
+        }
+        int[] ids = new int[ok];
+        GradedAttempt[] attempts = new GradedAttempt[ok];
+        int next = 0;
+        for (Row row : rows) {
+            if (row.error == null) {
+                ids[next] = row.userId;
+                attempts[next++] = row.result;
+            } else {
+                report.errors.add(new RowError(row.file, row.line, row.error));
+            }
+        }
+        report.graded += ok;
+
+        if (dryRun || ok == 0) {
+            return;
+        }
+        int saved;
+        String failure = "Database write failed; chunk rolled back";
+        try {
+            saved = DatabaseManager.getInstance().saveQuizAttempts(quiz, ids, attempts);
+        } catch (DatabaseManager.StaleQuizException e) {
+            saved = -1;
+            failure = "Answer key changed during grading; chunk not saved, run again";
+        }
+        if (saved < 0) {
+            for (Row row : rows) {
+                if (row.error == null) {
+                    report.errors.add(new RowError(row.file, row.line, failure));
+                }
+            }
+        } else {
+            report.saved += saved;
+        }
+    }
+
+    /**
+     * Parses and grades one row, recording an error message instead of throwing
+     */
+    private void gradeRow(Row row) {
+        int comma = row.text.indexOf(',');
+        if (comma <= 0) {
+            row.error = "Expected 'username,answers'";
+            return;
+        }
+        String username = row.text.substring(0, comma).trim();
+        Integer userId = userIds.get(username);
+        if (userId == null) {
+            row.error = "Unknown user '" + username + "'";
+            return;
+        }
+
+        String answerText = row.text.substring(comma + 1);
+        int[] answers = new int[answerText.length()];
+        int count = 0;
+        for (int i = 0; i < answerText.length(); i++) {
+            char c = answerText.charAt(i);
+            switch (c) {
+                case 'A', 'a' -> answers[count++] = 0;
+                case 'B', 'b' -> answers[count++] = 1;
+                case 'C', 'c' -> answers[count++] = 2;
+                case 'D', 'd' -> answers[count++] = 3;
+                case '-', '.' -> answers[count++] = -1;
+                case ',', ' ', '\t' -> { }
+                default -> {
+                    row.error = "Invalid answer '" + c + "' at position " + (count + 1);
+                    return;
+                }
+            }
+        }
+        if (count != quiz.getQuestionCount()) {
+            row.error = "Expected " + quiz.getQuestionCount() + " answers but got " + count;
+            return;
+        }
+
+        int[] sheet = new int[count];
+        System.arraycopy(answers, 0, sheet, 0, count);
+        row.userId = userId;
+        row.result = quiz.grade(sheet);
+    }
+
+    /**
+     * Splits a chunk of rows until each piece is small enough to grade directly
+     */
+    private class GradeTask extends RecursiveAction {
+        private final Row[] rows;
+        private final int from;
+        private final int to;
+
+        GradeTask(Row[] rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    gradeRow(rows[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new GradeTask(rows, from, mid), new GradeTask(rows, mid, to));
+        }
+    }
+
+    private static class Row {
+        final Path file;
+        final int line;
+        final String text;
+        int userId;
+        GradedAttempt result;
+        String error;
+
+        Row(Path file, int line, String text) {
+            this.file = file;
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A sheet that could not be graded or saved
+     */
+    public static class RowError {
+        private final Path file;
+        private final int line;
+        private final String message;
+
+        public RowError(Path file, int line, String message) {
+            this.file = file;
+            this.line = line;
+            this.message = message;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + message;
+        }
+    }
+
+    /**
+     * Totals and per-row errors for one grading run
+     */
+    public static class Report {
+        private int graded;
+        private int saved;
+        private long elapsedNanos;
+        private final List<RowError> errors = new ArrayList<>();
+
+        public int getGraded() {
+            return graded;
+        }
+
+        public int getSaved() {
+            return saved;
+        }
+
+        public List<RowError> getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Command-line entry point
+     * @param args quiz id, then one or more sheet files; add --dry-run to skip saving
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        List<Path> files = new ArrayList<>();
+        boolean dryRun = false;
+        Integer quizId = null;
+        for (String arg : args) {
+            if ("--dry-run".equals(arg)) {
+                dryRun = true;
+            } else if (quizId == null) {
+                quizId = Integer.parseInt(arg);
+            } else {
+                files.add(Paths.get(arg));
+            }
+        }
+        if (quizId == null || files.isEmpty()) {
+            System.err.println("Usage: BatchGrader <quizId> <sheetFile>... [--dry-run]");
+            System.exit(1);
+        }
+
+        Quiz quiz = QuizService.getInstance().loadQuiz(quizId).join();
+        if (quiz == null || quiz.getQuestionCount() == 0) {
+            System.err.println("Quiz " + quizId + " not found or has no questions.");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        BatchGrader grader = new BatchGrader(quiz, DatabaseManager.getInstance().getUserIdsByUsername(), pool, dryRun);
+        Report report = grader.grade(files);
+        pool.shutdown();
+
+        double seconds = report.getElapsedNanos() / 1e9;
+        System.out.printf("Graded %d sheets (%d saved) in %.2f s, %.0f sheets/s on %d cores%n",
+            report.getGraded(), report.getSaved(), seconds, report.getGraded() / Math.max(seconds, 1e-9),
+            pool.getParallelism());
+        if (!report.getErrors().isEmpty()) {
+            System.out.println(report.getErrors().size() + " row(s) could not be graded:");
+            for (RowError error : report.getErrors()) {
+                System.out.println("  " + error);
+            }
+        }
+        QuizService.getInstance().shutdown();
+    }
+}
@@ -0,0 +1,186 @@
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * ChangeBus carries domain events from DatabaseManager writes to whatever keeps
+ * derived state: in-memory caches, counters and the dashboard tables.
+ *
+ * An event is published once its transaction has committed, on the writing thread
+ * and while the database lock is still held, so a listener sees writes in commit
+ * order and never between a commit and its event. Listeners must therefore be quick
+ * and must not call the database; Swing listeners hand the event to the EDT.
+ * A listener that throws is logged and does not affect the write or other listeners.
+ */
+public final class ChangeBus {
+    private static ChangeBus instance;
+
+    private final Map<Class<?>, List<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+
+    private ChangeBus() {
+    }
+
+    /**
+     * Get singleton instance of ChangeBus
+     */
+    public static synchronized ChangeBus getInstance() {
+        if (instance == null) {
+            instance = new ChangeBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Call a listener for every event of the given type published from now on
+     */
+    @SuppressWarnings("unchecked")
+    public <E> void subscribe(Class<E> type, Consumer<? super E> listener) {
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add((Consumer<Object>) listener);
+    }
+
+    /**
+     * Deliver an event to its listeners on the calling thread
+     */
+    void publish(Object event) {
+        List<Consumer<Object>> subscribed = listeners.get(event.getClass());
+        if (subscribed == null) {
+            return;
+        }
+        for (Consumer<Object> listener : subscribed) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                Log.error("ChangeBus", "Change listener failed", e);
+            }
+        }
+    }
+
+    // ==================== EVENTS ====================
+
+    /**
+     * A new quiz and its questions were saved
+     */
+    public static final class QuizSaved {
+        private final Quiz quiz;
+        private final int creatorId;
+
+        QuizSaved(Quiz quiz, int creatorId) {
+            this.quiz = quiz;
+            this.creatorId = creatorId;
+        }
+
+        /**
+         * @return the saved quiz, with its new id
+         */
+        public Quiz getQuiz() {
+            return quiz;
+        }
+
+        public int getCreatorId() {
+            return creatorId;
+        }
+    }
+
+    /**
+     * A quiz was deleted
+     */
+    public static final class QuizDeleted {
+        private final int quizId;
+
+        QuizDeleted(int quizId) {
+            this.quizId = quizId;
+        }
+
+        public int getQuizId() {
+            return quizId;
+        }
+    }
+
+    /**
+     * One or more graded attempts on a quiz were saved in one transaction.
+     * The arrays are shared with the writer and must not be modified.
+     */
+    public static final class AttemptSaved {
+        private final DatabaseManager source;
+        private final Quiz quiz;
+        private final int[] userIds;
+        private final int[] attemptIds;
+        private final GradedAttempt[] attempts;
+        private final long[] bestGains;
+        private final long[] completedAt;
+        private final long savedAt = System.currentTimeMillis();
+
+        /**
+         * @param completedAt completion time per attempt (epoch millis), or null if they completed now
+         */
+        AttemptSaved(DatabaseManager source, Quiz quiz, int[] userIds, int[] attemptIds, GradedAttempt[] attempts,
+                     long[] bestGains, long[] completedAt) {
+            this.source = source;
+            this.quiz = quiz;
+            this.userIds = userIds;
+            this.attemptIds = attemptIds;
+            this.attempts = attempts;
+            this.bestGains = bestGains;
+            this.completedAt = completedAt;
+        }
+
+        /**
+         * @return the database (or shard) that committed the attempts
+         */
+        public DatabaseManager getSource() {
+            return source;
+        }
+
+        public Quiz getQuiz() {
+            return quiz;
+        }
+
+        public int size() {
+            return attempts.length;
+        }
+
+        public int getUserId(int index) {
+            return userIds[index];
+        }
+
+        public int getAttemptId(int index) {
+            return attemptIds[index];
+        }
+
+        public GradedAttempt getAttempt(int index) {
+            return attempts[index];
+        }
+
+        /**
+         * @return how much the attempt raised its user's best on the quiz, in hundredths of a percent
+         */
+        public long getBestGain(int index) {
+            return bestGains[index];
+        }
+
+        /**
+         * Build the history row for one attempt, as it would read back from the database
+         */
+        public QuizAttempt toQuizAttempt(int index) {
+            GradedAttempt attempt = attempts[index];
+            long millis = completedAt != null ? completedAt[index] : savedAt;
+            // completed_at is stored as UTC text with whole seconds and read back without a zone
+            Timestamp stored = Timestamp.valueOf(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), 0, ZoneOffset.UTC));
+            return new QuizAttempt(attemptIds[index], userIds[index], quiz.getId(), quiz.getTitle(), attempt.getScore(),
+                attempt.getTotalMarks(), attempt.getPercentage(), stored);
+        }
+
+        int[] getUserIds() {
+            return userIds;
+        }
+
+        long[] getBestGains() {
+            return bestGains;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ChoiceCounters counts how often each option of each question is picked.
+ *
+ * Every saved attempt (a {@link ChangeBus.AttemptSaved} event) only increments
+ * in-memory LongAdders (striped, so concurrent takers never contend on one counter).
+ * A deleted quiz's unflushed counts are dropped. A background thread periodically moves the
+ * accumulated deltas into the choice_counts table in one transaction, and reads
+ * combine the persisted totals with whatever has not been flushed yet.
+ */
+public class ChoiceCounters {
+    /** Slot 0 counts blank answers, slots 1-4 count options A-D */
+    public static final int SLOTS = 5;
+    private static final long FLUSH_INTERVAL_SECONDS = 10;
+
+    private static ChoiceCounters instance;
+
+    private final Map<Integer, Map<Integer, LongAdder[]>> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private ChoiceCounters() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "choice-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(ChangeBus.AttemptSaved.class, this::record);
+        bus.subscribe(ChangeBus.QuizDeleted.class, event -> pending.remove(event.getQuizId()));
+    }
+
+    /**
+     * Get singleton instance of ChoiceCounters
+     */
+    public static synchronized ChoiceCounters getInstance() {
+        if (instance == null) {
+            instance = new ChoiceCounters();
+        }
+        return instance;
+    }
+
+    /**
+     * Count the choices of saved answer sheets
+     */
+    private void record(ChangeBus.AttemptSaved event) {
+        Quiz quiz = event.getQuiz();
+        Map<Integer, LongAdder[]> byQuestion = pending.computeIfAbsent(quiz.getId(), id -> new ConcurrentHashMap<>());
+        List<Question> questions = quiz.getQuestions();
+        for (int a = 0; a < event.size(); a++) {
+            GradedAttempt attempt = event.getAttempt(a);
+            for (int i = 0; i < attempt.getQuestionCount(); i++) {
+                int slot = attempt.getAnswer(i) + 1; // -1 (blank) counts in slot 0
+                if (slot >= 0 && slot < SLOTS) {
+                    byQuestion.computeIfAbsent(questions.get(i).getId(), id -> newAdders())[slot].increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get pick counts for every question of a quiz with a single query
+     * @return counts per question id, indexed by slot (0 = blank, 1-4 = A-D)
+     */
+    public Map<Integer, long[]> getPickCounts(int quizId) {
+        synchronized (flushLock) {
+            Map<Integer, long[]> counts = DatabaseManager.getInstance().getChoiceCounts(quizId);
+            Map<Integer, LongAdder[]> byQuestion = pending.get(quizId);
+            if (byQuestion != null) {
+                byQuestion.forEach((questionId, adders) -> {
+                    long[] total = counts.computeIfAbsent(questionId, id -> new long[SLOTS]);
+                    for (int slot = 0; slot < SLOTS; slot++) {
+                        total[slot] += adders[slot].sum();
+                    }
+                });
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Write accumulated deltas to the database; they are kept in memory if the write fails
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<int[]> keys = new ArrayList<>();
+            List<Long> deltas = new ArrayList<>();
+            List<LongAdder> sources = new ArrayList<>();
+            pending.forEach((quizId, byQuestion) -> byQuestion.forEach((questionId, adders) -> {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    long delta = adders[slot].sumThenReset();
+                    if (delta != 0) {
+                        keys.add(new int[]{quizId, questionId, slot - 1});
+                        deltas.add(delta);
+                        sources.add(adders[slot]);
+                    }
+                }
+            }));
+            if (keys.isEmpty()) {
+                return;
+            }
+            if (!DatabaseManager.getInstance().addChoiceCounts(keys, deltas)) {
+                for (int i = 0; i < keys.size(); i++) {
+                    sources.get(i).add(deltas.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush remaining counts and stop the background thread
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            adders[slot] = new LongAdder();
+        }
+        return adders;
+    }
+}
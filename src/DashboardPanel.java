@@ -1,12 +1,25 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * DashboardPanel is the main hub after login.
  * Shows available quizzes, user history, and navigation options.
+ *
+ * The tables are filled by one full load at login (or on Refresh) and then kept
+ * current from {@link ChangeBus} events: a saved attempt adds one history row and
+ * updates one "Your Best" cell, a saved or deleted quiz adds or removes one row.
  */
 public class DashboardPanel extends JPanel {
     private QuizApp parentApp;
@@ -18,10 +31,22 @@ public class DashboardPanel extends JPanel {
     private JLabel welcomeLabel;
     private JLabel statsLabel;
 
+    // State behind the tables, so events patch them without re-reading (EDT only)
+    private final Map<Integer, QuizAttempt> bestAttempts = new HashMap<>();
+    private final Set<Integer> shownAttemptIds = new HashSet<>();
+    private int attemptCount;
+    private double percentageSum;
+    private int loadsInFlight;
+    private final List<Object> deferredEvents = new ArrayList<>();
+
     public DashboardPanel(QuizApp parentApp, User user) {
         this.parentApp = parentApp;
         this.currentUser = user;
         initializeUI();
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(ChangeBus.QuizSaved.class, event -> UIHelper.EDT.execute(() -> onChange(event)));
+        bus.subscribe(ChangeBus.QuizDeleted.class, event -> UIHelper.EDT.execute(() -> onChange(event)));
+        bus.subscribe(ChangeBus.AttemptSaved.class, event -> UIHelper.EDT.execute(() -> onChange(event)));
         loadData();
     }
 
@@ -127,6 +152,14 @@ public class DashboardPanel extends JPanel {
         viewLeaderboardButton.addActionListener(e -> viewLeaderboard());
         buttonPanel.add(viewLeaderboardButton);
 
+        JButton overallRankingButton = UIHelper.createStyledButton("Overall Ranking", UIHelper.WARNING_ORANGE, Color.WHITE, 13, null);
+        overallRankingButton.addActionListener(e -> viewOverallRanking());
+        buttonPanel.add(overallRankingButton);
+
+        JButton openPackButton = UIHelper.createStyledButton("Open Quiz Pack...", UIHelper.PURPLE, Color.WHITE, 13, null);
+        openPackButton.addActionListener(e -> openQuizPack());
+        buttonPanel.add(openPackButton);
+
         JButton refreshButton = UIHelper.createStyledButton("Refresh", new Color(100, 100, 100), Color.WHITE, 13, null);
         refreshButton.addActionListener(e -> loadData());
         buttonPanel.add(refreshButton);
@@ -190,51 +223,168 @@ public class DashboardPanel extends JPanel {
         return panel;
     }
 
+    /**
+     * Re-read the catalog and history and refill both tables.
+     * Changes published while the load runs are applied after it, skipping any it already read.
+     */
     public void loadData() {
-        loadQuizzes();
-        loadHistory();
-        updateStats();
+        // Fetch everything off the EDT, then fill the tables in one go
+        QuizService service = QuizService.getInstance();
+        int userId = currentUser.getId();
+        QuizEvents.DashboardRefresh event = new QuizEvents.DashboardRefresh();
+        event.begin();
+        loadsInFlight++;
+        service.getCatalog(userId)
+            .thenAcceptBothAsync(service.getHistory(userId), (catalog, history) -> {
+                loadQuizzes(catalog);
+                loadHistory(history);
+                updateStats(history);
+                event.userId = userId;
+                event.quizRows = catalog.size();
+                event.historyRows = history.size();
+                event.commit();
+                StartupTrace.mark("dashboard");
+            }, UIHelper.EDT)
+            .whenCompleteAsync((done, error) -> {
+                if (--loadsInFlight == 0) {
+                    List<Object> events = new ArrayList<>(deferredEvents);
+                    deferredEvents.clear();
+                    events.forEach(this::onChange);
+                }
+            }, UIHelper.EDT);
+    }
+
+    // ==================== CHANGE EVENTS ====================
+
+    private void onChange(Object event) {
+        if (loadsInFlight > 0) {
+            deferredEvents.add(event);
+        } else if (event instanceof ChangeBus.AttemptSaved saved) {
+            onAttemptSaved(saved);
+        } else if (event instanceof ChangeBus.QuizSaved saved) {
+            onQuizSaved(saved);
+        } else if (event instanceof ChangeBus.QuizDeleted deleted) {
+            onQuizDeleted(deleted);
+        }
+    }
+
+    private void onAttemptSaved(ChangeBus.AttemptSaved event) {
+        boolean changed = false;
+        for (int i = 0; i < event.size(); i++) {
+            if (event.getUserId(i) != currentUser.getId() || !shownAttemptIds.add(event.getAttemptId(i))) {
+                continue;
+            }
+            QuizAttempt attempt = event.toQuizAttempt(i);
+            historyTableModel.insertRow(0, historyRow(attempt)); // newest first
+            attemptCount++;
+            percentageSum += attempt.getPercentage();
+            changed = true;
+
+            QuizAttempt best = bestAttempts.get(attempt.getQuizId());
+            if (best == null || attempt.getScore() > best.getScore()) {
+                bestAttempts.put(attempt.getQuizId(), attempt);
+                int row = quizRow(attempt.getQuizId());
+                if (row >= 0) {
+                    quizzesTableModel.setValueAt(bestScoreText(attempt), row, 4);
+                }
+            }
+        }
+        if (changed) {
+            showStats();
+        }
+    }
+
+    private void onQuizSaved(ChangeBus.QuizSaved event) {
+        Quiz quiz = event.getQuiz();
+        if (quizRow(quiz.getId()) >= 0) {
+            return; // already read by a load
+        }
+        if (event.getCreatorId() != currentUser.getId()) {
+            loadData(); // another user's quiz: the creator's name is not known here
+            return;
+        }
+        quizzesTableModel.insertRow(0, new Object[]{ // newest first
+            quiz.getId(),
+            quiz.getTitle(),
+            quiz.getQuestionCount(),
+            currentUser.getUsername(),
+            bestScoreText(null)
+        });
+    }
+
+    private void onQuizDeleted(ChangeBus.QuizDeleted event) {
+        int row = quizRow(event.getQuizId());
+        if (row >= 0) {
+            quizzesTableModel.removeRow(row);
+        }
+        bestAttempts.remove(event.getQuizId());
+    }
+
+    /**
+     * @return the quizzes table row showing a quiz, or -1
+     */
+    private int quizRow(int quizId) {
+        for (int row = 0; row < quizzesTableModel.getRowCount(); row++) {
+            if ((int) quizzesTableModel.getValueAt(row, 0) == quizId) {
+                return row;
+            }
+        }
+        return -1;
     }
 
-    private void loadQuizzes() {
+    private void loadQuizzes(List<QuizSummary> catalog) {
         quizzesTableModel.setRowCount(0);
-        List<Quiz> quizzes = DatabaseManager.getInstance().getAllQuizzes();
-        for (Quiz quiz : quizzes) {
-            Quiz fullQuiz = DatabaseManager.getInstance().loadQuiz(quiz.getId());
-            QuizAttempt bestAttempt = DatabaseManager.getInstance().getBestAttempt(currentUser.getId(), quiz.getId());
-            String bestScore = bestAttempt != null ?
-                String.format("%d/%d (%.0f%%)", bestAttempt.getScore(), bestAttempt.getTotalMarks(), bestAttempt.getPercentage()) :
-                "Not attempted";
+        bestAttempts.clear();
+        for (QuizSummary quiz : catalog) {
+            QuizAttempt bestAttempt = quiz.getBestAttempt();
+            if (bestAttempt != null) {
+                bestAttempts.put(quiz.getQuizId(), bestAttempt);
+            }
 
             quizzesTableModel.addRow(new Object[]{
-                quiz.getId(),
+                quiz.getQuizId(),
                 quiz.getTitle(),
-                fullQuiz != null ? fullQuiz.getQuestionCount() : 0,
+                quiz.getQuestionCount(),
                 quiz.getCreatorName() != null ? quiz.getCreatorName() : "Unknown",
-                bestScore
+                bestScoreText(bestAttempt)
             });
         }
     }
 
-    private void loadHistory() {
+    private static String bestScoreText(QuizAttempt bestAttempt) {
+        return bestAttempt != null ?
+            String.format("%d/%d (%.0f%%)", bestAttempt.getScore(), bestAttempt.getTotalMarks(), bestAttempt.getPercentage()) :
+            "Not attempted";
+    }
+
+    private void loadHistory(List<QuizAttempt> attempts) {
         historyTableModel.setRowCount(0);
-        List<QuizAttempt> attempts = DatabaseManager.getInstance().getAttemptsByUser(currentUser.getId());
+        shownAttemptIds.clear();
         for (QuizAttempt attempt : attempts) {
-            historyTableModel.addRow(new Object[]{
-                attempt.getQuizTitle(),
-                attempt.getScore() + "/" + attempt.getTotalMarks(),
-                String.format("%.1f%%", attempt.getPercentage()),
-                attempt.getGrade(),
-                attempt.getCompletedAt().toString().substring(0, 16)
-            });
+            shownAttemptIds.add(attempt.getId());
+            historyTableModel.addRow(historyRow(attempt));
         }
     }
 
-    private void updateStats() {
-        List<QuizAttempt> attempts = DatabaseManager.getInstance().getAttemptsByUser(currentUser.getId());
-        int totalAttempts = attempts.size();
-        double avgScore = attempts.stream().mapToDouble(QuizAttempt::getPercentage).average().orElse(0);
-        statsLabel.setText(String.format("  |  Total Attempts: %d  |  Average Score: %.1f%%", totalAttempts, avgScore));
+    private static Object[] historyRow(QuizAttempt attempt) {
+        return new Object[]{
+            attempt.getQuizTitle(),
+            attempt.getScore() + "/" + attempt.getTotalMarks(),
+            String.format("%.1f%%", attempt.getPercentage()),
+            attempt.getGrade(),
+            attempt.getCompletedAt().toString().substring(0, 16)
+        };
+    }
+
+    private void updateStats(List<QuizAttempt> attempts) {
+        attemptCount = attempts.size();
+        percentageSum = attempts.stream().mapToDouble(QuizAttempt::getPercentage).sum();
+        showStats();
+    }
+
+    private void showStats() {
+        double avgScore = attemptCount > 0 ? percentageSum / attemptCount : 0;
+        statsLabel.setText(String.format("  |  Total Attempts: %d  |  Average Score: %.1f%%", attemptCount, avgScore));
     }
 
     private void takeSelectedQuiz() {
@@ -245,11 +395,70 @@ public class DashboardPanel extends JPanel {
         }
 
         int quizId = (int) quizzesTableModel.getValueAt(selectedRow, 0);
-        Quiz quiz = DatabaseManager.getInstance().loadQuiz(quizId);
-        if (quiz != null && quiz.getQuestionCount() > 0) {
-            parentApp.showQuizTaker(quiz);
-        } else {
-            JOptionPane.showMessageDialog(this, "This quiz has no questions!", "Error", JOptionPane.ERROR_MESSAGE);
+        QuizService.getInstance().loadQuiz(quizId).whenCompleteAsync((quiz, error) -> {
+            if (error != null) {
+                showTaskError(this, "Could not load the quiz", error);
+            } else if (quiz != null && quiz.getQuestionCount() > 0) {
+                parentApp.showQuizTaker(quiz);
+            } else {
+                JOptionPane.showMessageDialog(this, "This quiz has no questions!", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, UIHelper.EDT);
+    }
+
+    /**
+     * Take a quiz straight from a pack file. A pack of a quiz in this database records
+     * the attempt as usual; any other pack is imported first or taken without saving.
+     * A pack only counts as in this database if its questions and answer key match the
+     * stored quiz, so a pack from another installation or from before a re-grade is foreign.
+     */
+    private void openQuizPack() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Quiz packs (*.qpk)", "qpk"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        QuizService service = QuizService.getInstance();
+        service.openQuizPack(file).whenCompleteAsync((quiz, error) -> {
+            if (error != null || quiz.getQuestionCount() == 0) {
+                JOptionPane.showMessageDialog(this, error != null ? "Could not open quiz pack: " + UIHelper.errorMessage(error)
+                    : "This quiz has no questions!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            service.findPackedQuiz(quiz).whenCompleteAsync((stored, lookupError) -> {
+                if (lookupError != null) {
+                    showTaskError(this, "Could not look the quiz up in the database", lookupError);
+                } else if (stored != null) {
+                    parentApp.showQuizTaker(stored);
+                } else {
+                    offerForeignPack(file, quiz);
+                }
+            }, UIHelper.EDT);
+        }, UIHelper.EDT);
+    }
+
+    private void offerForeignPack(Path file, Quiz quiz) {
+        QuizService service = QuizService.getInstance();
+        Object[] options = {"Import and Take", "Take Without Saving", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this,
+            "\"" + quiz.getTitle() + "\" is not in this database.\nImport it so attempts are saved?",
+            "Quiz Pack", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice == 0) {
+            service.importQuizPack(file, currentUser.getId())
+                .thenCompose(service::loadQuiz)
+                .whenCompleteAsync((imported, error) -> {
+                    loadData();
+                    if (error != null) {
+                        showTaskError(this, "Could not import the quiz pack", error);
+                    } else if (imported != null) {
+                        parentApp.showQuizTaker(imported);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Could not import the quiz pack!", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, UIHelper.EDT);
+        } else if (choice == 1) {
+            parentApp.showQuizTaker(quiz.withId(-1)); // unsaved quizzes are graded but not recorded
         }
     }
 
@@ -262,8 +471,24 @@ public class DashboardPanel extends JPanel {
 
         int quizId = (int) quizzesTableModel.getValueAt(selectedRow, 0);
         String quizTitle = (String) quizzesTableModel.getValueAt(selectedRow, 1);
-        List<LeaderboardEntry> leaderboard = DatabaseManager.getInstance().getQuizLeaderboard(quizId);
+        QuizService.getInstance().getLeaderboard(quizId)
+            .whenCompleteAsync((leaderboard, error) -> {
+                if (error != null) {
+                    showTaskError(this, "Could not load the leaderboard", error);
+                } else {
+                    showLeaderboard(quizTitle, leaderboard);
+                }
+            }, UIHelper.EDT);
+    }
+
+    /**
+     * Report a background task that failed instead of leaving the click without an answer
+     */
+    private static void showTaskError(Component parent, String what, Throwable error) {
+        JOptionPane.showMessageDialog(parent, what + ": " + UIHelper.errorMessage(error), "Error", JOptionPane.ERROR_MESSAGE);
+    }
 
+    private void showLeaderboard(String quizTitle, List<LeaderboardEntry> leaderboard) {
         if (leaderboard.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No one has taken this quiz yet!", "Leaderboard", JOptionPane.INFORMATION_MESSAGE);
             return;
@@ -309,9 +534,75 @@ public class DashboardPanel extends JPanel {
         dialog.setVisible(true);
     }
 
+    private void viewOverallRanking() {
+        QuizService service = QuizService.getInstance();
+        service.getGlobalRanking(10)
+            .thenAcceptBothAsync(service.getGlobalStanding(currentUser.getId()), this::showOverallRanking, UIHelper.EDT);
+    }
+
+    private void showOverallRanking(List<GlobalRanking.Standing> top, GlobalRanking.Standing own) {
+        if (top.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No one has scored on any quiz yet!", "Overall Ranking", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Overall Ranking", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(420, 400);
+        dialog.setLocationRelativeTo(this);
+
+        JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
+        contentPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        JLabel titleLabel = new JLabel("Top 10 Across All Quizzes", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        contentPanel.add(titleLabel, BorderLayout.NORTH);
+
+        String[] columns = {"Rank", "Player", "Sum of Best %"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        for (GlobalRanking.Standing standing : top) {
+            model.addRow(new Object[]{
+                standing.getRank(),
+                standing.getUsername(),
+                String.format("%.1f", standing.getTotalPercentage())
+            });
+        }
+
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 14));
+        table.setRowHeight(30);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 14));
+        contentPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JLabel ownLabel = new JLabel(own != null
+            ? String.format("Your rank: #%d (%.1f)", own.getRank(), own.getTotalPercentage())
+            : "Take a quiz to join the ranking", SwingConstants.CENTER);
+        ownLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dialog.dispose());
+        JPanel buttonPanel = new JPanel(new BorderLayout(5, 5));
+        buttonPanel.add(ownLabel, BorderLayout.NORTH);
+        JPanel closePanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        closePanel.add(closeButton);
+        buttonPanel.add(closePanel, BorderLayout.SOUTH);
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        dialog.add(contentPanel);
+        dialog.setVisible(true);
+    }
+
     private void showMyQuizzes() {
-        List<Quiz> myQuizzes = DatabaseManager.getInstance().getQuizzesByUser(currentUser.getId());
+        QuizService.getInstance().getQuizzesByCreator(currentUser.getId())
+            .whenCompleteAsync((myQuizzes, error) -> {
+                if (error != null) {
+                    showTaskError(this, "Could not load your quizzes", error);
+                } else {
+                    showMyQuizzes(myQuizzes);
+                }
+            }, UIHelper.EDT);
+    }
 
+    private void showMyQuizzes(List<QuizSummary> myQuizzes) {
         if (myQuizzes.isEmpty()) {
             JOptionPane.showMessageDialog(this, "You haven't created any quizzes yet!", "My Quizzes", JOptionPane.INFORMATION_MESSAGE);
             return;
@@ -320,7 +611,7 @@ public class DashboardPanel extends JPanel {
         // Create dialog
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "My Created Quizzes", true);
         dialog.setLayout(new BorderLayout(10, 10));
-        dialog.setSize(500, 400);
+        dialog.setSize(640, 400);
         dialog.setLocationRelativeTo(this);
 
         JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
@@ -334,12 +625,11 @@ public class DashboardPanel extends JPanel {
             }
         };
 
-        for (Quiz quiz : myQuizzes) {
-            Quiz fullQuiz = DatabaseManager.getInstance().loadQuiz(quiz.getId());
+        for (QuizSummary quiz : myQuizzes) {
             model.addRow(new Object[]{
-                quiz.getId(),
+                quiz.getQuizId(),
                 quiz.getTitle(),
-                fullQuiz != null ? fullQuiz.getQuestionCount() : 0,
+                quiz.getQuestionCount(),
                 quiz.getCreatedAt() != null ? quiz.getCreatedAt().toString().substring(0, 16) : "N/A"
             });
         }
@@ -362,18 +652,207 @@ public class DashboardPanel extends JPanel {
             int confirm = JOptionPane.showConfirmDialog(dialog, "Are you sure you want to delete this quiz?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 int quizId = (int) model.getValueAt(selectedRow, 0);
-                if (DatabaseManager.getInstance().deleteQuiz(quizId)) {
-                    model.removeRow(selectedRow);
-                    loadData(); // Refresh dashboard
-                }
+                QuizService.getInstance().deleteQuiz(quizId).whenCompleteAsync((deleted, error) -> {
+                    if (error != null) {
+                        showTaskError(dialog, "Could not delete the quiz", error);
+                    } else if (deleted) {
+                        model.removeRow(selectedRow); // the dashboard row goes with the QuizDeleted event
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Could not delete the quiz!", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }, UIHelper.EDT);
             }
         });
         buttonPanel.add(deleteButton);
 
+        JButton analysisButton = UIHelper.createStyledButton("Item Analysis", UIHelper.PRIMARY_BLUE, Color.WHITE);
+        analysisButton.addActionListener(e -> {
+            int selectedRow = table.getSelectedRow();
+            if (selectedRow == -1) {
+                JOptionPane.showMessageDialog(dialog, "Please select a quiz to analyze!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            int quizId = (int) model.getValueAt(selectedRow, 0);
+            String quizTitle = (String) model.getValueAt(selectedRow, 1);
+            QuizService.getInstance().getItemAnalysis(quizId)
+                .whenCompleteAsync((statistics, error) -> {
+                    if (error != null) {
+                        showTaskError(dialog, "Could not analyze the quiz", error);
+                    } else {
+                        showItemAnalysis(dialog, quizTitle, statistics);
+                    }
+                }, UIHelper.EDT);
+        });
+        buttonPanel.add(analysisButton);
+
+        JButton activityButton = UIHelper.createStyledButton("Activity", UIHelper.SUCCESS_GREEN, Color.WHITE);
+        activityButton.addActionListener(e -> {
+            int selectedRow = table.getSelectedRow();
+            if (selectedRow == -1) {
+                JOptionPane.showMessageDialog(dialog, "Please select a quiz to view its activity!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            int quizId = (int) model.getValueAt(selectedRow, 0);
+            String quizTitle = (String) model.getValueAt(selectedRow, 1);
+            QuizService.getInstance().getDailyActivity(quizId, 365)
+                .whenCompleteAsync((days, error) -> {
+                    if (error != null) {
+                        showTaskError(dialog, "Could not load the activity", error);
+                    } else {
+                        showActivity(dialog, quizTitle, days);
+                    }
+                }, UIHelper.EDT);
+        });
+        buttonPanel.add(activityButton);
+
+        JButton exportButton = UIHelper.createStyledButton("Export Pack", UIHelper.PURPLE, Color.WHITE);
+        exportButton.addActionListener(e -> {
+            int selectedRow = table.getSelectedRow();
+            if (selectedRow == -1) {
+                JOptionPane.showMessageDialog(dialog, "Please select a quiz to export!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            int quizId = (int) model.getValueAt(selectedRow, 0);
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File("quiz-" + quizId + ".qpk"));
+            if (chooser.showSaveDialog(dialog) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path file = chooser.getSelectedFile().toPath();
+            QuizService.getInstance().exportQuizPack(quizId, file, false).whenCompleteAsync((exported, error) -> {
+                if (error != null) {
+                    showTaskError(dialog, "Could not export the quiz", error);
+                } else {
+                    JOptionPane.showMessageDialog(dialog, exported ? "Quiz exported to\n" + file.toAbsolutePath() : "Could not export the quiz!",
+                        "Export Pack", exported ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
+                }
+            }, UIHelper.EDT);
+        });
+        buttonPanel.add(exportButton);
+
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dialog.dispose());
+        buttonPanel.add(closeButton);
+
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        dialog.add(contentPanel);
+        dialog.setVisible(true);
+    }
+
+    private void showItemAnalysis(Window owner, String quizTitle, List<ItemStatistic> statistics) {
+        if (statistics.isEmpty()) {
+            JOptionPane.showMessageDialog(owner, "This quiz has no questions to analyze!", "Item Analysis", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JDialog dialog = new JDialog(owner, "Item Analysis - " + quizTitle, Dialog.ModalityType.APPLICATION_MODAL);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(950, 400);
+        dialog.setLocationRelativeTo(owner);
+
+        JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
+        contentPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        JLabel hintLabel = new JLabel("<html>Difficulty is the share of takers who answered correctly. "
+            + "Discrimination is how well the question separates strong from weak takers (above 0.3 is good). "
+            + "A-D show how often each option is picked; * marks the correct one.</html>");
+        hintLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        contentPanel.add(hintLabel, BorderLayout.NORTH);
+
+        String[] columns = {"#", "Question", "Responses", "Difficulty", "Discrimination", "A", "B", "C", "D", "Blank", "Review"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (ItemStatistic item : statistics) {
+            Object[] row = new Object[columns.length];
+            row[0] = item.getQuestionNumber();
+            row[1] = item.getQuestionText();
+            row[2] = item.getResponses();
+            row[3] = Double.isNaN(item.getDifficulty()) ? "-" : String.format("%.2f", item.getDifficulty());
+            row[4] = Double.isNaN(item.getDiscrimination()) ? "-" : String.format("%.2f", item.getDiscrimination());
+            for (int choice = -1; choice < 4; choice++) {
+                double rate = item.getPickRate(choice);
+                String text = Double.isNaN(rate) ? "-" : String.format("%.0f%%", rate * 100);
+                // Mark the correct option so distractors stand out
+                row[choice == -1 ? 9 : 5 + choice] = choice == item.getCorrectAnswerIndex() ? text + " *" : text;
+            }
+            row[10] = item.getFlag();
+            model.addRow(row);
+        }
+
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(28);
+        table.getColumnModel().getColumn(0).setMaxWidth(40);
+        table.getColumnModel().getColumn(1).setPreferredWidth(300);
+        contentPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
         JButton closeButton = new JButton("Close");
         closeButton.addActionListener(e -> dialog.dispose());
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.add(closeButton);
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        dialog.add(contentPanel);
+        dialog.setVisible(true);
+    }
+
+    private void showActivity(Window owner, String quizTitle, List<AttemptRollup> days) {
+        if (days.isEmpty()) {
+            JOptionPane.showMessageDialog(owner, "No attempts in the last year!", "Activity", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JDialog dialog = new JDialog(owner, "Activity - " + quizTitle, Dialog.ModalityType.APPLICATION_MODAL);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(500, 400);
+        dialog.setLocationRelativeTo(owner);
+
+        JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
+        contentPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        long attempts = 0;
+        long passes = 0;
+        for (AttemptRollup day : days) {
+            attempts += day.getAttempts();
+            passes += day.getPasses();
+        }
+        JLabel summaryLabel = new JLabel(String.format("Last 12 months: %d attempts on %d days, %.1f%% passed",
+            attempts, days.size(), attempts == 0 ? 0.0 : passes * 100.0 / attempts), SwingConstants.CENTER);
+        summaryLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        contentPanel.add(summaryLabel, BorderLayout.NORTH);
+
+        String[] columns = {"Day (UTC)", "Attempts", "Avg Score", "Pass Rate"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        // Newest day first
+        for (int i = days.size() - 1; i >= 0; i--) {
+            AttemptRollup day = days.get(i);
+            model.addRow(new Object[]{
+                LocalDate.ofEpochDay(day.getPeriodStart() / 86400).toString(),
+                day.getAttempts(),
+                String.format("%.1f", day.getAverageScore()),
+                String.format("%.1f%%", day.getPassRate())
+            });
+        }
 
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(26);
+        contentPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dialog.dispose());
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(closeButton);
         contentPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         dialog.add(contentPanel);
@@ -1,6 +1,14 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DatabaseManager handles all database operations for the Quiz Application.
@@ -8,19 +16,68 @@ import java.util.List;
  */
 public class DatabaseManager {
     private static final String DB_URL = "jdbc:sqlite:quizapp.db";
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
     private static DatabaseManager instance;
     private Connection connection;
 
+    /**
+     * What a database file holds: everything, the user catalog of a sharded
+     * setup (which also allocates quiz ids), or one shard of the quiz data
+     */
+    protected enum Role {
+        SINGLE,
+        CATALOG,
+        SHARD
+    }
+
+    /**
+     * Thrown instead of saving attempts graded with a copy of a quiz whose answer key
+     * has since changed, e.g. by a re-grade in another process. Nothing was written;
+     * load the quiz again, grade again and retry.
+     */
+    public static class StaleQuizException extends RuntimeException {
+        private final int quizId;
+
+        StaleQuizException(int quizId, int gradedVersion, int currentVersion) {
+            super("Quiz " + quizId + " changed while the attempt was graded (version "
+                + gradedVersion + ", now " + currentVersion + ")");
+            this.quizId = quizId;
+        }
+
+        public int getQuizId() {
+            return quizId;
+        }
+    }
+
+    private final String url;
+    private final Role role;
+    private final int shardIndex;
+
     private DatabaseManager() {
+        this(DB_URL, Role.SINGLE, 0);
+    }
+
+    /**
+     * @param shardIndex position of a SHARD among all shards; its row ids start at
+     *                   shardIndex * {@link ShardedDatabaseManager#ID_SPAN}
+     */
+    protected DatabaseManager(String url, Role role, int shardIndex) {
+        this.url = url;
+        this.role = role;
+        this.shardIndex = shardIndex;
         initializeDatabase();
     }
 
     /**
-     * Get singleton instance of DatabaseManager
+     * Get singleton instance of DatabaseManager.
+     * Set the system property quiz.shards to a number above 1 to spread quiz data over that many files.
      */
     public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
-            instance = new DatabaseManager();
+            int shards = Integer.getInteger("quiz.shards", 1);
+            instance = shards > 1 ? new ShardedDatabaseManager(DB_URL, shards) : new DatabaseManager();
+            // Counts picks from AttemptSaved events, so it must be listening before the first write
+            ChoiceCounters.getInstance();
         }
         return instance;
     }
@@ -31,12 +88,19 @@ public class DatabaseManager {
     private void initializeDatabase() {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DB_URL);
+            connection = DriverManager.getConnection(url);
+            if (role != Role.SINGLE) {
+                // Several connections share the catalog file: let readers and the writer overlap
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA journal_mode = WAL");
+                    stmt.execute("PRAGMA busy_timeout = 5000");
+                }
+            }
             createTables();
         } catch (ClassNotFoundException e) {
-            System.err.println("SQLite JDBC driver not found: " + e.getMessage());
+            Log.error("initializeDatabase", "SQLite JDBC driver not found", e);
         } catch (SQLException e) {
-            System.err.println("Database initialization error: " + e.getMessage());
+            Log.error("initializeDatabase", "Database initialization error", e);
         }
     }
 
@@ -46,16 +110,26 @@ public class DatabaseManager {
     private void createTables() throws SQLException {
         Statement stmt = connection.createStatement();
 
-        // Users table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS users (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                username TEXT UNIQUE NOT NULL,
-                password TEXT NOT NULL,
-                email TEXT,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-        """);
+        if (role == Role.SHARD) {
+            // Users live in the catalog only; attaching it keeps the username joins unchanged
+            stmt.execute("ATTACH DATABASE '" + fileOf(DB_URL) + "' AS catalog");
+        } else {
+            // Users table
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS users (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    username TEXT UNIQUE NOT NULL,
+                    password TEXT NOT NULL,
+                    email TEXT,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+
+        if (role == Role.CATALOG) {
+            // Quiz ids are handed out here so they stay unique across shards
+            stmt.execute("CREATE TABLE IF NOT EXISTS quiz_ids (id INTEGER PRIMARY KEY AUTOINCREMENT)");
+        }
 
         // Quizzes table
         stmt.execute("""
@@ -66,9 +140,13 @@ public class DatabaseManager {
                 creator_id INTEGER,
                 total_marks INTEGER DEFAULT 100,
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                version INTEGER NOT NULL DEFAULT 0,
                 FOREIGN KEY (creator_id) REFERENCES users(id)
             )
         """);
+        // Bumped whenever a quiz's answer key or stored results are rewritten, so other processes
+        // can tell their cached copy is stale; databases created before it get the column here
+        addColumnIfMissing(stmt, "quizzes", "version", "INTEGER NOT NULL DEFAULT 0");
 
         // Questions table
         stmt.execute("""
@@ -115,15 +193,204 @@ public class DatabaseManager {
             )
         """);
 
+        // Lets re-grading find the answers to specific questions without a full scan
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_answers_question ON user_answers(question_id, attempt_id)");
+
+        // Lets item analysis walk one quiz's attempts in id order and join their answers
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_quiz_attempts_quiz ON quiz_attempts(quiz_id, id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_answers_attempt ON user_answers(attempt_id)");
+
+        // Pick counts per question option (choice -1 = blank), maintained by ChoiceCounters
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS choice_counts (
+                quiz_id INTEGER NOT NULL,
+                question_id INTEGER NOT NULL,
+                choice INTEGER NOT NULL,
+                picks INTEGER NOT NULL,
+                PRIMARY KEY (quiz_id, question_id, choice),
+                FOREIGN KEY (quiz_id) REFERENCES quizzes(id) ON DELETE CASCADE
+            ) WITHOUT ROWID
+        """);
+
+        // Seed the counters from stored answers the first time the table is used
+        stmt.execute("""
+            INSERT INTO choice_counts (quiz_id, question_id, choice, picks)
+            SELECT qa.quiz_id, ua.question_id, COALESCE(ua.selected_answer_index, -1), COUNT(*)
+            FROM user_answers ua
+            JOIN quiz_attempts qa ON ua.attempt_id = qa.id
+            WHERE NOT EXISTS (SELECT 1 FROM choice_counts)
+            GROUP BY qa.quiz_id, ua.question_id, COALESCE(ua.selected_answer_index, -1)
+        """);
+
+        // Attempts per whole-percent score bucket (0-100) for each quiz, kept in step with quiz_attempts
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS score_buckets (
+                quiz_id INTEGER NOT NULL,
+                bucket INTEGER NOT NULL,
+                attempts INTEGER NOT NULL,
+                PRIMARY KEY (quiz_id, bucket),
+                FOREIGN KEY (quiz_id) REFERENCES quizzes(id) ON DELETE CASCADE
+            ) WITHOUT ROWID
+        """);
+        stmt.execute("""
+            INSERT INTO score_buckets (quiz_id, bucket, attempts)
+            SELECT quiz_id, MIN(100, MAX(0, CAST(percentage + 1e-9 AS INTEGER))) AS bucket, COUNT(*)
+            FROM quiz_attempts
+            WHERE NOT EXISTS (SELECT 1 FROM score_buckets)
+            GROUP BY quiz_id, bucket
+        """);
+
+        // Attempt rollups: recent hours, compacted into days by AttemptRollups
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS attempt_rollups_hourly (
+                quiz_id INTEGER NOT NULL,
+                hour_start INTEGER NOT NULL,
+                attempts INTEGER NOT NULL,
+                score_sum INTEGER NOT NULL,
+                passes INTEGER NOT NULL,
+                PRIMARY KEY (quiz_id, hour_start)
+            ) WITHOUT ROWID
+        """);
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS attempt_rollups_daily (
+                quiz_id INTEGER NOT NULL,
+                day_start INTEGER NOT NULL,
+                attempts INTEGER NOT NULL,
+                score_sum INTEGER NOT NULL,
+                passes INTEGER NOT NULL,
+                PRIMARY KEY (quiz_id, day_start)
+            ) WITHOUT ROWID
+        """);
+        // Serves range queries across all quizzes
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_attempt_rollups_daily_day ON attempt_rollups_daily(day_start)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_attempt_rollups_hourly_hour ON attempt_rollups_hourly(hour_start)");
+
+        // Seed daily rollups from existing attempts the first time the tables are used
+        try (PreparedStatement seed = connection.prepareStatement("""
+            INSERT INTO attempt_rollups_daily (quiz_id, day_start, attempts, score_sum, passes)
+            SELECT quiz_id, CAST(strftime('%s', completed_at) AS INTEGER) / 86400 * 86400 AS day_start,
+                   COUNT(*), SUM(score), SUM(percentage >= ?)
+            FROM quiz_attempts
+            WHERE NOT EXISTS (SELECT 1 FROM attempt_rollups_daily)
+              AND NOT EXISTS (SELECT 1 FROM attempt_rollups_hourly)
+            GROUP BY quiz_id, day_start
+        """)) {
+            seed.setDouble(1, AttemptRollups.PASS_PERCENTAGE);
+            seed.executeUpdate();
+        }
+
+        // Re-grade jobs (progress checkpoint so an interrupted job can resume)
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS regrade_jobs (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                quiz_id INTEGER NOT NULL,
+                question_ids TEXT NOT NULL,
+                last_attempt_id INTEGER NOT NULL DEFAULT 0,
+                status TEXT NOT NULL DEFAULT 'RUNNING',
+                started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                FOREIGN KEY (quiz_id) REFERENCES quizzes(id)
+            )
+        """);
+
+        // Best percentage (in hundredths) per user and quiz, summed by GlobalRanking
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS user_quiz_best (
+                user_id INTEGER NOT NULL,
+                quiz_id INTEGER NOT NULL,
+                best_points INTEGER NOT NULL,
+                PRIMARY KEY (user_id, quiz_id),
+                FOREIGN KEY (quiz_id) REFERENCES quizzes(id) ON DELETE CASCADE
+            ) WITHOUT ROWID
+        """);
+        stmt.execute("""
+            INSERT INTO user_quiz_best (user_id, quiz_id, best_points)
+            SELECT user_id, quiz_id, MAX(CAST(ROUND(percentage * 100) AS INTEGER))
+            FROM quiz_attempts
+            WHERE NOT EXISTS (SELECT 1 FROM user_quiz_best)
+            GROUP BY user_id, quiz_id
+        """);
+
+        // Questions saved before marks were weighted have none; such a quiz was scored out of 100 with
+        // 100 / n marks per question. Give them those weights, the remainder going to the first questions,
+        // so the total stays 100 and matches the attempts already stored. The partial index keeps this
+        // check instant once nothing is left to fix.
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_questions_unweighted ON questions(quiz_id) WHERE marks <= 0");
+        String legacyQuizzes = """
+            SELECT quiz_id FROM questions
+            WHERE quiz_id IN (SELECT quiz_id FROM questions WHERE marks <= 0)
+            GROUP BY quiz_id HAVING MAX(marks) <= 0
+        """;
+        boolean unweighted;
+        try (ResultSet rs = stmt.executeQuery(legacyQuizzes + " LIMIT 1")) {
+            unweighted = rs.next();
+        }
+        if (unweighted) {
+            connection.setAutoCommit(false);
+            try {
+                stmt.execute("UPDATE quizzes SET total_marks = 100 WHERE id IN (" + legacyQuizzes + ")");
+                stmt.execute("UPDATE questions SET marks = weights.marks FROM ("
+                    + " SELECT id, 100 / COUNT(*) OVER quiz"
+                    + " + (ROW_NUMBER() OVER (quiz ORDER BY question_order, id) <= 100 % COUNT(*) OVER quiz) AS marks"
+                    + " FROM questions WHERE quiz_id IN (" + legacyQuizzes + ")"
+                    + " WINDOW quiz AS (PARTITION BY quiz_id)"
+                    + ") AS weights WHERE questions.id = weights.id");
+                connection.commit();
+            } catch (SQLException e) {
+                rollbackQuietly();
+                throw e;
+            } finally {
+                restoreAutoCommit();
+            }
+        }
+
+        // Client ids of attempts merged from kiosks, so merging the same log twice adds nothing
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS kiosk_attempts (
+                client_uuid TEXT PRIMARY KEY,
+                attempt_id INTEGER NOT NULL
+            ) WITHOUT ROWID
+        """);
+
+        if (role == Role.SHARD && shardIndex > 0) {
+            // Give each shard its own id range so a question, attempt or job id names its shard
+            try (PreparedStatement seed = connection.prepareStatement("""
+                INSERT INTO sqlite_sequence (name, seq)
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = ?)
+            """)) {
+                for (String table : new String[]{"questions", "quiz_attempts", "user_answers", "regrade_jobs"}) {
+                    seed.setString(1, table);
+                    seed.setLong(2, (long) shardIndex * ShardedDatabaseManager.ID_SPAN);
+                    seed.setString(3, table);
+                    seed.executeUpdate();
+                }
+            }
+        }
+
         stmt.close();
     }
 
+    /**
+     * Add a column to a table created before the column existed
+     */
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String definition)
+            throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
     // ==================== USER OPERATIONS ====================
 
     /**
      * Register a new user
      */
-    public boolean registerUser(String username, String password, String email) {
+    public synchronized boolean registerUser(String username, String password, String email) {
         String sql = "INSERT INTO users (username, password, email) VALUES (?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
@@ -132,29 +399,39 @@ public class DatabaseManager {
             pstmt.executeUpdate();
             return true;
         } catch (SQLException e) {
-            System.err.println("Registration error: " + e.getMessage());
+            Log.error("registerUser", "Registration error", e);
             return false;
         }
     }
 
     /**
      * Authenticate user login
+     * @return the user, or null if the credentials are wrong
+     * @throws IllegalStateException if the database could not be read, so it is not mistaken for wrong credentials
      */
-    public User authenticateUser(String username, String password) {
+    public synchronized User authenticateUser(String username, String password) {
+        QuizEvents.Login event = new QuizEvents.Login();
+        event.begin();
         String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
             pstmt.setString(2, hashPassword(password));
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new User(
+                User user = new User(
                     rs.getInt("id"),
                     rs.getString("username"),
                     rs.getString("email")
                 );
+                event.userId = user.getId();
+                return user;
             }
         } catch (SQLException e) {
-            System.err.println("Authentication error: " + e.getMessage());
+            Log.error("authenticateUser", "Authentication error", e);
+            throw new IllegalStateException("Could not check the credentials: " + e.getMessage(), e);
+        } finally {
+            event.username = username;
+            event.commit();
         }
         return null;
     }
@@ -162,7 +439,7 @@ public class DatabaseManager {
     /**
      * Check if username exists
      */
-    public boolean usernameExists(String username) {
+    public synchronized boolean usernameExists(String username) {
         String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
@@ -173,6 +450,45 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Get the ids of all users keyed by username
+     */
+    public synchronized Map<String, Integer> getUserIdsByUsername() {
+        Map<String, Integer> ids = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, username FROM users")) {
+            while (rs.next()) {
+                ids.put(rs.getString("username"), rs.getInt("id"));
+            }
+        } catch (SQLException e) {
+            Log.error("getUserIdsByUsername", "Get user ids error", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Get the usernames of the given users; unknown ids are left out
+     */
+    public synchronized Map<Integer, String> getUsernames(List<Integer> userIds) {
+        Map<Integer, String> names = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return names;
+        }
+        String sql = "SELECT id, username FROM users WHERE id IN (" + "?,".repeat(userIds.size() - 1) + "?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < userIds.size(); i++) {
+                pstmt.setInt(i + 1, userIds.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                names.put(rs.getInt("id"), rs.getString("username"));
+            }
+        } catch (SQLException e) {
+            Log.error("getUsernames", "Get usernames error", e);
+        }
+        return names;
+    }
+
     /**
      * Simple password hashing (for demonstration - use bcrypt in production)
      */
@@ -186,75 +502,118 @@ public class DatabaseManager {
      * Save a quiz to database
      */
     public int saveQuiz(Quiz quiz, int creatorId) {
-        String quizSql = "INSERT INTO quizzes (title, description, creator_id, total_marks) VALUES (?, ?, ?, ?)";
+        return saveQuiz(quiz, creatorId, 0);
+    }
+
+    /**
+     * Save a quiz under an id reserved in the catalog, or a new one if reservedId is 0.
+     * The quiz and its questions are written in one transaction, so a failure leaves no half-saved quiz.
+     */
+    protected synchronized int saveQuiz(Quiz quiz, int creatorId, int reservedId) {
+        String quizSql = "INSERT INTO quizzes (id, title, description, creator_id, total_marks) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(quizSql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, quiz.getTitle());
-            pstmt.setString(2, quiz.getDescription());
-            pstmt.setInt(3, creatorId);
-            pstmt.setInt(4, quiz.getTotalMarks());
+            connection.setAutoCommit(false);
+            if (reservedId > 0) {
+                pstmt.setInt(1, reservedId);
+            } else {
+                pstmt.setNull(1, Types.INTEGER);
+            }
+            pstmt.setString(2, quiz.getTitle());
+            pstmt.setString(3, quiz.getDescription());
+            pstmt.setInt(4, creatorId);
+            pstmt.setInt(5, quiz.getTotalMarks());
             pstmt.executeUpdate();
 
             ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                int quizId = generatedKeys.getInt(1);
-                quiz.setId(quizId);
-
-                // Save questions
-                saveQuestions(quizId, quiz.getQuestions());
-                return quizId;
+            if (!generatedKeys.next()) {
+                throw new SQLException("No id generated for quiz");
             }
+            int quizId = generatedKeys.getInt(1);
+            int[] questionIds = saveQuestions(quizId, quiz.getQuestions());
+            connection.commit();
+            ChangeBus.getInstance().publish(new ChangeBus.QuizSaved(quiz.withIds(quizId, questionIds), creatorId));
+            return quizId;
         } catch (SQLException e) {
-            System.err.println("Save quiz error: " + e.getMessage());
+            Log.error("saveQuiz", creatorId, -1, "Save quiz error", e);
+            rollbackQuietly();
+            return -1;
+        } finally {
+            restoreAutoCommit();
         }
-        return -1;
     }
 
     /**
-     * Save questions for a quiz
+     * Save questions for a new quiz as one batch inside the caller's transaction
+     * @return the new question ids, in order
      */
-    private void saveQuestions(int quizId, List<Question> questions) throws SQLException {
+    private int[] saveQuestions(int quizId, List<Question> questions) throws SQLException {
+        int[] ids = new int[questions.size()];
         String sql = "INSERT INTO questions (quiz_id, question_text, choice1, choice2, choice3, choice4, correct_answer_index, marks, question_order) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        // A batch does not report every generated key, so the ids are read back by position
+        String idSql = "SELECT id FROM questions WHERE quiz_id = ? ORDER BY question_order";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             PreparedStatement idStmt = connection.prepareStatement(idSql)) {
             for (int i = 0; i < questions.size(); i++) {
                 Question q = questions.get(i);
-                String[] choices = q.getChoices();
                 pstmt.setInt(1, quizId);
                 pstmt.setString(2, q.getQuestionText());
-                pstmt.setString(3, choices[0]);
-                pstmt.setString(4, choices[1]);
-                pstmt.setString(5, choices[2]);
-                pstmt.setString(6, choices[3]);
+                pstmt.setString(3, q.getChoice(0));
+                pstmt.setString(4, q.getChoice(1));
+                pstmt.setString(5, q.getChoice(2));
+                pstmt.setString(6, q.getChoice(3));
                 pstmt.setInt(7, q.getCorrectAnswerIndex());
                 pstmt.setInt(8, q.getMarks());
                 pstmt.setInt(9, i);
-                pstmt.executeUpdate();
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
 
-                ResultSet generatedKeys = pstmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    q.setId(generatedKeys.getInt(1));
+            idStmt.setInt(1, quizId);
+            ResultSet rs = idStmt.executeQuery();
+            for (int i = 0; i < ids.length; i++) {
+                if (!rs.next()) {
+                    throw new SQLException("Question " + (i + 1) + " of quiz " + quizId + " was not saved");
                 }
+                ids[i] = rs.getInt(1);
             }
         }
+        return ids;
+    }
+
+    /**
+     * Reserve a new quiz id in the catalog
+     * @return the id, or -1 on failure
+     */
+    protected synchronized int reserveQuizId() {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO quiz_ids DEFAULT VALUES", Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.executeUpdate();
+            ResultSet generatedKeys = pstmt.getGeneratedKeys();
+            return generatedKeys.next() ? generatedKeys.getInt(1) : -1;
+        } catch (SQLException e) {
+            Log.error("reserveQuizId", "Reserve quiz id error", e);
+            return -1;
+        }
     }
 
     /**
      * Get all quizzes
      */
-    public List<Quiz> getAllQuizzes() {
+    public synchronized List<Quiz> getAllQuizzes() {
         List<Quiz> quizzes = new ArrayList<>();
         String sql = "SELECT q.*, u.username as creator_name FROM quizzes q LEFT JOIN users u ON q.creator_id = u.id ORDER BY q.created_at DESC";
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Quiz quiz = new Quiz(rs.getString("title"));
-                quiz.setId(rs.getInt("id"));
-                quiz.setDescription(rs.getString("description"));
-                quiz.setCreatorName(rs.getString("creator_name"));
-                quiz.setCreatedAt(rs.getTimestamp("created_at"));
-                quizzes.add(quiz);
+                quizzes.add(new Quiz.Builder(rs.getString("title"))
+                    .setId(rs.getInt("id"))
+                    .setDescription(rs.getString("description"))
+                    .setCreatorName(rs.getString("creator_name"))
+                    .setCreatedAt(rs.getTimestamp("created_at"))
+                    .build());
             }
         } catch (SQLException e) {
-            System.err.println("Get quizzes error: " + e.getMessage());
+            Log.error("getAllQuizzes", "Get quizzes error", e);
         }
         return quizzes;
     }
@@ -262,46 +621,72 @@ public class DatabaseManager {
     /**
      * Get quizzes created by a specific user
      */
-    public List<Quiz> getQuizzesByUser(int userId) {
+    public synchronized List<Quiz> getQuizzesByUser(int userId) {
         List<Quiz> quizzes = new ArrayList<>();
         String sql = "SELECT * FROM quizzes WHERE creator_id = ? ORDER BY created_at DESC";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Quiz quiz = new Quiz(rs.getString("title"));
-                quiz.setId(rs.getInt("id"));
-                quiz.setDescription(rs.getString("description"));
-                quiz.setCreatedAt(rs.getTimestamp("created_at"));
-                quizzes.add(quiz);
+                quizzes.add(new Quiz.Builder(rs.getString("title"))
+                    .setId(rs.getInt("id"))
+                    .setDescription(rs.getString("description"))
+                    .setCreatedAt(rs.getTimestamp("created_at"))
+                    .build());
             }
         } catch (SQLException e) {
-            System.err.println("Get user quizzes error: " + e.getMessage());
+            Log.error("getQuizzesByUser", userId, -1, "Get user quizzes error", e);
         }
         return quizzes;
     }
 
+    /**
+     * Get the number of questions in every quiz with a single grouped query
+     * @return map of quiz id to question count (quizzes without questions are absent)
+     */
+    public synchronized Map<Integer, Integer> getQuestionCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT quiz_id, COUNT(*) AS question_count FROM questions GROUP BY quiz_id";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                counts.put(rs.getInt("quiz_id"), rs.getInt("question_count"));
+            }
+        } catch (SQLException e) {
+            Log.error("getQuestionCounts", "Get question counts error", e);
+        }
+        return counts;
+    }
+
     /**
      * Load a complete quiz with questions
      */
-    public Quiz loadQuiz(int quizId) {
+    public synchronized Quiz loadQuiz(int quizId) {
+        QuizEvents.QuizLoad event = new QuizEvents.QuizLoad();
+        event.begin();
+        event.quizId = quizId;
         String quizSql = "SELECT q.*, u.username as creator_name FROM quizzes q LEFT JOIN users u ON q.creator_id = u.id WHERE q.id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(quizSql)) {
             pstmt.setInt(1, quizId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                Quiz quiz = new Quiz(rs.getString("title"));
-                quiz.setId(rs.getInt("id"));
-                quiz.setDescription(rs.getString("description"));
-                quiz.setCreatorName(rs.getString("creator_name"));
-                quiz.setCreatedAt(rs.getTimestamp("created_at"));
+                Quiz.Builder builder = new Quiz.Builder(rs.getString("title"))
+                    .setId(rs.getInt("id"))
+                    .setDescription(rs.getString("description"))
+                    .setCreatorName(rs.getString("creator_name"))
+                    .setCreatedAt(rs.getTimestamp("created_at"))
+                    .setVersion(rs.getInt("version"));
 
                 // Load questions
-                loadQuestions(quiz);
+                loadQuestions(builder, quizId);
+                Quiz quiz = builder.build();
+                event.questionCount = quiz.getQuestionCount();
                 return quiz;
             }
         } catch (SQLException e) {
-            System.err.println("Load quiz error: " + e.getMessage());
+            Log.error("loadQuiz", -1, quizId, "Load quiz error", e);
+        } finally {
+            event.commit();
         }
         return null;
     }
@@ -309,10 +694,10 @@ public class DatabaseManager {
     /**
      * Load questions for a quiz
      */
-    private void loadQuestions(Quiz quiz) throws SQLException {
+    private void loadQuestions(Quiz.Builder quiz, int quizId) throws SQLException {
         String sql = "SELECT * FROM questions WHERE quiz_id = ? ORDER BY question_order";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, quiz.getId());
+            pstmt.setInt(1, quizId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 String[] choices = {
@@ -322,83 +707,393 @@ public class DatabaseManager {
                     rs.getString("choice4")
                 };
                 Question q = new Question(
+                    rs.getInt("id"),
                     rs.getString("question_text"),
                     choices,
                     rs.getInt("correct_answer_index"),
                     rs.getInt("marks")
                 );
-                q.setId(rs.getInt("id"));
                 quiz.addQuestion(q);
             }
         }
     }
 
     /**
-     * Delete a quiz
+     * Delete a quiz with the rows derived from it, in one transaction.
+     * Its attempts and answers stay; every per-quiz table that sums them is cleared.
      */
-    public boolean deleteQuiz(int quizId) {
-        String sql = "DELETE FROM quizzes WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, quizId);
-            pstmt.executeUpdate();
+    public synchronized boolean deleteQuiz(int quizId) {
+        // Foreign keys are not enforced, so the derived rows are removed explicitly
+        String[] tables = {"quizzes", "user_quiz_best", "choice_counts", "score_buckets",
+            "attempt_rollups_hourly", "attempt_rollups_daily"};
+        try {
+            connection.setAutoCommit(false);
+            for (String table : tables) {
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "DELETE FROM " + table + " WHERE " + (table.equals("quizzes") ? "id" : "quiz_id") + " = ?")) {
+                    pstmt.setInt(1, quizId);
+                    pstmt.executeUpdate();
+                }
+            }
+            connection.commit();
+            ChangeBus.getInstance().publish(new ChangeBus.QuizDeleted(quizId));
             return true;
         } catch (SQLException e) {
-            System.err.println("Delete quiz error: " + e.getMessage());
+            Log.error("deleteQuiz", -1, quizId, "Delete quiz error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    // ==================== QUIZ VERSION OPERATIONS ====================
+
+    /**
+     * Get the version of a quiz's answer key and stored results (see {@link Quiz#getVersion()}).
+     * Other processes change it, so caches compare it before trusting what they hold.
+     * @return the version, or -1 if the quiz does not exist or the read failed
+     */
+    public synchronized int getQuizVersion(int quizId) {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT version FROM quizzes WHERE id = ?")) {
+            pstmt.setInt(1, quizId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : -1;
+        } catch (SQLException e) {
+            Log.error("getQuizVersion", -1, quizId, "Read quiz version error", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Get the sum of every quiz's version; it changes whenever any quiz's results are rewritten
+     * @return the sum, or -1 if the read failed
+     */
+    public synchronized long getVersionTotal() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(SUM(version), 0) FROM quizzes")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            Log.error("getVersionTotal", "Read quiz versions error", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Mark a quiz's cached copies and derived data stale in every process
+     */
+    public synchronized boolean bumpQuizVersion(int quizId) {
+        try (PreparedStatement pstmt = connection.prepareStatement("UPDATE quizzes SET version = version + 1 WHERE id = ?")) {
+            pstmt.setInt(1, quizId);
+            return pstmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            Log.error("bumpQuizVersion", -1, quizId, "Bump quiz version error", e);
+            return false;
+        }
+    }
+
+    /**
+     * Refuse attempts graded with an older copy of the quiz, inside the caller's transaction
+     * @throws StaleQuizException if the quiz's version moved on since it was loaded
+     */
+    private void checkVersion(Quiz quiz) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT version FROM quizzes WHERE id = ?")) {
+            pstmt.setInt(1, quiz.getId());
+            ResultSet rs = pstmt.executeQuery();
+            int current = rs.next() ? rs.getInt(1) : quiz.getVersion();
+            if (current != quiz.getVersion()) {
+                throw new StaleQuizException(quiz.getId(), quiz.getVersion(), current);
+            }
+        }
+    }
+
+    /**
+     * Object whose monitor guards a quiz's tables; holding it keeps this process from writing
+     * attempts on the quiz meanwhile
+     */
+    Object lockFor(int quizId) {
+        return this;
+    }
+
+    // ==================== QUIZ PACK OPERATIONS ====================
+
+    /**
+     * Export a quiz and its questions to a quiz pack file.
+     * Not synchronized: the file is written after loadQuiz has released the lock.
+     */
+    public boolean exportQuizPack(int quizId, Path file, boolean compress) {
+        Quiz quiz = loadQuiz(quizId);
+        if (quiz == null) {
+            return false;
+        }
+        try {
+            QuizPack.write(quiz, file, compress);
+            return true;
+        } catch (IOException e) {
+            Log.error("exportQuizPack", -1, quizId, "Export quiz pack error", e);
             return false;
         }
     }
 
+    /**
+     * Import a quiz pack as a new quiz
+     * @return the new quiz id, or -1 on failure
+     */
+    public int importQuizPack(Path file, int creatorId) {
+        Quiz quiz;
+        try {
+            quiz = QuizPack.open(file).toQuiz();
+        } catch (IOException | RuntimeException e) {
+            Log.error("importQuizPack", creatorId, -1, "Import quiz pack error", e);
+            return -1;
+        }
+        return saveQuiz(quiz, creatorId); // assigns fresh quiz and question ids
+    }
+
     // ==================== QUIZ ATTEMPT OPERATIONS ====================
 
     /**
-     * Save a quiz attempt
+     * Save a graded quiz attempt with its answers
+     * @return the new attempt id, or -1 on failure
+     * @throws StaleQuizException if the quiz's answer key changed since {@code quiz} was loaded
      */
-    public int saveQuizAttempt(int userId, int quizId, int score, int totalMarks, double percentage, int[] userAnswers, Quiz quiz) {
-        String attemptSql = "INSERT INTO quiz_attempts (user_id, quiz_id, score, total_marks, percentage) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(attemptSql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, quizId);
-            pstmt.setInt(3, score);
-            pstmt.setInt(4, totalMarks);
-            pstmt.setDouble(5, percentage);
-            pstmt.executeUpdate();
+    public synchronized int saveQuizAttempt(int userId, Quiz quiz, GradedAttempt attempt) {
+        QuizEvents.AttemptSubmit event = new QuizEvents.AttemptSubmit();
+        event.begin();
+        event.quizId = quiz.getId();
+        event.questionCount = quiz.getQuestionCount();
+        long start = System.nanoTime();
+        try {
+            // One transaction per attempt so concurrent submissions never leave half-saved answers
+            connection.setAutoCommit(false);
+            checkVersion(quiz);
+            int[] userIds = {userId};
+            long[] bestGains = new long[1];
+            int[] attemptIds = insertAttempts(quiz, userIds, new GradedAttempt[]{attempt}, null, bestGains);
+            connection.commit();
+            ChangeBus.getInstance().publish(new ChangeBus.AttemptSaved(this, quiz, userIds, attemptIds,
+                new GradedAttempt[]{attempt}, bestGains, null));
+            event.attemptId = attemptIds[0];
+            event.rows = 1 + quiz.getQuestionCount();
+            Log.info("saveQuizAttempt", userId, quiz.getId(), System.nanoTime() - start, "Attempt saved");
+            return attemptIds[0];
+        } catch (SQLException e) {
+            Log.error("saveQuizAttempt", userId, quiz.getId(), "Save attempt error", e);
+            rollbackQuietly();
+            return -1;
+        } catch (StaleQuizException e) {
+            rollbackQuietly();
+            throw e;
+        } finally {
+            restoreAutoCommit();
+            event.commit();
+        }
+    }
 
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
+    /**
+     * Save many graded attempts for one quiz in a single transaction.
+     * Either every attempt and answer row is written or none is.
+     * @param userIds user id for each attempt, parallel to {@code attempts}
+     * @return number of attempts saved, or -1 if the batch was rolled back
+     * @throws StaleQuizException if the quiz's answer key changed since {@code quiz} was loaded
+     */
+    public synchronized int saveQuizAttempts(Quiz quiz, int[] userIds, GradedAttempt[] attempts) {
+        try {
+            connection.setAutoCommit(false);
+            checkVersion(quiz);
+            long[] bestGains = new long[attempts.length];
+            int[] attemptIds = insertAttempts(quiz, userIds, attempts, null, bestGains);
+            connection.commit();
+            ChangeBus.getInstance().publish(new ChangeBus.AttemptSaved(this, quiz, userIds, attemptIds, attempts, bestGains, null));
+            return attempts.length;
+        } catch (SQLException e) {
+            Log.error("saveQuizAttempts", -1, quiz.getId(), "Save attempts batch error", e);
+            rollbackQuietly();
+            return -1;
+        } catch (StaleQuizException e) {
+            rollbackQuietly();
+            throw e;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    /**
+     * Insert graded attempts, their answers, score buckets and rollups inside the caller's transaction.
+     * Answer correctness comes straight from each attempt's grading, so nothing is re-checked here.
+     * @param completedAt completion time per attempt (epoch millis), or null for now
+     * @param bestGains   receives how much each attempt raised its user's best on the quiz (see {@link GlobalRanking})
+     * @return generated attempt ids, parallel to {@code attempts}
+     */
+    private int[] insertAttempts(Quiz quiz, int[] userIds, GradedAttempt[] attempts, long[] completedAt,
+                                 long[] bestGains) throws SQLException {
+        String attemptSql = "INSERT INTO quiz_attempts (user_id, quiz_id, score, total_marks, percentage, completed_at)"
+            + " VALUES (?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+        String answerSql = "INSERT INTO user_answers (attempt_id, question_id, selected_answer_index, is_correct) VALUES (?, ?, ?, ?)";
+        List<Question> questions = quiz.getQuestions();
+        int[] attemptIds = new int[attempts.length];
+        long[] bucketCounts = new long[ScoreHistogram.BUCKETS];
+        try (PreparedStatement attemptStmt = connection.prepareStatement(attemptSql, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement answerStmt = connection.prepareStatement(answerSql)) {
+            for (int a = 0; a < attempts.length; a++) {
+                GradedAttempt attempt = attempts[a];
+                attemptStmt.setInt(1, userIds[a]);
+                attemptStmt.setInt(2, quiz.getId());
+                attemptStmt.setInt(3, attempt.getScore());
+                attemptStmt.setInt(4, attempt.getTotalMarks());
+                attemptStmt.setDouble(5, attempt.getPercentage());
+                // Same text form as CURRENT_TIMESTAMP, so date functions and rollups treat both alike
+                attemptStmt.setString(6, completedAt != null ? SQLITE_TIMESTAMP.format(Instant.ofEpochMilli(completedAt[a])) : null);
+                attemptStmt.executeUpdate();
+
+                ResultSet generatedKeys = attemptStmt.getGeneratedKeys();
+                if (!generatedKeys.next()) {
+                    throw new SQLException("No id generated for attempt " + (a + 1));
+                }
                 int attemptId = generatedKeys.getInt(1);
+                attemptIds[a] = attemptId;
+                bucketCounts[ScoreHistogram.bucketOf(attempt.getPercentage())]++;
+                for (int i = 0; i < attempt.getQuestionCount(); i++) {
+                    answerStmt.setInt(1, attemptId);
+                    answerStmt.setInt(2, questions.get(i).getId());
+                    answerStmt.setInt(3, attempt.getAnswer(i));
+                    answerStmt.setInt(4, attempt.isCorrect(i) ? 1 : 0);
+                    answerStmt.addBatch();
+                }
+            }
+            answerStmt.executeBatch();
+        }
+
+        if (attempts.length > 0) {
+            addToScoreBuckets(quiz.getId(), bucketCounts);
+            addToRollups(quiz.getId(), attemptIds[0], attemptIds[attempts.length - 1]);
+            raiseBests(quiz.getId(), userIds, attempts, bestGains);
+        }
+        return attemptIds;
+    }
 
-                // Save individual answers
-                saveUserAnswers(attemptId, userAnswers, quiz);
-                return attemptId;
+    /**
+     * Record attempts that beat their user's best on a quiz, inside the caller's transaction.
+     * Most attempts do not, so each costs one primary-key lookup and only improvements are written.
+     * @param gains receives the increase in hundredths of a percent per attempt, 0 where the best held
+     */
+    private void raiseBests(int quizId, int[] userIds, GradedAttempt[] attempts, long[] gains) throws SQLException {
+        String selectSql = "SELECT best_points FROM user_quiz_best WHERE user_id = ? AND quiz_id = ?";
+        String upsertSql = """
+            INSERT INTO user_quiz_best (user_id, quiz_id, best_points) VALUES (?, ?, ?)
+            ON CONFLICT (user_id, quiz_id) DO UPDATE SET best_points = excluded.best_points
+        """;
+        // Bests already seen in this batch, so a user's repeated attempts are looked up once
+        Map<Integer, Long> bests = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(selectSql);
+             PreparedStatement upsert = connection.prepareStatement(upsertSql)) {
+            for (int a = 0; a < attempts.length; a++) {
+                int userId = userIds[a];
+                Long best = bests.get(userId);
+                if (best == null) {
+                    select.setInt(1, userId);
+                    select.setInt(2, quizId);
+                    ResultSet rs = select.executeQuery();
+                    best = rs.next() ? rs.getLong(1) : -1L;
+                    rs.close();
+                }
+                long points = GlobalRanking.points(attempts[a].getPercentage());
+                if (points > best) {
+                    gains[a] = points - Math.max(best, 0);
+                    bests.put(userId, points);
+                    upsert.setInt(1, userId);
+                    upsert.setInt(2, quizId);
+                    upsert.setLong(3, points);
+                    upsert.addBatch();
+                } else {
+                    bests.put(userId, best);
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("Save attempt error: " + e.getMessage());
+            upsert.executeBatch();
         }
-        return -1;
     }
 
     /**
-     * Save user answers for an attempt
+     * Merge attempts recorded offline by a kiosk in one transaction, skipping any whose
+     * client id was merged before. Safe to repeat: a second run of the same batch saves nothing.
+     * @param clientIds   client-generated attempt UUID per attempt
+     * @param completedAt completion time per attempt on the kiosk (epoch millis)
+     * @return new attempt id per attempt, 0 where it was merged before, or null if the batch was rolled back
+     * @throws StaleQuizException if the quiz's answer key changed since {@code quiz} was loaded
      */
-    private void saveUserAnswers(int attemptId, int[] userAnswers, Quiz quiz) throws SQLException {
-        String sql = "INSERT INTO user_answers (attempt_id, question_id, selected_answer_index, is_correct) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            List<Question> questions = quiz.getQuestions();
-            for (int i = 0; i < userAnswers.length; i++) {
-                Question q = questions.get(i);
-                pstmt.setInt(1, attemptId);
-                pstmt.setInt(2, q.getId());
-                pstmt.setInt(3, userAnswers[i]);
-                pstmt.setInt(4, q.isCorrect(userAnswers[i]) ? 1 : 0);
-                pstmt.executeUpdate();
+    public synchronized int[] mergeKioskAttempts(Quiz quiz, String[] clientIds, int[] userIds, long[] completedAt,
+                                                 GradedAttempt[] attempts) {
+        String claimSql = "INSERT OR IGNORE INTO kiosk_attempts (client_uuid, attempt_id) VALUES (?, 0)";
+        String linkSql = "UPDATE kiosk_attempts SET attempt_id = ? WHERE client_uuid = ?";
+        try (PreparedStatement claim = connection.prepareStatement(claimSql);
+             PreparedStatement link = connection.prepareStatement(linkSql)) {
+            connection.setAutoCommit(false);
+            checkVersion(quiz);
+            for (String clientId : clientIds) {
+                claim.setString(1, clientId);
+                claim.addBatch();
+            }
+            int[] claimed = claim.executeBatch();
+
+            // Only the ids claimed just now are new
+            int fresh = 0;
+            for (int count : claimed) {
+                if (count > 0) fresh++;
+            }
+            int[] freshUsers = new int[fresh];
+            long[] freshTimes = new long[fresh];
+            GradedAttempt[] freshAttempts = new GradedAttempt[fresh];
+            String[] freshIds = new String[fresh];
+            long[] freshGains = new long[fresh];
+            int next = 0;
+            for (int i = 0; i < clientIds.length; i++) {
+                if (claimed[i] > 0) {
+                    freshUsers[next] = userIds[i];
+                    freshTimes[next] = completedAt[i];
+                    freshAttempts[next] = attempts[i];
+                    freshIds[next++] = clientIds[i];
+                }
+            }
+
+            int[] attemptIds = new int[clientIds.length];
+            int[] freshAttemptIds = new int[0];
+            if (fresh > 0) {
+                freshAttemptIds = insertAttempts(quiz, freshUsers, freshAttempts, freshTimes, freshGains);
+                for (int i = 0; i < fresh; i++) {
+                    link.setInt(1, freshAttemptIds[i]);
+                    link.setString(2, freshIds[i]);
+                    link.addBatch();
+                }
+                link.executeBatch();
+                next = 0;
+                for (int i = 0; i < clientIds.length; i++) {
+                    if (claimed[i] > 0) {
+                        attemptIds[i] = freshAttemptIds[next++];
+                    }
+                }
+            }
+            connection.commit();
+            if (fresh > 0) {
+                ChangeBus.getInstance().publish(new ChangeBus.AttemptSaved(this, quiz, freshUsers, freshAttemptIds,
+                    freshAttempts, freshGains, freshTimes));
             }
+            return attemptIds;
+        } catch (SQLException e) {
+            Log.error("mergeKioskAttempts", -1, quiz.getId(), "Merge kiosk attempts error", e);
+            rollbackQuietly();
+            return null;
+        } catch (StaleQuizException e) {
+            rollbackQuietly();
+            throw e;
+        } finally {
+            restoreAutoCommit();
         }
     }
 
     /**
      * Get quiz attempts by user
      */
-    public List<QuizAttempt> getAttemptsByUser(int userId) {
+    public synchronized List<QuizAttempt> getAttemptsByUser(int userId) {
         List<QuizAttempt> attempts = new ArrayList<>();
         String sql = """
             SELECT qa.*, q.title as quiz_title
@@ -424,7 +1119,7 @@ public class DatabaseManager {
                 attempts.add(attempt);
             }
         } catch (SQLException e) {
-            System.err.println("Get attempts error: " + e.getMessage());
+            Log.error("getAttemptsByUser", userId, -1, "Get attempts error", e);
         }
         return attempts;
     }
@@ -432,7 +1127,7 @@ public class DatabaseManager {
     /**
      * Get best score for a user on a specific quiz
      */
-    public QuizAttempt getBestAttempt(int userId, int quizId) {
+    public synchronized QuizAttempt getBestAttempt(int userId, int quizId) {
         String sql = """
             SELECT qa.*, q.title as quiz_title
             FROM quiz_attempts qa
@@ -457,53 +1152,798 @@ public class DatabaseManager {
                 );
             }
         } catch (SQLException e) {
-            System.err.println("Get best attempt error: " + e.getMessage());
+            Log.error("getBestAttempt", userId, quizId, "Get best attempt error", e);
         }
         return null;
     }
 
     /**
-     * Get leaderboard for a quiz
+     * Get a user's best attempt on every quiz they have taken with a single grouped query
+     * @return map of quiz id to best attempt
      */
-    public List<LeaderboardEntry> getQuizLeaderboard(int quizId) {
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+    public synchronized Map<Integer, QuizAttempt> getBestAttemptsByUser(int userId) {
+        Map<Integer, QuizAttempt> best = new HashMap<>();
+        // SQLite returns the other columns from the row holding MAX(score)
         String sql = """
-            SELECT u.username, MAX(qa.score) as best_score, MAX(qa.percentage) as best_percentage
+            SELECT qa.*, q.title as quiz_title, MAX(qa.score) as best_score
             FROM quiz_attempts qa
-            JOIN users u ON qa.user_id = u.id
-            WHERE qa.quiz_id = ?
-            GROUP BY qa.user_id
-            ORDER BY best_score DESC, best_percentage DESC
-            LIMIT 10
+            JOIN quizzes q ON qa.quiz_id = q.id
+            WHERE qa.user_id = ?
+            GROUP BY qa.quiz_id
         """;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, quizId);
+            pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
-            int rank = 1;
             while (rs.next()) {
-                leaderboard.add(new LeaderboardEntry(
-                    rank++,
-                    rs.getString("username"),
-                    rs.getInt("best_score"),
+                QuizAttempt attempt = new QuizAttempt(
+                    rs.getInt("id"),
+                    rs.getInt("user_id"),
+                    rs.getInt("quiz_id"),
+                    rs.getString("quiz_title"),
+                    rs.getInt("score"),
+                    rs.getInt("total_marks"),
+                    rs.getDouble("percentage"),
+                    rs.getTimestamp("completed_at")
+                );
+                best.put(attempt.getQuizId(), attempt);
+            }
+        } catch (SQLException e) {
+            Log.error("getBestAttemptsByUser", userId, -1, "Get best attempts error", e);
+        }
+        return best;
+    }
+
+    /**
+     * Get leaderboard for a quiz
+     */
+    public synchronized List<LeaderboardEntry> getQuizLeaderboard(int quizId) {
+        QuizEvents.LeaderboardView event = new QuizEvents.LeaderboardView();
+        event.begin();
+        List<LeaderboardEntry> leaderboard = new ArrayList<>();
+        String sql = """
+            SELECT u.username, MAX(qa.score) as best_score, MAX(qa.percentage) as best_percentage
+            FROM quiz_attempts qa
+            JOIN users u ON qa.user_id = u.id
+            WHERE qa.quiz_id = ?
+            GROUP BY qa.user_id
+            ORDER BY best_score DESC, best_percentage DESC
+            LIMIT 10
+        """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, quizId);
+            ResultSet rs = pstmt.executeQuery();
+            int rank = 1;
+            while (rs.next()) {
+                leaderboard.add(new LeaderboardEntry(
+                    rank++,
+                    rs.getString("username"),
+                    rs.getInt("best_score"),
                     rs.getDouble("best_percentage")
                 ));
             }
         } catch (SQLException e) {
-            System.err.println("Get leaderboard error: " + e.getMessage());
+            Log.error("getQuizLeaderboard", -1, quizId, "Get leaderboard error", e);
         }
+        event.quizId = quizId;
+        event.rows = leaderboard.size();
+        event.commit();
         return leaderboard;
     }
 
+    // ==================== ITEM ANALYSIS OPERATIONS ====================
+
+    /**
+     * Stream every answer of a quiz's attempts newer than the given id, one row at a time.
+     * Rows are passed to the consumer as they are read, so no result list is built.
+     * @return highest attempt id seen, afterAttemptId if there were no new attempts, or -1 on error
+     */
+    public synchronized int streamItemResponses(int quizId, int afterAttemptId, ItemAnalysis.ResponseConsumer consumer) {
+        String sql = """
+            SELECT qa.id, ua.question_id, ua.is_correct, qa.percentage
+            FROM quiz_attempts qa
+            JOIN user_answers ua ON ua.attempt_id = qa.id
+            WHERE qa.quiz_id = ? AND qa.id > ?
+            ORDER BY qa.id
+        """;
+        int lastAttemptId = afterAttemptId;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, quizId);
+            pstmt.setInt(2, afterAttemptId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                lastAttemptId = rs.getInt(1);
+                consumer.accept(lastAttemptId, rs.getInt(2), rs.getInt(3) == 1, rs.getDouble(4));
+            }
+        } catch (SQLException e) {
+            Log.error("streamItemResponses", -1, quizId, "Stream item responses error", e);
+            return -1;
+        }
+        return lastAttemptId;
+    }
+
+    // ==================== SCORE DISTRIBUTION OPERATIONS ====================
+
+    /**
+     * Get the attempts per whole-percent bucket of a quiz
+     * @return array of {@link ScoreHistogram#BUCKETS} counts
+     */
+    public synchronized long[] getScoreBuckets(int quizId) {
+        long[] counts = new long[ScoreHistogram.BUCKETS];
+        String sql = "SELECT bucket, attempts FROM score_buckets WHERE quiz_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, quizId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                int bucket = rs.getInt("bucket");
+                if (bucket >= 0 && bucket < ScoreHistogram.BUCKETS) {
+                    counts[bucket] = rs.getLong("attempts");
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("getScoreBuckets", -1, quizId, "Get score buckets error", e);
+        }
+        return counts;
+    }
+
+    /**
+     * Hand a quiz's score buckets to the in-memory histograms, unless they already have them.
+     * Done under this database's lock, like the AttemptSaved events that keep them current,
+     * so no attempt is missed or counted twice.
+     */
+    synchronized void loadScoreBuckets(ScoreDistributions distributions, int quizId) {
+        if (!distributions.isLoaded(quizId)) {
+            distributions.load(quizId, getScoreBuckets(quizId));
+        }
+    }
+
+    /**
+     * Add attempts to score buckets inside the caller's transaction
+     * @param bucketCounts number of new attempts per bucket
+     */
+    private void addToScoreBuckets(int quizId, long[] bucketCounts) throws SQLException {
+        String sql = """
+            INSERT INTO score_buckets (quiz_id, bucket, attempts) VALUES (?, ?, ?)
+            ON CONFLICT (quiz_id, bucket) DO UPDATE SET attempts = attempts + excluded.attempts
+        """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+                if (bucketCounts[bucket] > 0) {
+                    pstmt.setInt(1, quizId);
+                    pstmt.setInt(2, bucket);
+                    pstmt.setLong(3, bucketCounts[bucket]);
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Recount a quiz's score buckets from its attempts, e.g. after re-grading
+     */
+    public synchronized boolean rebuildScoreBuckets(int quizId) {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM score_buckets WHERE quiz_id = ?");
+             PreparedStatement insert = connection.prepareStatement("""
+                 INSERT INTO score_buckets (quiz_id, bucket, attempts)
+                 SELECT quiz_id, MIN(100, MAX(0, CAST(percentage + 1e-9 AS INTEGER))) AS bucket, COUNT(*)
+                 FROM quiz_attempts
+                 WHERE quiz_id = ?
+                 GROUP BY quiz_id, bucket
+             """)) {
+            connection.setAutoCommit(false);
+            delete.setInt(1, quizId);
+            delete.executeUpdate();
+            insert.setInt(1, quizId);
+            insert.executeUpdate();
+            connection.commit();
+            ScoreDistributions.getInstance().invalidate(quizId);
+            return true;
+        } catch (SQLException e) {
+            Log.error("rebuildScoreBuckets", -1, quizId, "Rebuild score buckets error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    // ==================== GLOBAL RANKING OPERATIONS ====================
+
+    /**
+     * Hand this database's per-user totals to the ranking, unless it already has them.
+     * Done under this database's lock, like {@link GlobalRanking#record}, so no attempt is missed or counted twice.
+     */
+    synchronized void loadGlobalRanking(GlobalRanking ranking) {
+        if (ranking.isLoaded(this)) {
+            return;
+        }
+        Map<Integer, Long> totals = new HashMap<>();
+        String sql = "SELECT user_id, SUM(best_points) AS total FROM user_quiz_best GROUP BY user_id";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                totals.put(rs.getInt("user_id"), rs.getLong("total"));
+            }
+        } catch (SQLException e) {
+            Log.error("loadGlobalRanking", "Load ranking totals error", e);
+            return;
+        }
+        ranking.load(this, totals);
+    }
+
+    /**
+     * Recompute users' bests on a quiz from its attempts, e.g. after re-grading lowered some
+     */
+    public synchronized boolean rebuildBestScores(int quizId) {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user_quiz_best WHERE quiz_id = ?");
+             PreparedStatement insert = connection.prepareStatement("""
+                 INSERT INTO user_quiz_best (user_id, quiz_id, best_points)
+                 SELECT user_id, quiz_id, MAX(CAST(ROUND(percentage * 100) AS INTEGER))
+                 FROM quiz_attempts
+                 WHERE quiz_id = ?
+                 GROUP BY user_id, quiz_id
+             """)) {
+            connection.setAutoCommit(false);
+            delete.setInt(1, quizId);
+            delete.executeUpdate();
+            insert.setInt(1, quizId);
+            insert.executeUpdate();
+            connection.commit();
+            GlobalRanking.getInstance().invalidate();
+            return true;
+        } catch (SQLException e) {
+            Log.error("rebuildBestScores", -1, quizId, "Rebuild best scores error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    // ==================== ROLLUP OPERATIONS ====================
+
+    /**
+     * Add a range of just-inserted attempts to their hourly rollups inside the caller's transaction.
+     * Buckets come from the stored completed_at, so rollups and attempts always agree.
+     */
+    private void addToRollups(int quizId, int firstAttemptId, int lastAttemptId) throws SQLException {
+        String sql = """
+            INSERT INTO attempt_rollups_hourly (quiz_id, hour_start, attempts, score_sum, passes)
+            SELECT quiz_id, CAST(strftime('%s', completed_at) AS INTEGER) / 3600 * 3600 AS hour_start,
+                   COUNT(*), SUM(score), SUM(percentage >= ?)
+            FROM quiz_attempts
+            WHERE quiz_id = ? AND id BETWEEN ? AND ?
+            GROUP BY quiz_id, hour_start
+            ON CONFLICT (quiz_id, hour_start) DO UPDATE SET
+                attempts = attempts + excluded.attempts,
+                score_sum = score_sum + excluded.score_sum,
+                passes = passes + excluded.passes
+        """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDouble(1, AttemptRollups.PASS_PERCENTAGE);
+            pstmt.setInt(2, quizId);
+            pstmt.setInt(3, firstAttemptId);
+            pstmt.setInt(4, lastAttemptId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Get daily rollups in a time range, including days still held as hourly buckets
+     * @param quizId quiz to summarize, or a non-positive id for all quizzes
+     * @param from   first second of the range (epoch seconds, inclusive)
+     * @param to     last second of the range (epoch seconds, inclusive)
+     */
+    public synchronized List<AttemptRollup> getDailyRollups(int quizId, long from, long to) {
+        String quizFilter = quizId > 0 ? "quiz_id = ? AND " : "";
+        String sql = "SELECT period_start, SUM(attempts) AS attempts, SUM(score_sum) AS score_sum, SUM(passes) AS passes FROM ("
+            + " SELECT day_start AS period_start, attempts, score_sum, passes FROM attempt_rollups_daily"
+            + " WHERE " + quizFilter + "day_start BETWEEN ? AND ?"
+            + " UNION ALL"
+            + " SELECT hour_start / 86400 * 86400, attempts, score_sum, passes FROM attempt_rollups_hourly"
+            + " WHERE " + quizFilter + "hour_start BETWEEN ? AND ?"
+            + ") GROUP BY period_start ORDER BY period_start";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (int part = 0; part < 2; part++) {
+                if (quizId > 0) {
+                    pstmt.setInt(index++, quizId);
+                }
+                pstmt.setLong(index++, from);
+                pstmt.setLong(index++, to);
+            }
+            return readRollups(pstmt);
+        } catch (SQLException e) {
+            Log.error("getDailyRollups", -1, quizId, "Get daily rollups error", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Get hourly rollups in a time range; only hours not yet compacted are available
+     * @param quizId quiz to summarize, or a non-positive id for all quizzes
+     */
+    public synchronized List<AttemptRollup> getHourlyRollups(int quizId, long from, long to) {
+        String sql = "SELECT hour_start AS period_start, SUM(attempts) AS attempts, SUM(score_sum) AS score_sum, SUM(passes) AS passes"
+            + " FROM attempt_rollups_hourly WHERE " + (quizId > 0 ? "quiz_id = ? AND " : "") + "hour_start BETWEEN ? AND ?"
+            + " GROUP BY hour_start ORDER BY hour_start";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (quizId > 0) {
+                pstmt.setInt(index++, quizId);
+            }
+            pstmt.setLong(index++, from);
+            pstmt.setLong(index, to);
+            return readRollups(pstmt);
+        } catch (SQLException e) {
+            Log.error("getHourlyRollups", -1, quizId, "Get hourly rollups error", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<AttemptRollup> readRollups(PreparedStatement pstmt) throws SQLException {
+        List<AttemptRollup> rollups = new ArrayList<>();
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            rollups.add(new AttemptRollup(
+                rs.getLong("period_start"),
+                rs.getLong("attempts"),
+                rs.getLong("score_sum"),
+                rs.getLong("passes")
+            ));
+        }
+        return rollups;
+    }
+
+    /**
+     * Move hourly buckets before the cutoff into daily buckets in one transaction
+     * @param cutoff start of the first day to keep hourly (epoch seconds)
+     */
+    public synchronized boolean compactRollups(long cutoff) {
+        String foldSql = """
+            INSERT INTO attempt_rollups_daily (quiz_id, day_start, attempts, score_sum, passes)
+            SELECT quiz_id, hour_start / 86400 * 86400 AS day_start, SUM(attempts), SUM(score_sum), SUM(passes)
+            FROM attempt_rollups_hourly
+            WHERE hour_start < ?
+            GROUP BY quiz_id, day_start
+            ON CONFLICT (quiz_id, day_start) DO UPDATE SET
+                attempts = attempts + excluded.attempts,
+                score_sum = score_sum + excluded.score_sum,
+                passes = passes + excluded.passes
+        """;
+        try (PreparedStatement fold = connection.prepareStatement(foldSql);
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM attempt_rollups_hourly WHERE hour_start < ?")) {
+            connection.setAutoCommit(false);
+            fold.setLong(1, cutoff);
+            fold.executeUpdate();
+            delete.setLong(1, cutoff);
+            delete.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            Log.error("compactRollups", "Compact rollups error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    /**
+     * Recompute a quiz's rollups from its attempts, e.g. after re-grading.
+     * Attempts before the cutoff go to daily buckets, later ones to hourly buckets.
+     */
+    public synchronized boolean rebuildRollups(int quizId, long cutoff) {
+        try (PreparedStatement deleteHourly = connection.prepareStatement("DELETE FROM attempt_rollups_hourly WHERE quiz_id = ?");
+             PreparedStatement deleteDaily = connection.prepareStatement("DELETE FROM attempt_rollups_daily WHERE quiz_id = ?");
+             PreparedStatement insertDaily = connection.prepareStatement("""
+                 INSERT INTO attempt_rollups_daily (quiz_id, day_start, attempts, score_sum, passes)
+                 SELECT quiz_id, CAST(strftime('%s', completed_at) AS INTEGER) / 86400 * 86400 AS day_start,
+                        COUNT(*), SUM(score), SUM(percentage >= ?)
+                 FROM quiz_attempts
+                 WHERE quiz_id = ? AND CAST(strftime('%s', completed_at) AS INTEGER) < ?
+                 GROUP BY quiz_id, day_start
+             """);
+             PreparedStatement insertHourly = connection.prepareStatement("""
+                 INSERT INTO attempt_rollups_hourly (quiz_id, hour_start, attempts, score_sum, passes)
+                 SELECT quiz_id, CAST(strftime('%s', completed_at) AS INTEGER) / 3600 * 3600 AS hour_start,
+                        COUNT(*), SUM(score), SUM(percentage >= ?)
+                 FROM quiz_attempts
+                 WHERE quiz_id = ? AND CAST(strftime('%s', completed_at) AS INTEGER) >= ?
+                 GROUP BY quiz_id, hour_start
+             """)) {
+            connection.setAutoCommit(false);
+            deleteHourly.setInt(1, quizId);
+            deleteHourly.executeUpdate();
+            deleteDaily.setInt(1, quizId);
+            deleteDaily.executeUpdate();
+            for (PreparedStatement insert : new PreparedStatement[]{insertDaily, insertHourly}) {
+                insert.setDouble(1, AttemptRollups.PASS_PERCENTAGE);
+                insert.setInt(2, quizId);
+                insert.setLong(3, cutoff);
+                insert.executeUpdate();
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            Log.error("rebuildRollups", -1, quizId, "Rebuild rollups error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    // ==================== COLUMN SNAPSHOT OPERATIONS ====================
+
+    /**
+     * Get the attempt id ranges to stream separately, each as {first, last}.
+     * A single database has one range; a sharded one has one per shard.
+     */
+    public int[][] getAttemptIdRanges() {
+        return new int[][]{{1, Integer.MAX_VALUE}};
+    }
+
+    /**
+     * Stream every attempt with an id above the given one, in id order
+     * @return highest attempt id streamed, or afterAttemptId if there were none
+     */
+    public synchronized int streamAttemptsAfter(int afterAttemptId, AttemptColumns.AttemptConsumer consumer) {
+        String sql = """
+            SELECT id, user_id, quiz_id, score, percentage, CAST(strftime('%s', completed_at) AS INTEGER)
+            FROM quiz_attempts
+            WHERE id > ?
+            ORDER BY id
+        """;
+        int lastAttemptId = afterAttemptId;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, afterAttemptId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                lastAttemptId = rs.getInt(1);
+                consumer.accept(lastAttemptId, rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getFloat(5), rs.getLong(6));
+            }
+        } catch (SQLException e) {
+            Log.error("streamAttemptsAfter", "Stream attempts error", e);
+        }
+        return lastAttemptId;
+    }
+
+    /**
+     * Stream the answers of attempts in (afterAttemptId, upToAttemptId], ordered by attempt id
+     */
+    public synchronized void streamAnswersAfter(int afterAttemptId, int upToAttemptId, AttemptColumns.AnswerConsumer consumer) {
+        String sql = """
+            SELECT attempt_id, question_id, selected_answer_index, is_correct
+            FROM user_answers
+            WHERE attempt_id > ? AND attempt_id <= ?
+            ORDER BY attempt_id, id
+        """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, afterAttemptId);
+            pstmt.setInt(2, upToAttemptId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                consumer.accept(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4) == 1);
+            }
+        } catch (SQLException e) {
+            Log.error("streamAnswersAfter", "Stream answers error", e);
+        }
+    }
+
+    // ==================== CHOICE COUNTER OPERATIONS ====================
+
+    /**
+     * Get the persisted pick counts for every question of a quiz
+     * @return counts per question id, indexed by choice + 1 (0 = blank, 1-4 = A-D)
+     */
+    public synchronized Map<Integer, long[]> getChoiceCounts(int quizId) {
+        Map<Integer, long[]> counts = new HashMap<>();
+        String sql = "SELECT question_id, choice, picks FROM choice_counts WHERE quiz_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, quizId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                int slot = rs.getInt("choice") + 1;
+                if (slot >= 0 && slot < ChoiceCounters.SLOTS) {
+                    counts.computeIfAbsent(rs.getInt("question_id"), id -> new long[ChoiceCounters.SLOTS])[slot] = rs.getLong("picks");
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("getChoiceCounts", -1, quizId, "Get choice counts error", e);
+        }
+        return counts;
+    }
+
+    /**
+     * Add pick count deltas in one transaction
+     * @param keys   {quizId, questionId, choice} per delta
+     * @param deltas picks to add, parallel to {@code keys}
+     */
+    public synchronized boolean addChoiceCounts(List<int[]> keys, List<Long> deltas) {
+        String sql = """
+            INSERT INTO choice_counts (quiz_id, question_id, choice, picks) VALUES (?, ?, ?, ?)
+            ON CONFLICT (quiz_id, question_id, choice) DO UPDATE SET picks = picks + excluded.picks
+        """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < keys.size(); i++) {
+                int[] key = keys.get(i);
+                pstmt.setInt(1, key[0]);
+                pstmt.setInt(2, key[1]);
+                pstmt.setInt(3, key[2]);
+                pstmt.setLong(4, deltas.get(i));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            Log.error("addChoiceCounts", "Add choice counts error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    // ==================== RE-GRADE OPERATIONS ====================
+
+    /**
+     * Change the correct answer of a question and bump its quiz's version in one transaction,
+     * so attempts graded with the old key anywhere are refused instead of saved
+     */
+    public synchronized boolean updateCorrectAnswer(int questionId, int correctAnswerIndex) {
+        String sql = "UPDATE questions SET correct_answer_index = ? WHERE id = ?";
+        String versionSql = "UPDATE quizzes SET version = version + 1 WHERE id = (SELECT quiz_id FROM questions WHERE id = ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             PreparedStatement version = connection.prepareStatement(versionSql)) {
+            connection.setAutoCommit(false);
+            pstmt.setInt(1, correctAnswerIndex);
+            pstmt.setInt(2, questionId);
+            if (pstmt.executeUpdate() != 1) {
+                connection.rollback();
+                return false;
+            }
+            version.setInt(1, questionId);
+            version.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            Log.error("updateCorrectAnswer", "Update correct answer error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    /**
+     * Find an unfinished re-grade job for the same quiz and questions, or start a new one
+     * @param questionIds canonical comma-separated question id list
+     * @return {job id, last processed attempt id}, or null on failure
+     */
+    public synchronized int[] openRegradeJob(int quizId, String questionIds) {
+        String findSql = "SELECT id, last_attempt_id FROM regrade_jobs WHERE quiz_id = ? AND question_ids = ? AND status = 'RUNNING' ORDER BY id DESC LIMIT 1";
+        String insertSql = "INSERT INTO regrade_jobs (quiz_id, question_ids) VALUES (?, ?)";
+        try (PreparedStatement find = connection.prepareStatement(findSql)) {
+            find.setInt(1, quizId);
+            find.setString(2, questionIds);
+            ResultSet rs = find.executeQuery();
+            if (rs.next()) {
+                return new int[]{rs.getInt("id"), rs.getInt("last_attempt_id")};
+            }
+            try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                insert.setInt(1, quizId);
+                insert.setString(2, questionIds);
+                insert.executeUpdate();
+                ResultSet keys = insert.getGeneratedKeys();
+                if (keys.next()) {
+                    return new int[]{keys.getInt(1), 0};
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("openRegradeJob", -1, quizId, "Open regrade job error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Count the attempts on a quiz that answered any of the given questions after an attempt id
+     */
+    public synchronized int countAttemptsAnswering(int quizId, int[] questionIds, int afterAttemptId) {
+        String sql = "SELECT COUNT(DISTINCT ua.attempt_id) FROM user_answers ua JOIN quiz_attempts qa ON qa.id = ua.attempt_id"
+            + " WHERE ua.question_id IN (" + placeholders(questionIds.length) + ") AND ua.attempt_id > ? AND qa.quiz_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int p = bindAll(pstmt, 1, questionIds);
+            pstmt.setInt(p++, afterAttemptId);
+            pstmt.setInt(p, quizId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            Log.error("countAttemptsAnswering", -1, quizId, "Count regrade attempts error", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Read the next chunk of answers to re-grade: every answer to the changed questions
+     * from the next {@code maxAttempts} affected attempts after {@code afterAttemptId}.
+     * @return the chunk (empty when nothing is left), or null on failure
+     */
+    public synchronized RegradeJob.Chunk readRegradeChunk(int quizId, int[] questionIds, int afterAttemptId, int maxAttempts) {
+        String boundSql = "SELECT MAX(attempt_id) FROM (SELECT DISTINCT ua.attempt_id FROM user_answers ua"
+            + " JOIN quiz_attempts qa ON qa.id = ua.attempt_id"
+            + " WHERE ua.question_id IN (" + placeholders(questionIds.length) + ") AND ua.attempt_id > ? AND qa.quiz_id = ?"
+            + " ORDER BY ua.attempt_id LIMIT ?)";
+        String rowsSql = "SELECT ua.id, ua.attempt_id, ua.question_id, ua.selected_answer_index, ua.is_correct, qa.score, qa.total_marks"
+            + " FROM user_answers ua JOIN quiz_attempts qa ON qa.id = ua.attempt_id"
+            + " WHERE ua.question_id IN (" + placeholders(questionIds.length) + ") AND ua.attempt_id > ? AND ua.attempt_id <= ?"
+            + " AND qa.quiz_id = ? ORDER BY ua.attempt_id";
+        try (PreparedStatement bound = connection.prepareStatement(boundSql);
+             PreparedStatement rows = connection.prepareStatement(rowsSql)) {
+            int p = bindAll(bound, 1, questionIds);
+            bound.setInt(p++, afterAttemptId);
+            bound.setInt(p++, quizId);
+            bound.setInt(p, maxAttempts);
+            ResultSet rs = bound.executeQuery();
+            int upperAttemptId = rs.next() ? rs.getInt(1) : 0;
+            RegradeJob.Chunk chunk = new RegradeJob.Chunk(upperAttemptId);
+            if (upperAttemptId <= afterAttemptId) {
+                return chunk;
+            }
+
+            p = bindAll(rows, 1, questionIds);
+            rows.setInt(p++, afterAttemptId);
+            rows.setInt(p++, upperAttemptId);
+            rows.setInt(p, quizId);
+            rs = rows.executeQuery();
+            while (rs.next()) {
+                chunk.add(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5) == 1,
+                    rs.getInt(6), rs.getInt(7));
+            }
+            return chunk;
+        } catch (SQLException e) {
+            Log.error("readRegradeChunk", -1, quizId, "Read regrade chunk error", e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a re-graded chunk and advance the job checkpoint in one transaction
+     */
+    public synchronized boolean applyRegradeChunk(int jobId, RegradeJob.Chunk chunk) {
+        String answerSql = "UPDATE user_answers SET is_correct = ? WHERE id = ?";
+        String attemptSql = "UPDATE quiz_attempts SET score = ?, percentage = ? WHERE id = ?";
+        String jobSql = "UPDATE regrade_jobs SET last_attempt_id = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        try (PreparedStatement answerStmt = connection.prepareStatement(answerSql);
+             PreparedStatement attemptStmt = connection.prepareStatement(attemptSql);
+             PreparedStatement jobStmt = connection.prepareStatement(jobSql)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.isChanged(i)) {
+                    answerStmt.setInt(1, chunk.isNewCorrect(i) ? 1 : 0);
+                    answerStmt.setInt(2, chunk.getAnswerId(i));
+                    answerStmt.addBatch();
+                }
+            }
+            answerStmt.executeBatch();
+
+            for (int a = 0; a < chunk.getRescoredCount(); a++) {
+                attemptStmt.setInt(1, chunk.getRescoredScore(a));
+                attemptStmt.setDouble(2, chunk.getRescoredPercentage(a));
+                attemptStmt.setInt(3, chunk.getRescoredAttemptId(a));
+                attemptStmt.addBatch();
+            }
+            attemptStmt.executeBatch();
+
+            jobStmt.setInt(1, chunk.getUpperAttemptId());
+            jobStmt.setInt(2, jobId);
+            jobStmt.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            Log.error("applyRegradeChunk", "Apply regrade chunk error", e);
+            rollbackQuietly();
+            return false;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    /**
+     * Mark a re-grade job as finished
+     */
+    public synchronized void finishRegradeJob(int jobId) {
+        String sql = "UPDATE regrade_jobs SET status = 'DONE', updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, jobId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            Log.error("finishRegradeJob", "Finish regrade job error", e);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static int bindAll(PreparedStatement pstmt, int firstIndex, int[] values) throws SQLException {
+        int index = firstIndex;
+        for (int value : values) {
+            pstmt.setInt(index++, value);
+        }
+        return index;
+    }
+
+    // ==================== TRANSACTION HELPERS ====================
+
+    /**
+     * Roll back the current transaction, ignoring secondary failures
+     */
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            Log.error("rollbackQuietly", "Rollback error", e);
+        }
+    }
+
+    /**
+     * Return the connection to auto-commit mode after a transaction
+     */
+    private void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            Log.error("restoreAutoCommit", "Auto-commit reset error", e);
+        }
+    }
+
+    /**
+     * @return path of the SQLite database file
+     */
+    public Path getDatabaseFile() {
+        return fileOf(url);
+    }
+
+    static Path fileOf(String url) {
+        return Path.of(url.substring("jdbc:sqlite:".length()));
+    }
+
+    /**
+     * @return every manager with its own connection and lock: just this one unless sharded
+     */
+    public List<DatabaseManager> getDatabases() {
+        return List.of(this);
+    }
+
+    /**
+     * Describe the connection for diagnostics. Not synchronized, so it answers
+     * even while a long operation holds the database lock.
+     */
+    public String getConnectionState() {
+        Connection current = connection;
+        try {
+            if (current == null) {
+                return "not connected";
+            }
+            return current.isClosed() ? "closed" : "open (single connection)";
+        } catch (SQLException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
     /**
      * Close database connection
      */
-    public void close() {
+    public synchronized void close() {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
             }
         } catch (SQLException e) {
-            System.err.println("Close connection error: " + e.getMessage());
+            Log.error("close", "Close connection error", e);
         }
     }
 }
@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diagnostics collects the live performance counters shown on the diagnostics card:
+ * database latency percentiles per operation, cache hit rates, the state of the
+ * database connection and its lock, heap and GC figures from the MXBeans, UI stall
+ * counts and the size of the database files.
+ *
+ * Recording a latency or cache lookup is a couple of atomic increments. Collecting a
+ * report runs on its own thread, so it is never queued behind slow database work.
+ */
+public class Diagnostics {
+    private static Diagnostics instance;
+
+    private final Map<String, LatencyHistogram> dbLatency = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder[]> caches = new ConcurrentHashMap<>();
+    private final ExecutorService collector;
+
+    private Diagnostics() {
+        collector = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "diagnostics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get singleton instance of Diagnostics
+     */
+    public static synchronized Diagnostics getInstance() {
+        if (instance == null) {
+            instance = new Diagnostics();
+        }
+        return instance;
+    }
+
+    /**
+     * Record how long one database operation took
+     */
+    public void recordDbLatency(String operation, long nanos) {
+        dbLatency.computeIfAbsent(operation, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Count one cache lookup
+     */
+    public void recordCacheLookup(String cache, boolean hit) {
+        caches.computeIfAbsent(cache, key -> new LongAdder[]{new LongAdder(), new LongAdder()})[hit ? 0 : 1].increment();
+    }
+
+    /**
+     * Collect a report on the diagnostics thread
+     */
+    public CompletableFuture<DiagnosticsReport> collectAsync() {
+        return CompletableFuture.supplyAsync(this::collect, collector);
+    }
+
+    /**
+     * Collect a report on the calling thread
+     */
+    public DiagnosticsReport collect() {
+        DiagnosticsReport report = new DiagnosticsReport(LocalDateTime.now());
+        addDatabase(report);
+        addLatency(report);
+        addCaches(report);
+        addMemory(report);
+        addUi(report);
+        return report;
+    }
+
+    private void addDatabase(DiagnosticsReport report) {
+        List<DatabaseManager> databases = DatabaseManager.getInstance().getDatabases();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ThreadInfo[] infos = threads.getThreadInfo(threads.getAllThreadIds());
+        for (DatabaseManager db : databases) {
+            // Sharded setups get one section per file
+            String section = databases.size() == 1 ? "Database" : "Database " + db.getDatabaseFile().getFileName();
+            Path file = db.getDatabaseFile();
+            report.add(section, "File", file.toAbsolutePath().toString());
+            report.add(section, "Size", formatBytes(sizeOf(file)));
+            report.add(section, "WAL size", formatBytes(sizeOf(Path.of(file + "-wal"))));
+            report.add(section, "Shared memory size", formatBytes(sizeOf(Path.of(file + "-shm"))));
+            report.add(section, "Connection", db.getConnectionState());
+
+            // One connection per file, serialized by its DatabaseManager lock: show who holds it and who waits
+            String lockName = db.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(db));
+            String owner = null;
+            int waiting = 0;
+            for (ThreadInfo info : infos) {
+                if (info != null && lockName.equals(info.getLockName()) && info.getThreadState() == Thread.State.BLOCKED) {
+                    waiting++;
+                    owner = info.getLockOwnerName();
+                }
+            }
+            report.add(section, "Lock", owner != null ? "held by " + owner + ", " + waiting + " waiting" : "no threads waiting");
+        }
+    }
+
+    private void addLatency(DiagnosticsReport report) {
+        if (dbLatency.isEmpty()) {
+            report.add("Database latency", "(none yet)", "");
+            return;
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(dbLatency).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            report.add("Database latency", entry.getKey(), String.format(
+                "n=%d  p50 %s  p95 %s  p99 %s  max %s", histogram.getCount(),
+                formatMicros(histogram.getPercentileMicros(50)), formatMicros(histogram.getPercentileMicros(95)),
+                formatMicros(histogram.getPercentileMicros(99)), formatMicros(histogram.getMaxMicros())));
+        }
+    }
+
+    private void addCaches(DiagnosticsReport report) {
+        if (caches.isEmpty()) {
+            report.add("Caches", "(none used yet)", "");
+            return;
+        }
+        for (Map.Entry<String, LongAdder[]> entry : new TreeMap<>(caches).entrySet()) {
+            long hits = entry.getValue()[0].sum();
+            long misses = entry.getValue()[1].sum();
+            report.add("Caches", entry.getKey(), String.format("%d hits, %d misses (%.0f%% hit rate)",
+                hits, misses, hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses)));
+        }
+    }
+
+    private void addMemory(DiagnosticsReport report) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        report.add("Memory", "Heap used", formatBytes(heap.getUsed()));
+        report.add("Memory", "Heap committed", formatBytes(heap.getCommitted()));
+        report.add("Memory", "Heap max", heap.getMax() < 0 ? "unbounded" : formatBytes(heap.getMax()));
+        report.add("Memory", "Non-heap used", formatBytes(memory.getNonHeapMemoryUsage().getUsed()));
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : collectors) {
+            long count = gc.getCollectionCount();
+            long millis = gc.getCollectionTime();
+            report.add("Memory", "GC " + gc.getName(), String.format("%d collections, %d ms total%s", count, millis,
+                count > 0 ? String.format(" (%.1f ms avg)", (double) millis / count) : ""));
+        }
+        report.add("Memory", "Live threads", String.valueOf(ManagementFactory.getThreadMXBean().getThreadCount()));
+    }
+
+    private void addUi(DiagnosticsReport report) {
+        EdtMonitor monitor = EdtMonitor.getInstance();
+        if (monitor == null) {
+            report.add("UI", "Stall monitor", "off");
+            return;
+        }
+        report.add("UI", "Events dispatched", String.valueOf(monitor.getEventCount()));
+        report.add("UI", "Stalls over " + monitor.getThresholdMillis() + " ms", String.valueOf(monitor.getStallCount()));
+        List<StallSite> stalls = monitor.getStalls();
+        for (StallSite site : stalls.subList(0, Math.min(5, stalls.size()))) {
+            report.add("UI", site.getCallSite(), String.format("%d stalls, %d ms total, %d ms max",
+                site.getCount(), site.getTotalMillis(), site.getMaxMillis()));
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static String formatMicros(long micros) {
+        return micros < 1000 ? micros + " us" : String.format("%.1f ms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,140 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * DiagnosticsPanel is a hidden card (Ctrl+Shift+D) with live performance counters
+ * for troubleshooting on a user's machine. While shown it refreshes every two
+ * seconds; the counters are collected on the diagnostics thread and only the
+ * finished report is put into the table on the EDT.
+ */
+public class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_MILLIS = 2000;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private QuizApp parentApp;
+    private DefaultTableModel tableModel;
+    private JLabel updatedLabel;
+    private Timer refreshTimer;
+    private DiagnosticsReport lastReport;
+    private boolean refreshing;
+
+    public DiagnosticsPanel(QuizApp parentApp) {
+        this.parentApp = parentApp;
+        initializeUI();
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+    }
+
+    private void initializeUI() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        setBackground(new Color(245, 245, 250));
+
+        // Header
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(new Color(63, 81, 181));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        JLabel titleLabel = new JLabel("Diagnostics");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        updatedLabel = new JLabel("", SwingConstants.RIGHT);
+        updatedLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        updatedLabel.setForeground(Color.WHITE);
+        headerPanel.add(updatedLabel, BorderLayout.CENTER);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Counters
+        String[] columns = {"Section", "Metric", "Value"};
+        tableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
+        table.getColumnModel().getColumn(0).setPreferredWidth(120);
+        table.getColumnModel().getColumn(1).setPreferredWidth(260);
+        table.getColumnModel().getColumn(2).setPreferredWidth(480);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
+        buttonPanel.setBackground(new Color(245, 245, 250));
+
+        JButton saveButton = UIHelper.createStyledButton("Save Report", UIHelper.PRIMARY_BLUE, Color.WHITE, new Dimension(160, 40));
+        saveButton.addActionListener(e -> saveReport());
+        buttonPanel.add(saveButton);
+
+        JButton stallsButton = UIHelper.createStyledButton("UI Stalls...", UIHelper.WARNING_ORANGE, Color.WHITE, new Dimension(160, 40));
+        stallsButton.addActionListener(e -> parentApp.showStallReport());
+        buttonPanel.add(stallsButton);
+
+        JButton backButton = UIHelper.createStyledButton("Back", new Color(120, 120, 120), Color.WHITE, new Dimension(120, 40));
+        backButton.addActionListener(e -> parentApp.closeDiagnostics());
+        buttonPanel.add(backButton);
+
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Start refreshing; called when the card is shown
+     */
+    public void start() {
+        refresh();
+        refreshTimer.start();
+    }
+
+    /**
+     * Stop refreshing; called when another card is shown
+     */
+    public void stop() {
+        refreshTimer.stop();
+    }
+
+    private void refresh() {
+        if (refreshing) {
+            return; // the previous collection is still running
+        }
+        refreshing = true;
+        Diagnostics.getInstance().collectAsync().whenCompleteAsync((report, error) -> {
+            refreshing = false;
+            if (report != null) {
+                showReport(report);
+            }
+        }, UIHelper.EDT);
+    }
+
+    private void showReport(DiagnosticsReport report) {
+        lastReport = report;
+        tableModel.setRowCount(0);
+        String previousSection = null;
+        for (String[] row : report.getRows()) {
+            // Name each section once so the table reads like grouped blocks
+            tableModel.addRow(new Object[]{row[0].equals(previousSection) ? "" : row[0], row[1], row[2]});
+            previousSection = row[0];
+        }
+        updatedLabel.setText("Updated " + report.getTakenAt().toLocalTime().withNano(0));
+    }
+
+    private void saveReport() {
+        if (lastReport == null) {
+            return;
+        }
+        Path file = Path.of("diagnostics-" + lastReport.getTakenAt().format(FILE_STAMP) + ".txt");
+        try {
+            lastReport.writeTo(file);
+            JOptionPane.showMessageDialog(this, "Report saved to\n" + file.toAbsolutePath(),
+                "Diagnostics", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not save report: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DiagnosticsReport is one snapshot of the application's performance counters,
+ * as rows of section, metric and value.
+ */
+public class DiagnosticsReport {
+    private final LocalDateTime takenAt;
+    private final List<String[]> rows = new ArrayList<>();
+
+    public DiagnosticsReport(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+
+    void add(String section, String metric, String value) {
+        rows.add(new String[]{section, metric, value});
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * @return rows of {section, metric, value}, in display order
+     */
+    public List<String[]> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Format the report as plain text, one section after another
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder("Quiz Application diagnostics, " + takenAt + "\n");
+        String section = null;
+        for (String[] row : rows) {
+            if (!row[0].equals(section)) {
+                section = row[0];
+                text.append('\n').append(section).append('\n');
+            }
+            text.append(String.format("  %-28s %s%n", row[1], row[2]));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the report as plain text, e.g. to attach to a support ticket
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.writeString(file, toText());
+    }
+}
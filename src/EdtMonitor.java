@@ -0,0 +1,253 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EdtMonitor times every event dispatched on the Swing event dispatch thread.
+ *
+ * It is pushed onto the system event queue, so it sees every event without any
+ * change to the panels. A watchdog thread captures the EDT stack while an event is
+ * running over the threshold; when the event ends, the stall is charged to the
+ * first frame from the application's own classes on that stack (for example
+ * DatabaseManager.loadQuiz), so stalls add up per call site instead of per event.
+ *
+ * Events that run a nested event loop (modal dialogs) are not counted, since the
+ * time was spent waiting for the user, not blocking the UI.
+ *
+ * Enabled by default with a 100 ms threshold; -Dquiz.edt.stallMillis=N changes the
+ * threshold and -Dquiz.edt.monitor=false leaves the event queue untouched.
+ */
+public class EdtMonitor extends EventQueue {
+    public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+    private static EdtMonitor instance;
+
+    private final long thresholdMillis;
+    private final long thresholdNanos;
+    private final ScheduledExecutorService watchdog;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    // Written on the EDT, read by the watchdog
+    private volatile Thread dispatchThread;
+    private volatile long eventStart; // 0 while no event is being timed
+    private volatile long eventSeq;
+
+    // Written by the watchdog, read on the EDT
+    private volatile StackTraceElement[] sampledStack;
+    private volatile long sampledSeq = -1;
+
+    // EDT only
+    private long seqCounter;
+    private int depth;
+    private boolean pumped;
+
+    /**
+     * Aggregate for one call site; updated on the EDT, read from any thread
+     */
+    private static class Site {
+        long count;
+        long totalMillis;
+        long maxMillis;
+        StackTraceElement[] worstStack = new StackTraceElement[0];
+    }
+
+    private EdtMonitor(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edt-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(5, thresholdMillis / 4);
+        watchdog.scheduleAtFixedRate(this::sample, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Install the monitor on the system event queue unless disabled with -Dquiz.edt.monitor=false.
+     * Calling it again returns the monitor already installed.
+     * @return the installed monitor, or null if disabled
+     */
+    public static synchronized EdtMonitor install() {
+        if (instance == null && !"false".equals(System.getProperty("quiz.edt.monitor"))) {
+            long threshold = Long.getLong("quiz.edt.stallMillis", DEFAULT_THRESHOLD_MILLIS);
+            instance = new EdtMonitor(Math.max(1, threshold));
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the installed monitor, or null if none is installed
+     */
+    public static synchronized EdtMonitor getInstance() {
+        return instance;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        if (dispatchThread == null) {
+            dispatchThread = Thread.currentThread();
+        }
+        boolean enclosing = depth > 0;
+        boolean enclosingPumped = pumped;
+        pumped = false;
+        depth++;
+        long seq = ++seqCounter;
+        long start = System.nanoTime();
+        eventStart = 0;
+        eventSeq = seq;
+        eventStart = start;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            eventStart = 0;
+            depth--;
+            boolean ranNestedLoop = pumped;
+            // The enclosing event, if any, is now known to be running a nested loop
+            pumped = enclosingPumped || enclosing;
+            events.increment();
+            if (!ranNestedLoop && elapsed >= thresholdNanos) {
+                StackTraceElement[] stack = sampledSeq == seq ? sampledStack : null;
+                record(event, TimeUnit.NANOSECONDS.toMillis(elapsed), stack);
+            }
+        }
+    }
+
+    /**
+     * Watchdog tick: take the EDT stack once per event that has run past the threshold
+     */
+    private void sample() {
+        Thread thread = dispatchThread;
+        long start = eventStart;
+        long seq = eventSeq;
+        if (thread == null || start == 0 || start != eventStart || seq == sampledSeq) {
+            return;
+        }
+        if (System.nanoTime() - start >= thresholdNanos) {
+            StackTraceElement[] stack = thread.getStackTrace();
+            if (eventSeq == seq) {
+                sampledStack = stack;
+                sampledSeq = seq;
+            }
+        }
+    }
+
+    private void record(AWTEvent event, long millis, StackTraceElement[] stack) {
+        stalls.increment();
+        String callSite = stack != null ? callSiteOf(stack) : null;
+        if (callSite == null) {
+            callSite = "(no stack) " + event.getClass().getSimpleName()
+                + " from " + event.getSource().getClass().getSimpleName();
+        }
+        Site site = sites.computeIfAbsent(callSite, key -> new Site());
+        synchronized (site) {
+            site.count++;
+            site.totalMillis += millis;
+            if (millis >= site.maxMillis) {
+                site.maxMillis = millis;
+                if (stack != null) {
+                    site.worstStack = stack;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the innermost frame from the application's own (default package) classes, or null
+     */
+    private static String callSiteOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.indexOf('.') < 0 && !className.startsWith("EdtMonitor")) {
+                return className + "." + frame.getMethodName()
+                    + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+            }
+        }
+        return null;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * @return number of events dispatched since installation or the last reset
+     */
+    public long getEventCount() {
+        return events.sum();
+    }
+
+    /**
+     * @return number of events that ran over the threshold
+     */
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    /**
+     * Get stall totals per call site, worst total time first
+     */
+    public List<StallSite> getStalls() {
+        List<StallSite> result = new ArrayList<>(sites.size());
+        for (Map.Entry<String, Site> entry : sites.entrySet()) {
+            Site site = entry.getValue();
+            synchronized (site) {
+                result.add(new StallSite(entry.getKey(), site.count, site.totalMillis, site.maxMillis, site.worstStack));
+            }
+        }
+        result.sort(Comparator.comparingLong(StallSite::getTotalMillis).reversed());
+        return result;
+    }
+
+    /**
+     * Forget all recorded stalls and counts
+     */
+    public void reset() {
+        sites.clear();
+        events.reset();
+        stalls.reset();
+    }
+
+    /**
+     * Write the stall table and the worst stack of every call site to a text file
+     */
+    public void export(Path file) throws IOException {
+        List<StallSite> stallSites = getStalls();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("EDT stall report, " + LocalDateTime.now());
+            out.println("Threshold: " + thresholdMillis + " ms");
+            out.println("Events dispatched: " + getEventCount() + ", stalls: " + getStallCount());
+            out.println();
+            out.printf("%8s %10s %8s %8s  %s%n", "stalls", "total ms", "avg ms", "max ms", "call site");
+            for (StallSite site : stallSites) {
+                out.printf("%8d %10d %8.0f %8d  %s%n", site.getCount(), site.getTotalMillis(),
+                    site.getAverageMillis(), site.getMaxMillis(), site.getCallSite());
+            }
+            for (StallSite site : stallSites) {
+                out.println();
+                out.println(site.getCallSite() + " - worst " + site.getMaxMillis() + " ms:");
+                for (StackTraceElement frame : site.getWorstStack()) {
+                    out.println("    at " + frame);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * GlobalRanking ranks users across all quizzes by the sum of their best percentage on each quiz.
+ *
+ * The best percentage per user and quiz is kept in the user_quiz_best table, updated in the
+ * same transaction as the attempt that improves it. This class holds each user's total in an
+ * order-statistic treap, so the top N and any user's rank take O(log n) rather than a re-aggregation
+ * of quiz_attempts. A database loads its share of the totals under its own lock, and later
+ * improvements arrive as {@link ChangeBus.AttemptSaved} events published under that same lock,
+ * so a loaded database never misses or double-counts an attempt. Deleting a quiz drops the
+ * totals, which are reloaded on next use.
+ *
+ * Totals are whole hundredths of a percent, so adding and subtracting deltas never drifts.
+ */
+public class GlobalRanking {
+    private static GlobalRanking instance;
+
+    private final Map<Integer, Long> totals = new HashMap<>();
+    private final Set<DatabaseManager> loaded = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean complete;
+    private Node root;
+
+    /**
+     * One user's place in the ranking
+     */
+    public static final class Standing {
+        private final int rank;
+        private final int userId;
+        private final String username;
+        private final long points;
+
+        Standing(int rank, int userId, String username, long points) {
+            this.rank = rank;
+            this.userId = userId;
+            this.username = username;
+            this.points = points;
+        }
+
+        /**
+         * @return 1-based rank; users with equal totals share a rank
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return the username, or null if not looked up
+         */
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * @return sum of the user's best percentages across quizzes
+         */
+        public double getTotalPercentage() {
+            return points / 100.0;
+        }
+
+        Standing withUsername(String name) {
+            return new Standing(rank, userId, name, points);
+        }
+    }
+
+    private static final class Node {
+        final int userId;
+        final long points;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(int userId, long points) {
+            this.userId = userId;
+            this.points = points;
+        }
+    }
+
+    private GlobalRanking() {
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(ChangeBus.AttemptSaved.class, event -> record(event.getSource(), event.getUserIds(), event.getBestGains()));
+        bus.subscribe(ChangeBus.QuizDeleted.class, event -> invalidate());
+    }
+
+    /**
+     * Get singleton instance of GlobalRanking
+     */
+    public static synchronized GlobalRanking getInstance() {
+        if (instance == null) {
+            instance = new GlobalRanking();
+        }
+        return instance;
+    }
+
+    /**
+     * Convert a percentage to the whole hundredths the ranking adds up
+     */
+    static long points(double percentage) {
+        return Math.round(percentage * 100);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Get the top {@code n} users, best first, without usernames
+     */
+    public List<Standing> getTop(int n) {
+        ensureLoaded();
+        synchronized (this) {
+            List<Standing> top = new ArrayList<>(Math.min(n, totals.size()));
+            // In-order walk that stops after n nodes: O(log n + n)
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            int rank = 0;
+            long previous = Long.MIN_VALUE;
+            while ((node != null || !path.isEmpty()) && top.size() < n) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+                node = path.pop();
+                if (node.points != previous) {
+                    rank = top.size() + 1;
+                    previous = node.points;
+                }
+                top.add(new Standing(rank, node.userId, null, node.points));
+                node = node.right;
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Get a user's place in the ranking
+     * @return the standing, or null if the user has no points yet
+     */
+    public Standing getStanding(int userId) {
+        ensureLoaded();
+        synchronized (this) {
+            Long points = totals.get(userId);
+            if (points == null) {
+                return null;
+            }
+            return new Standing(countAbove(points) + 1, userId, null, points);
+        }
+    }
+
+    /**
+     * @return number of users in the ranking
+     */
+    public int size() {
+        ensureLoaded();
+        synchronized (this) {
+            return totals.size();
+        }
+    }
+
+    // ==================== UPDATES ====================
+
+    /**
+     * Add improvements to users' bests committed by a database, under that database's lock;
+     * ignored until its totals are loaded, since loading reads the committed bests anyway.
+     * @param gains increase in hundredths of a percent per user, parallel to {@code userIds}; 0 = no change
+     */
+    private synchronized void record(DatabaseManager source, int[] userIds, long[] gains) {
+        if (!loaded.contains(source)) {
+            return;
+        }
+        for (int i = 0; i < userIds.length; i++) {
+            if (gains[i] != 0) {
+                add(userIds[i], gains[i]);
+            }
+        }
+    }
+
+    /**
+     * Add a database's per-user totals. Called by the database under its lock.
+     */
+    synchronized void load(DatabaseManager source, Map<Integer, Long> sourceTotals) {
+        if (!loaded.add(source)) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> entry : sourceTotals.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    synchronized boolean isLoaded(DatabaseManager source) {
+        return loaded.contains(source);
+    }
+
+    /**
+     * Drop every total so the ranking is reloaded from user_quiz_best on next use,
+     * e.g. after a re-grade lowered bests or a quiz was deleted
+     */
+    public synchronized void invalidate() {
+        totals.clear();
+        loaded.clear();
+        root = null;
+        complete = false;
+    }
+
+    private void ensureLoaded() {
+        if (complete) {
+            return;
+        }
+        // Not under this lock: each database takes its own lock first, then this one
+        List<DatabaseManager> databases = DatabaseManager.getInstance().getDatabases();
+        for (DatabaseManager db : databases) {
+            db.loadGlobalRanking(this);
+        }
+        synchronized (this) {
+            complete = loaded.size() == databases.size();
+        }
+    }
+
+    private void add(int userId, long delta) {
+        if (delta == 0) {
+            return; // users without points are not ranked
+        }
+        Long old = totals.get(userId);
+        long points = delta;
+        if (old != null) {
+            root = remove(root, old, userId);
+            points += old;
+        }
+        totals.put(userId, points);
+        root = insert(root, new Node(userId, points));
+    }
+
+    // ==================== TREAP ====================
+    // Ordered by points descending, then user id; each node knows its subtree size.
+
+    private static boolean before(long points, int userId, Node node) {
+        return points > node.points || points == node.points && userId < node.userId;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (before(added.points, added.userId, node)) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node remove(Node node, long points, int userId) {
+        if (node == null) {
+            return null;
+        }
+        if (node.points == points && node.userId == userId) {
+            return merge(node.left, node.right);
+        }
+        if (before(points, userId, node)) {
+            node.left = remove(node.left, points, userId);
+        } else {
+            node.right = remove(node.right, points, userId);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * @return number of users with strictly more points
+     */
+    private int countAbove(long points) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.points > points) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * GradedAttempt is the immutable result of grading one answer sheet against a quiz.
+ * Holds the answers, the per-question correctness bitmap and the resulting score,
+ * so nothing downstream has to re-check answers against the questions.
+ */
+public final class GradedAttempt {
+    private final int[] answers;
+    private final long[] correctMask;
+    private final int correctCount;
+    private final int score;
+    private final int totalMarks;
+    private final double percentage;
+
+    GradedAttempt(int[] answers, long[] correctMask, int correctCount, int score, int totalMarks) {
+        this.answers = answers.clone();
+        this.correctMask = correctMask;
+        this.correctCount = correctCount;
+        this.score = score;
+        this.totalMarks = totalMarks;
+        this.percentage = totalMarks > 0 ? (double) score / totalMarks * 100 : 0;
+    }
+
+    public int getQuestionCount() {
+        return answers.length;
+    }
+
+    /**
+     * @return the selected choice for a question, or -1 if unanswered
+     */
+    public int getAnswer(int index) {
+        return answers[index];
+    }
+
+    /**
+     * @return a copy of all selected choices
+     */
+    public int[] getAnswers() {
+        return answers.clone();
+    }
+
+    public boolean isCorrect(int index) {
+        return AnswerKey.isSet(correctMask, index);
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ItemAnalysis computes per-question difficulty and discrimination for quizzes.
+ *
+ * Each quiz keeps running sums per question and the highest attempt id folded in.
+ * A refresh streams only newer attempts' answers from the database, row by row,
+ * and adds them to the sums, so results stay current without reloading history.
+ */
+public class ItemAnalysis {
+    private static ItemAnalysis instance;
+
+    private final Map<Integer, QuizSums> quizzes = new ConcurrentHashMap<>();
+
+    /**
+     * Receives one answer row at a time from the database
+     */
+    public interface ResponseConsumer {
+        void accept(int attemptId, int questionId, boolean correct, double percentage);
+    }
+
+    private ItemAnalysis() {
+        ChangeBus.getInstance().subscribe(ChangeBus.QuizDeleted.class, event -> invalidate(event.getQuizId()));
+    }
+
+    /**
+     * Get singleton instance of ItemAnalysis
+     */
+    public static synchronized ItemAnalysis getInstance() {
+        if (instance == null) {
+            instance = new ItemAnalysis();
+        }
+        return instance;
+    }
+
+    /**
+     * Brings a quiz's sums up to date and returns one statistic per question, in quiz order
+     * @param pickCounts option pick counts per question id, as returned by {@link ChoiceCounters#getPickCounts}
+     */
+    public List<ItemStatistic> analyze(Quiz quiz, Map<Integer, long[]> pickCounts) {
+        QuizSums sums = quizzes.computeIfAbsent(quiz.getId(), id -> new QuizSums());
+        synchronized (sums) {
+            int lastSeen = DatabaseManager.getInstance().streamItemResponses(quiz.getId(), sums.lastAttemptId, sums::add);
+            if (lastSeen < 0) {
+                // Part of an attempt may have been folded in; start over on the next refresh
+                sums.items.clear();
+                sums.lastAttemptId = 0;
+            } else {
+                sums.lastAttemptId = lastSeen;
+            }
+
+            List<Question> questions = quiz.getQuestions();
+            List<ItemStatistic> statistics = new ArrayList<>(questions.size());
+            for (int i = 0; i < questions.size(); i++) {
+                Question q = questions.get(i);
+                ItemSums item = sums.items.get(q.getId());
+                long[] picks = pickCounts.getOrDefault(q.getId(), new long[ChoiceCounters.SLOTS]);
+                statistics.add(item == null
+                    ? new ItemStatistic(i + 1, q.getId(), q.getQuestionText(), q.getCorrectAnswerIndex(), 0, Double.NaN, Double.NaN, picks)
+                    : new ItemStatistic(i + 1, q.getId(), q.getQuestionText(), q.getCorrectAnswerIndex(), item.n,
+                        item.difficulty(), item.pointBiserial(), picks));
+            }
+            return statistics;
+        }
+    }
+
+    /**
+     * Forget a quiz's sums, e.g. after its stored results were re-graded
+     */
+    public void invalidate(int quizId) {
+        quizzes.remove(quizId);
+    }
+
+    private static class QuizSums {
+        int lastAttemptId;
+        final Map<Integer, ItemSums> items = new HashMap<>();
+
+        void add(int attemptId, int questionId, boolean correct, double percentage) {
+            items.computeIfAbsent(questionId, id -> new ItemSums()).add(correct, percentage);
+        }
+    }
+
+    /**
+     * Running sums for one question; X is the attempt percentage
+     */
+    private static class ItemSums {
+        long n;
+        long correct;
+        double sumX;
+        double sumXSquared;
+        double sumXCorrect;
+
+        void add(boolean isCorrect, double x) {
+            n++;
+            sumX += x;
+            sumXSquared += x * x;
+            if (isCorrect) {
+                correct++;
+                sumXCorrect += x;
+            }
+        }
+
+        double difficulty() {
+            return n == 0 ? Double.NaN : (double) correct / n;
+        }
+
+        double pointBiserial() {
+            if (correct == 0 || correct == n) {
+                return Double.NaN;
+            }
+            double mean = sumX / n;
+            double variance = sumXSquared / n - mean * mean;
+            if (variance <= 1e-12) {
+                return Double.NaN;
+            }
+            double meanCorrect = sumXCorrect / correct;
+            double meanWrong = (sumX - sumXCorrect) / (n - correct);
+            double p = (double) correct / n;
+            return (meanCorrect - meanWrong) / Math.sqrt(variance) * Math.sqrt(p * (1 - p));
+        }
+    }
+}
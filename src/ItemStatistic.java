@@ -0,0 +1,87 @@
+/**
+ * ItemStatistic holds the classical item analysis of one question.
+ * Difficulty is the p-value (fraction of takers who answered correctly);
+ * discrimination is the point-biserial correlation between answering the
+ * question correctly and the attempt's overall percentage. Pick counts per
+ * option show which distractors attract takers.
+ */
+public class ItemStatistic {
+    private int questionNumber;
+    private int questionId;
+    private String questionText;
+    private int correctAnswerIndex;
+    private long responses;
+    private double difficulty;
+    private double discrimination;
+    private long[] choicePicks;
+
+    public ItemStatistic(int questionNumber, int questionId, String questionText, int correctAnswerIndex,
+                         long responses, double difficulty, double discrimination, long[] choicePicks) {
+        this.questionNumber = questionNumber;
+        this.questionId = questionId;
+        this.questionText = questionText;
+        this.correctAnswerIndex = correctAnswerIndex;
+        this.responses = responses;
+        this.difficulty = difficulty;
+        this.discrimination = discrimination;
+        this.choicePicks = choicePicks;
+    }
+
+    public int getQuestionNumber() {
+        return questionNumber;
+    }
+
+    public int getQuestionId() {
+        return questionId;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public int getCorrectAnswerIndex() {
+        return correctAnswerIndex;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    /**
+     * @return fraction of responses that were correct (0-1), NaN with no responses
+     */
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return point-biserial correlation (-1 to 1), NaN when everyone or no one got it right
+     */
+    public double getDiscrimination() {
+        return discrimination;
+    }
+
+    /**
+     * @param choice option index (0-3), or -1 for blank answers
+     * @return share of picks that went to the option (0-1), NaN if nobody answered yet
+     */
+    public double getPickRate(int choice) {
+        long total = 0;
+        for (long picks : choicePicks) {
+            total += picks;
+        }
+        return total == 0 ? Double.NaN : (double) choicePicks[choice + 1] / total;
+    }
+
+    /**
+     * Short hint for quiz authors about questions worth reviewing
+     */
+    public String getFlag() {
+        if (responses == 0) return "No data";
+        if (!Double.isNaN(discrimination) && discrimination < 0) return "Check answer key";
+        if (difficulty >= 0.9) return "Too easy";
+        if (difficulty <= 0.2) return "Too hard";
+        if (!Double.isNaN(discrimination) && discrimination < 0.2) return "Low discrimination";
+        return "OK";
+    }
+}
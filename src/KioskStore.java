@@ -0,0 +1,330 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * KioskStore runs exams on a machine that cannot reach the main database.
+ *
+ * Started with -Dquiz.kiosk=&lt;dir&gt;, the application takes its quizzes from the quiz
+ * packs in that directory (see {@link KioskSync} to prepare them) and appends every
+ * submitted attempt to &lt;dir&gt;/attempts.log instead of the database. Each attempt gets
+ * a random client id, so {@link KioskSync} can merge the log into the main database
+ * later, any number of times, without duplicating attempts.
+ *
+ * The log is append-only. Each record is its length, the record and a CRC32, and is
+ * forced to disk before the submission returns, so a crash loses at most the attempt
+ * being written; a tail shorter than any whole record is a torn write and is cut off.
+ * Any other bad record may mean the file was damaged, not torn: the log is then
+ * moved aside untouched for recovery and a new log starts with the records before it.
+ */
+public class KioskStore {
+    public static final String LOG_FILE = "attempts.log";
+    private static final int RECORD_OVERHEAD = 8; // length before the record, CRC32 after it
+
+    private static KioskStore instance;
+    private static boolean checked;
+
+    private final Path directory;
+    private final Map<Integer, Quiz> quizzes = new TreeMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final FileChannel log;
+
+    /**
+     * One attempt as recorded on the kiosk
+     */
+    public static final class Entry {
+        private final String clientId;
+        private final int quizId;
+        private final int localUserId;
+        private final String username;
+        private final long completedAt;
+        private final int[] answers;
+
+        Entry(String clientId, int quizId, int localUserId, String username, long completedAt, int[] answers) {
+            this.clientId = clientId;
+            this.quizId = quizId;
+            this.localUserId = localUserId;
+            this.username = username;
+            this.completedAt = completedAt;
+            this.answers = answers;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public int getQuizId() {
+            return quizId;
+        }
+
+        public int getLocalUserId() {
+            return localUserId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getCompletedAt() {
+            return completedAt;
+        }
+
+        public int[] getAnswers() {
+            return answers.clone();
+        }
+
+        boolean sameAttempt(Entry other) {
+            return quizId == other.quizId && username.equals(other.username) && completedAt == other.completedAt
+                && Arrays.equals(answers, other.answers);
+        }
+    }
+
+    private KioskStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> packs = Files.newDirectoryStream(directory, "*.qpk")) {
+            for (Path pack : packs) {
+                Quiz quiz = QuizPack.open(pack).toQuiz();
+                quizzes.put(quiz.getId(), quiz);
+            }
+        }
+        Path logFile = directory.resolve(LOG_FILE);
+        Scan scan = Files.exists(logFile) ? readInto(logFile, entries, null) : new Scan(0, false);
+        if (scan.damaged) {
+            keepDamagedLog(logFile, scan.intactBytes);
+        }
+        log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (log.size() > scan.intactBytes) {
+            // Cut off a record torn by a crash, or new records would be appended after it and never read
+            Log.warn("KioskStore", -1, -1, "Torn record at end of kiosk log removed");
+            log.truncate(scan.intactBytes);
+        }
+    }
+
+    /**
+     * Move a log with a bad record before its end aside, keeping every byte, and start a new
+     * log holding the intact records before the bad one
+     */
+    private static void keepDamagedLog(Path logFile, long intactBytes) throws IOException {
+        Path damaged = logFile.resolveSibling(LOG_FILE + ".damaged-" + System.currentTimeMillis());
+        Files.move(logFile, damaged);
+        try (FileChannel from = FileChannel.open(damaged, StandardOpenOption.READ);
+             FileChannel to = FileChannel.open(logFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < intactBytes) {
+                copied += from.transferTo(copied, intactBytes - copied, to);
+            }
+            to.force(true);
+        }
+        Log.error("KioskStore", -1, -1, "Kiosk log damaged; original kept for recovery",
+            new IOException("bad record at byte " + intactBytes + ", original kept as " + damaged.getFileName()));
+    }
+
+    /**
+     * Get the kiosk store, or null when the application is not in kiosk mode
+     * @throws IllegalStateException if the kiosk directory cannot be opened
+     */
+    public static synchronized KioskStore getInstance() {
+        if (!checked) {
+            checked = true;
+            String dir = System.getProperty("quiz.kiosk");
+            if (dir != null) {
+                try {
+                    instance = new KioskStore(Path.of(dir));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Kiosk directory " + dir + " unusable: " + e.getMessage(), e);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // ==================== QUIZZES ====================
+
+    /**
+     * Get the preloaded quizzes as catalog rows, ordered by id
+     */
+    public synchronized List<QuizSummary> getCatalog() {
+        List<QuizSummary> summaries = new ArrayList<>(quizzes.size());
+        for (Quiz quiz : quizzes.values()) {
+            summaries.add(new QuizSummary(quiz, quiz.getQuestionCount(), null));
+        }
+        return summaries;
+    }
+
+    /**
+     * @return the preloaded quiz, or null if it was not prepared for this kiosk
+     */
+    public synchronized Quiz getQuiz(int quizId) {
+        return quizzes.get(quizId);
+    }
+
+    // ==================== ATTEMPTS ====================
+
+    /**
+     * Append an attempt to the log and force it to disk
+     * @throws IOException if the attempt could not be stored; the caller must not report it as saved
+     */
+    public synchronized QuizAttempt record(User user, Quiz quiz, int[] answers, GradedAttempt graded) throws IOException {
+        Entry entry = new Entry(UUID.randomUUID().toString(), quiz.getId(), user.getId(), user.getUsername(),
+            System.currentTimeMillis(), answers.clone());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + answers.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(entry.clientId);
+        out.writeInt(entry.quizId);
+        out.writeInt(entry.localUserId);
+        out.writeUTF(entry.username);
+        out.writeLong(entry.completedAt);
+        out.writeInt(answers.length);
+        for (int answer : answers) {
+            out.writeByte(answer);
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        ByteBuffer frame = ByteBuffer.allocate(record.length + RECORD_OVERHEAD);
+        frame.putInt(record.length).put(record).putInt((int) crc.getValue()).flip();
+        while (frame.hasRemaining()) {
+            log.write(frame);
+        }
+        log.force(false);
+        entries.add(entry);
+
+        return new QuizAttempt(-1, user.getId(), quiz.getId(), quiz.getTitle(), graded.getScore(),
+            graded.getTotalMarks(), graded.getPercentage(), new Timestamp(entry.completedAt));
+    }
+
+    /**
+     * Get a user's attempts on this kiosk, newest first.
+     * Scores are graded again with the preloaded quiz; attempts on quizzes no longer here are left out.
+     */
+    public synchronized List<QuizAttempt> getAttempts(int localUserId) {
+        List<QuizAttempt> attempts = new ArrayList<>();
+        for (Entry entry : entries) {
+            Quiz quiz = quizzes.get(entry.quizId);
+            if (entry.localUserId == localUserId && quiz != null && entry.answers.length == quiz.getQuestionCount()) {
+                GradedAttempt graded = quiz.grade(entry.answers);
+                attempts.add(new QuizAttempt(-1, localUserId, quiz.getId(), quiz.getTitle(), graded.getScore(),
+                    graded.getTotalMarks(), graded.getPercentage(), new Timestamp(entry.completedAt)));
+            }
+        }
+        Collections.reverse(attempts);
+        return attempts;
+    }
+
+    /**
+     * Read every intact record of an attempt log
+     * @param problems receives a message if the log ends in a torn or corrupt record; may be null
+     */
+    public static List<Entry> read(Path logFile, List<String> problems) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        readInto(logFile, entries, problems);
+        return entries;
+    }
+
+    /**
+     * Where reading a log stopped
+     */
+    private static final class Scan {
+        final long intactBytes;
+        final boolean damaged;
+
+        Scan(long intactBytes, boolean damaged) {
+            this.intactBytes = intactBytes;
+            this.damaged = damaged;
+        }
+    }
+
+    /**
+     * @return length of the log up to the end of its last intact record, and whether a bad
+     *         record was found before the end of the file rather than torn off at the end
+     */
+    private static Scan readInto(Path logFile, List<Entry> entries, List<String> problems) throws IOException {
+        long fileSize = Files.size(logFile);
+        long intactBytes = 0;
+        int records = 0;
+        try (InputStream file = Files.newInputStream(logFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break; // clean end of log
+                }
+                try {
+                    if (length <= 0 || length > 1 << 20) {
+                        throw new IOException("bad record length " + length);
+                    }
+                    byte[] record = new byte[length];
+                    in.readFully(record);
+                    int expected = in.readInt();
+                    CRC32 crc = new CRC32();
+                    crc.update(record);
+                    if ((int) crc.getValue() != expected) {
+                        throw new IOException("checksum mismatch");
+                    }
+                    entries.add(decode(record));
+                    records++;
+                    intactBytes += length + RECORD_OVERHEAD;
+                } catch (IOException e) {
+                    // Only a tail too short for any whole record is surely torn; a bad length can point past
+                    // the end from anywhere in the file, so anything longer is kept as damaged instead
+                    boolean torn = fileSize - intactBytes < RECORD_OVERHEAD;
+                    if (problems != null) {
+                        problems.add(logFile + ": record " + (records + 1) + " unreadable ("
+                            + (e instanceof EOFException ? "truncated" : e.getMessage()) + ")"
+                            + (torn ? "" : "; rest of log skipped"));
+                    }
+                    return new Scan(intactBytes, !torn);
+                }
+            }
+        }
+        // Anything left is a length cut short at the end of the file
+        return new Scan(intactBytes, false);
+    }
+
+    private static Entry decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String clientId = in.readUTF();
+        int quizId = in.readInt();
+        int localUserId = in.readInt();
+        String username = in.readUTF();
+        long completedAt = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > record.length) {
+            throw new IOException("bad answer count " + count);
+        }
+        int[] answers = new int[count];
+        for (int i = 0; i < answers.length; i++) {
+            answers[i] = in.readByte();
+        }
+        return new Entry(clientId, quizId, localUserId, username, completedAt, answers);
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * KioskSync moves exams between the main database and offline kiosks (see {@link KioskStore}).
+ *
+ *   prepare &lt;kioskDir&gt; &lt;quizId&gt;...   writes a quiz pack per quiz for the kiosk to preload
+ *   merge &lt;kioskDir|attempts.log&gt;...     merges kiosk attempt logs into the main database
+ *
+ * Merging re-grades every attempt against the quiz in the main database, maps kiosk
+ * usernames to main-database users and saves attempts in large batches, one
+ * transaction each, keyed by the attempt's client id. Attempts merged before are
+ * skipped, so logs can be merged again (or from several copies) safely. Attempts that
+ * cannot be merged are reported as conflicts and left out.
+ */
+public class KioskSync {
+    private static final int BATCH_SIZE = 5000;
+
+    /**
+     * Write a pack for each quiz into the kiosk directory
+     * @return number of packs written
+     */
+    public static int prepare(Path kioskDir, int[] quizIds) throws IOException {
+        Files.createDirectories(kioskDir);
+        DatabaseManager db = DatabaseManager.getInstance();
+        int written = 0;
+        for (int quizId : quizIds) {
+            if (db.exportQuizPack(quizId, kioskDir.resolve("quiz-" + quizId + ".qpk"), false)) {
+                written++;
+            } else {
+                System.err.println("Quiz " + quizId + " could not be exported.");
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Merge every attempt in the given logs
+     */
+    public static Report merge(List<Path> logs) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+
+        // Drop exact repeats (the same log copied twice); a reused client id with other answers is a conflict
+        Map<String, KioskStore.Entry> unique = new LinkedHashMap<>();
+        for (Path log : logs) {
+            for (KioskStore.Entry entry : KioskStore.read(log, report.conflicts)) {
+                report.read++;
+                KioskStore.Entry previous = unique.putIfAbsent(entry.getClientId(), entry);
+                if (previous == null) {
+                    continue;
+                }
+                if (previous.sameAttempt(entry)) {
+                    report.alreadyMerged++;
+                } else {
+                    report.conflicts.add("Attempt " + entry.getClientId() + " recorded twice with different contents; second copy skipped");
+                }
+            }
+        }
+
+        Map<Integer, List<KioskStore.Entry>> byQuiz = new TreeMap<>();
+        for (KioskStore.Entry entry : unique.values()) {
+            byQuiz.computeIfAbsent(entry.getQuizId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        Map<String, Integer> userIds = db.getUserIdsByUsername();
+        for (Map.Entry<Integer, List<KioskStore.Entry>> group : byQuiz.entrySet()) {
+            Quiz quiz = QuizService.getInstance().loadQuiz(group.getKey()).join();
+            if (quiz == null) {
+                report.conflicts.add("Quiz " + group.getKey() + " is not in this database; "
+                    + group.getValue().size() + " attempt(s) not merged");
+                continue;
+            }
+            mergeQuiz(db, quiz, group.getValue(), userIds, report);
+        }
+
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private static void mergeQuiz(DatabaseManager db, Quiz quiz, List<KioskStore.Entry> entries,
+                                  Map<String, Integer> userIds, Report report) {
+        List<KioskStore.Entry> batch = new ArrayList<>(Math.min(BATCH_SIZE, entries.size()));
+        List<GradedAttempt> graded = new ArrayList<>(Math.min(BATCH_SIZE, entries.size()));
+        for (KioskStore.Entry entry : entries) {
+            Integer userId = userIds.get(entry.getUsername());
+            if (userId == null) {
+                report.conflicts.add("Attempt " + entry.getClientId() + ": unknown user '" + entry.getUsername() + "'");
+                continue;
+            }
+            try {
+                graded.add(quiz.grade(entry.getAnswers()));
+            } catch (IllegalArgumentException e) {
+                // The quiz was edited after the kiosk was prepared, or the answers are invalid
+                report.conflicts.add("Attempt " + entry.getClientId() + " on quiz " + quiz.getId() + ": " + e.getMessage());
+                continue;
+            }
+            batch.add(entry);
+            if (batch.size() == BATCH_SIZE) {
+                saveBatch(db, quiz, batch, graded, userIds, report);
+                batch.clear();
+                graded.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            saveBatch(db, quiz, batch, graded, userIds, report);
+        }
+    }
+
+    private static void saveBatch(DatabaseManager db, Quiz quiz, List<KioskStore.Entry> batch, List<GradedAttempt> graded,
+                                  Map<String, Integer> userIds, Report report) {
+        int size = batch.size();
+        String[] clientIds = new String[size];
+        int[] users = new int[size];
+        long[] completedAt = new long[size];
+        for (int i = 0; i < size; i++) {
+            KioskStore.Entry entry = batch.get(i);
+            clientIds[i] = entry.getClientId();
+            users[i] = userIds.get(entry.getUsername());
+            completedAt[i] = entry.getCompletedAt();
+        }
+        int[] attemptIds;
+        try {
+            attemptIds = db.mergeKioskAttempts(quiz, clientIds, users, completedAt, graded.toArray(new GradedAttempt[0]));
+        } catch (DatabaseManager.StaleQuizException e) {
+            report.conflicts.add("Quiz " + quiz.getId() + ": answer key changed during the merge; batch of " + size
+                + " attempt(s) not merged, run again");
+            return;
+        }
+        if (attemptIds == null) {
+            report.conflicts.add("Quiz " + quiz.getId() + ": database write failed; batch of " + size + " attempt(s) rolled back");
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (attemptIds[i] > 0) {
+                report.merged++;
+            } else {
+                report.alreadyMerged++;
+            }
+        }
+    }
+
+    /**
+     * Totals and conflicts for one merge
+     */
+    public static class Report {
+        private int read;
+        private int merged;
+        private int alreadyMerged;
+        private long elapsedNanos;
+        private final List<String> conflicts = new ArrayList<>();
+
+        public int getRead() {
+            return read;
+        }
+
+        public int getMerged() {
+            return merged;
+        }
+
+        public int getAlreadyMerged() {
+            return alreadyMerged;
+        }
+
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Command-line entry point
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length >= 3 && "prepare".equals(args[0])) {
+            int[] quizIds = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                quizIds[i - 2] = Integer.parseInt(args[i]);
+            }
+            int written = prepare(Paths.get(args[1]), quizIds);
+            System.out.println(written + " quiz pack(s) written to " + Paths.get(args[1]).toAbsolutePath());
+        } else if (args.length >= 2 && "merge".equals(args[0])) {
+            List<Path> logs = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                Path path = Paths.get(args[i]);
+                logs.add(Files.isDirectory(path) ? path.resolve(KioskStore.LOG_FILE) : path);
+            }
+            Report report = merge(logs);
+            double seconds = report.getElapsedNanos() / 1e9;
+            System.out.printf("Read %d attempts: %d merged, %d already merged, %d conflict(s) in %.2f s%n",
+                report.getRead(), report.getMerged(), report.getAlreadyMerged(), report.getConflicts().size(), seconds);
+            for (String conflict : report.getConflicts()) {
+                System.out.println("  " + conflict);
+            }
+        } else {
+            System.err.println("Usage: KioskSync prepare <kioskDir> <quizId>...");
+            System.err.println("       KioskSync merge <kioskDir|attempts.log>...");
+            System.exit(1);
+        }
+        QuizService.getInstance().shutdown();
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * LatencyHistogram counts durations in logarithmic buckets (four per power of two,
+ * so any percentile is within about 20%) and answers percentile queries.
+ * Recording is one array increment and is safe from any thread.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 160; // up to about 2^40 microseconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record one duration
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        maxMicros.accumulate(micros);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >> (exponent - 2)) & 3;
+        return Math.min(BUCKETS - 1, 4 * (exponent - 1) + sub);
+    }
+
+    /**
+     * @return smallest duration in microseconds that falls in the bucket
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        return (4L + bucket % 4) << (exponent - 2);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * @param percentile 0-100
+     * @return upper edge of the bucket holding that percentile, in microseconds (0 if empty)
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long upper = i + 1 < BUCKETS ? lowerBound(i + 1) : getMaxMicros();
+                return Math.min(upper, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+}
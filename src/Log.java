@@ -0,0 +1,379 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log is the application's structured, asynchronous log.
+ *
+ * Every entry has fixed key-value fields (operation, user_id, quiz_id, elapsed)
+ * plus a constant message and an optional exception. Callers never format anything:
+ * the level is checked first, then the fields are copied into a preallocated ring
+ * buffer slot and the call returns. A single writer thread turns slots into
+ * logfmt lines, writes them to logs/quizapp.log (rolled at 10 MB, five files kept
+ * including the live one)
+ * and echoes warnings and errors to stderr. If the buffer is full, entries are
+ * dropped and counted rather than blocking the caller.
+ *
+ * Settings: -Dquiz.log.level=DEBUG|INFO|WARN|ERROR (default INFO),
+ * -Dquiz.log.dir=&lt;dir&gt; (default logs), -Dquiz.log.console=false to stop the stderr echo.
+ */
+public final class Log {
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR
+    }
+
+    private static final int CAPACITY = 8192; // power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long MAX_FILE_BYTES = 10L * 1024 * 1024;
+    private static final int MAX_FILES = 5; // the live file and MAX_FILES - 1 rolled ones
+    private static final long POLL_NANOS = 1_000_000L;
+    private static final int IDLE_POLLS_BEFORE_SLEEP = 1000;
+    private static final long SLEEP_NANOS = 100_000_000L;
+
+    private static volatile Level threshold = parseLevel(System.getProperty("quiz.log.level"));
+    private static final boolean CONSOLE = !"false".equals(System.getProperty("quiz.log.console"));
+    private static final Path DIRECTORY = Path.of(System.getProperty("quiz.log.dir", "logs"));
+
+    // Preallocated ring of entries; a producer touches one entry, not one array per field
+    private static final Entry[] ring = new Entry[CAPACITY];
+
+    private static final AtomicLong next = new AtomicLong();
+    private static volatile long consumed;
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile boolean writerSleeping;
+    private static volatile boolean stopping;
+    private static final Thread writer;
+
+    /**
+     * One ring slot. Fields are written by the producer that claimed the slot and
+     * published by the volatile write of {@code sequence}, which comes last.
+     */
+    private static final class Entry {
+        volatile long sequence = -1;
+        long time;
+        Level level;
+        String operation;
+        int userId;
+        int quizId;
+        long elapsedNanos;
+        String message;
+        Throwable error;
+    }
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+        }
+        writer = new Thread(Log::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    // ==================== LOGGING ====================
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static void error(String operation, String message, Throwable error) {
+        log(Level.ERROR, operation, -1, -1, -1, message, error);
+    }
+
+    public static void error(String operation, int userId, int quizId, String message, Throwable error) {
+        log(Level.ERROR, operation, userId, quizId, -1, message, error);
+    }
+
+    public static void warn(String operation, int userId, int quizId, String message) {
+        log(Level.WARN, operation, userId, quizId, -1, message, null);
+    }
+
+    public static void info(String operation, int userId, int quizId, long elapsedNanos, String message) {
+        log(Level.INFO, operation, userId, quizId, elapsedNanos, message, null);
+    }
+
+    public static void debug(String operation, int userId, int quizId, long elapsedNanos, String message) {
+        log(Level.DEBUG, operation, userId, quizId, elapsedNanos, message, null);
+    }
+
+    /**
+     * Queue one entry. Ids of -1 and an elapsed time below zero are left out of the line.
+     * @param message constant text; put variable values in the fields instead
+     */
+    public static void log(Level level, String operation, int userId, int quizId, long elapsedNanos,
+                           String message, Throwable error) {
+        if (level.ordinal() < threshold.ordinal()) {
+            return;
+        }
+        if (stopping) {
+            // The writer is gone or going; late entries (e.g. from closing the database) go straight to stderr
+            StringBuilder line = new StringBuilder(128);
+            format(line, Instant.now().toString(), level, operation, userId, quizId, elapsedNanos, message, error);
+            System.err.println(line);
+            return;
+        }
+        long seq;
+        do {
+            seq = next.get();
+            if (seq - consumed >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+        } while (!next.compareAndSet(seq, seq + 1));
+
+        Entry entry = ring[(int) (seq & MASK)];
+        entry.time = System.currentTimeMillis();
+        entry.level = level;
+        entry.operation = operation;
+        entry.userId = userId;
+        entry.quizId = quizId;
+        entry.elapsedNanos = elapsedNanos;
+        entry.message = message;
+        entry.error = error;
+        entry.sequence = seq;
+        if (writerSleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return entries dropped because the buffer was full
+     */
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write out everything queued so far and stop the writer thread
+     */
+    public static void shutdown() {
+        if (stopping) {
+            return;
+        }
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== WRITER THREAD ====================
+
+    private static void drainLoop() {
+        RollingFile file = RollingFile.open(DIRECTORY.resolve("quizapp.log"));
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        int idlePolls = 0;
+        long seq = 0;
+        while (true) {
+            Entry entry = ring[(int) (seq & MASK)];
+            if (entry.sequence != seq) {
+                // Nothing to write: flush the batch, then wait. While entries keep coming the
+                // writer polls every millisecond, so producers never pay for a wake-up; after
+                // a second without entries it sleeps until the next producer unparks it.
+                consumed = seq;
+                if (file != null) {
+                    file.flush();
+                }
+                if (stopping && seq == next.get()) {
+                    break;
+                }
+                if (++idlePolls < IDLE_POLLS_BEFORE_SLEEP) {
+                    LockSupport.parkNanos(POLL_NANOS);
+                    continue;
+                }
+                writerSleeping = true;
+                if (entry.sequence != seq && !stopping) {
+                    LockSupport.parkNanos(SLEEP_NANOS);
+                }
+                writerSleeping = false;
+                continue;
+            }
+            idlePolls = 0;
+
+            line.setLength(0);
+            format(line, timeText(entry.time), entry.level, entry.operation, entry.userId, entry.quizId,
+                entry.elapsedNanos, entry.message, entry.error);
+            Level level = entry.level;
+            if (entry.error != null) {
+                entry.error = null; // do not keep exceptions (and what they reference) alive
+            }
+            seq++;
+            if ((seq & 63) == 0) {
+                consumed = seq; // released in batches to keep producers' cache line quiet
+            }
+
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                line.append(" dropped_total=").append(drops);
+                reportedDrops = drops;
+            }
+            line.append('\n');
+            if (file != null) {
+                file.write(line);
+            }
+            if (file == null || CONSOLE && level.ordinal() >= Level.WARN.ordinal()) {
+                System.err.print(line);
+            }
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    // Writer thread only
+    private static long lastTime = Long.MIN_VALUE;
+    private static String lastTimeText;
+
+    private static String timeText(long time) {
+        // Consecutive entries usually share the millisecond, so format each millisecond once
+        if (time != lastTime) {
+            lastTimeText = Instant.ofEpochMilli(time).toString();
+            lastTime = time;
+        }
+        return lastTimeText;
+    }
+
+    private static void format(StringBuilder line, String time, Level level, String operation, int userId, int quizId,
+                               long elapsedNanos, String message, Throwable error) {
+        line.append(time).append(" level=").append(level).append(" op=").append(operation);
+        if (userId != -1) {
+            line.append(" user_id=").append(userId);
+        }
+        if (quizId != -1) {
+            line.append(" quiz_id=").append(quizId);
+        }
+        if (elapsedNanos >= 0) {
+            line.append(" elapsed_ms=").append(elapsedNanos / 1_000_000).append('.');
+            long fraction = elapsedNanos / 1000 % 1000;
+            line.append(fraction < 100 ? fraction < 10 ? "00" : "0" : "").append(fraction);
+        }
+        line.append(" msg=");
+        appendQuoted(line, message);
+        if (error != null) {
+            line.append(" error=").append(error.getClass().getSimpleName()).append(" error_msg=");
+            appendQuoted(line, String.valueOf(error.getMessage()));
+        }
+    }
+
+    private static void appendQuoted(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n' || c == '\r') {
+                line.append(' ');
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static Level parseLevel(String name) {
+        if (name != null) {
+            for (Level level : Level.values()) {
+                if (level.name().equalsIgnoreCase(name)) {
+                    return level;
+                }
+            }
+        }
+        return Level.INFO;
+    }
+
+    /**
+     * Log file that is renamed to .1 (and older ones shifted up to .4, the oldest dropped) once it reaches the size limit
+     */
+    private static class RollingFile {
+        private final Path path;
+        private Writer out;
+        private long size;
+
+        private RollingFile(Path path) throws IOException {
+            this.path = path;
+            openWriter();
+        }
+
+        /**
+         * @return the file, or null if it cannot be opened (entries then go to stderr)
+         */
+        static RollingFile open(Path path) {
+            try {
+                Files.createDirectories(path.getParent());
+                return new RollingFile(path);
+            } catch (IOException e) {
+                System.err.println("Log file unavailable, logging to stderr: " + e.getMessage());
+                return null;
+            }
+        }
+
+        private void openWriter() throws IOException {
+            out = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+            size = Files.size(path);
+        }
+
+        void write(CharSequence line) {
+            try {
+                out.append(line);
+                size += line.length();
+                if (size >= MAX_FILE_BYTES) {
+                    roll();
+                }
+            } catch (IOException e) {
+                System.err.print(line);
+            }
+        }
+
+        private void roll() throws IOException {
+            out.close();
+            Files.deleteIfExists(Path.of(path + "." + MAX_FILES)); // left by a build that kept one more
+            for (int i = MAX_FILES - 2; i >= 1; i--) {
+                Path older = Path.of(path + "." + i);
+                if (Files.exists(older)) {
+                    Files.move(older, Path.of(path + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, Path.of(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            openWriter();
+        }
+
+        void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                // The next write reports the failure
+            }
+        }
+
+        void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing left to report to
+            }
+        }
+    }
+}
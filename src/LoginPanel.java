@@ -197,13 +197,19 @@ public class LoginPanel extends JPanel {
             return;
         }
 
-        User user = DatabaseManager.getInstance().authenticateUser(username, password);
-        if (user != null) {
-            parentApp.setCurrentUser(user);
-            parentApp.showDashboard();
-        } else {
-            showError("Invalid username or password!");
-        }
+        loginButton.setEnabled(false);
+        QuizService.getInstance().login(username, password)
+            .whenCompleteAsync((user, error) -> {
+                loginButton.setEnabled(true);
+                if (error != null) {
+                    showError("Login failed: " + UIHelper.errorMessage(error));
+                } else if (user != null) {
+                    parentApp.setCurrentUser(user);
+                    parentApp.showDashboard();
+                } else {
+                    showError("Invalid username or password!");
+                }
+            }, UIHelper.EDT);
     }
 
     private void handleRegister() {
@@ -226,20 +232,24 @@ public class LoginPanel extends JPanel {
             return;
         }
 
-        if (DatabaseManager.getInstance().usernameExists(username)) {
-            showError("Username already exists!");
-            return;
-        }
-
-        if (DatabaseManager.getInstance().registerUser(username, password, email)) {
-            JOptionPane.showMessageDialog(this,
-                "Registration successful! You can now login.",
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-            toggleMode(); // Switch to login mode
-        } else {
-            showError("Registration failed. Please try again.");
-        }
+        registerButton.setEnabled(false);
+        QuizService.getInstance().register(username, password, email)
+            .whenCompleteAsync((result, error) -> {
+                registerButton.setEnabled(true);
+                if (error != null) {
+                    showError("Registration failed: " + UIHelper.errorMessage(error));
+                } else if (result == QuizService.Registration.USERNAME_TAKEN) {
+                    showError("Username already exists!");
+                } else if (result == QuizService.Registration.REGISTERED) {
+                    JOptionPane.showMessageDialog(this,
+                        "Registration successful! You can now login.",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    toggleMode(); // Switch to login mode
+                } else {
+                    showError("Registration failed. Please try again.");
+                }
+            }, UIHelper.EDT);
     }
 
     private void showError(String message) {
@@ -0,0 +1,92 @@
+/**
+ * PackedAnswers stores one answer sheet as 2-bit choice indices spread over bit-planes.
+ * Bit i of {@code low}/{@code high} holds the low/high bit of answer i, and bit i of
+ * {@code answered} is set when question i has an answer. 64 questions fit in one long per plane.
+ */
+public final class PackedAnswers {
+    private final int length;
+    final long[] low;
+    final long[] high;
+    final long[] answered;
+
+    private PackedAnswers(int length) {
+        this.length = length;
+        int words = (length + 63) >>> 6;
+        this.low = new long[words];
+        this.high = new long[words];
+        this.answered = new long[words];
+    }
+
+    /**
+     * Packs an answer array
+     * @param answers selected choice per question (0-3), or -1 for unanswered
+     * @throws IllegalArgumentException if a choice index is outside -1..3
+     */
+    public static PackedAnswers pack(int[] answers) {
+        PackedAnswers packed = new PackedAnswers(answers.length);
+        for (int word = 0, base = 0; base < answers.length; word++, base += 64) {
+            int end = Math.min(base + 64, answers.length);
+            long low = 0, high = 0, answered = 0;
+            int outOfRange = 0;
+            // Branch-free and filled from the top bit down: answer patterns are random,
+            // so per-answer branches would mispredict constantly
+            for (int i = end - 1; i >= base; i--) {
+                int answer = answers[i];
+                outOfRange |= (answer + 1) | (3 - answer); // negative unless -1 <= answer <= 3
+                long present = (~answer) >>> 31; // 1 for a choice, 0 for -1
+                answered = (answered << 1) | present;
+                low = (low << 1) | (answer & present);
+                high = (high << 1) | ((answer >>> 1) & present);
+            }
+            if (outOfRange < 0) {
+                throw outOfRange(answers, base, end);
+            }
+            packed.low[word] = low;
+            packed.high[word] = high;
+            packed.answered[word] = answered;
+        }
+        return packed;
+    }
+
+    private static IllegalArgumentException outOfRange(int[] answers, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (answers[i] < -1 || answers[i] > 3) {
+                return new IllegalArgumentException("Choice index out of range at question " + (i + 1) + ": " + answers[i]);
+            }
+        }
+        return new IllegalArgumentException("Choice index out of range");
+    }
+
+    /**
+     * @return number of questions on the sheet
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the choice at a question, or -1 if unanswered
+     */
+    public int get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Question index " + index + " out of range 0.." + (length - 1));
+        }
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if ((answered[word] & bit) == 0) {
+            return -1;
+        }
+        return ((low[word] & bit) != 0 ? 1 : 0) | ((high[word] & bit) != 0 ? 2 : 0);
+    }
+
+    /**
+     * Unpacks back to one choice index per question (-1 for unanswered)
+     */
+    public int[] toArray() {
+        int[] answers = new int[length];
+        for (int i = 0; i < length; i++) {
+            answers[i] = get(i);
+        }
+        return answers;
+    }
+}
@@ -1,60 +1,99 @@
 /**
  * Question class represents a single quiz question with four choices.
  * Supports database persistence with unique ID.
+ *
+ * Questions are immutable, so one loaded question can be shown to any number of
+ * takers on any thread. Use the with-methods to derive a changed copy. The class
+ * is final so no subclass can weaken that; a question whose text is decoded on
+ * demand (see {@link QuizPack}) reads it through a {@link Source} instead.
  */
-public class Question {
-    private int id;
-    private String questionText;
-    private String[] choices;
-    private int correctAnswerIndex;
-    private int marks;
+public final class Question {
+    private final int id;
+    private final String questionText; // null when read from source
+    private final String[] choices;    // likewise
+    private final Source source;
+    private final int sourceIndex;
+    private final int correctAnswerIndex;
+    private final int marks;
+
+    /**
+     * Read-only store that a question's text and choices are decoded from when first shown.
+     * Implementations must return the same text on every call.
+     */
+    interface Source {
+        String getQuestionText(int question);
+
+        String getChoice(int question, int choice);
+    }
 
     public Question(String questionText, String[] choices, int correctAnswerIndex, int marks) {
-        this.id = -1; // Not saved to database yet
+        this(-1, questionText, choices, correctAnswerIndex, marks); // -1: not saved yet
+    }
+
+    Question(int id, String questionText, String[] choices, int correctAnswerIndex, int marks) {
+        this(id, questionText, choices != null ? choices.clone() : null, null, -1, correctAnswerIndex, marks);
+    }
+
+    private Question(int id, String questionText, String[] choices, Source source, int sourceIndex,
+                     int correctAnswerIndex, int marks) {
+        this.id = id;
         this.questionText = questionText;
         this.choices = choices;
+        this.source = source;
+        this.sourceIndex = sourceIndex;
         this.correctAnswerIndex = correctAnswerIndex;
         this.marks = marks;
     }
 
-    public int getId() {
-        return id;
+    /**
+     * @return a question whose text and choices are read from {@code source} on access
+     */
+    static Question fromSource(int id, Source source, int index, int correctAnswerIndex, int marks) {
+        return new Question(id, null, null, source, index, correctAnswerIndex, marks);
     }
 
-    public void setId(int id) {
-        this.id = id;
+    public int getId() {
+        return id;
     }
 
     public String getQuestionText() {
-        return questionText;
-    }
-
-    public void setQuestionText(String questionText) {
-        this.questionText = questionText;
+        return source != null ? source.getQuestionText(sourceIndex) : questionText;
     }
 
-    public String[] getChoices() {
-        return choices;
+    /**
+     * @return the text of choice {@code index} (0-3)
+     */
+    public String getChoice(int index) {
+        return source != null ? source.getChoice(sourceIndex, index) : choices[index];
     }
 
-    public void setChoices(String[] choices) {
-        this.choices = choices;
+    public int getChoiceCount() {
+        return source != null ? 4 : choices.length;
     }
 
     public int getCorrectAnswerIndex() {
         return correctAnswerIndex;
     }
 
-    public void setCorrectAnswerIndex(int correctAnswerIndex) {
-        this.correctAnswerIndex = correctAnswerIndex;
-    }
-
+    /**
+     * @return the marks this question is worth when answered correctly
+     */
     public int getMarks() {
         return marks;
     }
 
-    public void setMarks(int marks) {
-        this.marks = marks;
+    /**
+     * @return the store this question's text is read from, or null if it holds its own text
+     */
+    Source getSource() {
+        return source;
+    }
+
+    /**
+     * @return a copy of this question with the id the database assigned
+     */
+    public Question withId(int newId) {
+        return new Question(newId, questionText, choices, source, sourceIndex, correctAnswerIndex, marks);
     }
 
     public boolean isCorrect(int selectedIndex) {
@@ -62,11 +101,11 @@ public class Question {
     }
 
     public String getCorrectAnswer() {
-        return choices[correctAnswerIndex];
+        return getChoice(correctAnswerIndex);
     }
 
     @Override
     public String toString() {
-        return questionText;
+        return getQuestionText();
     }
 }
@@ -0,0 +1,170 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+
+/**
+ * QuestionNavigator paints the row of numbered question cells in one component.
+ * Cell colors come straight from the answer array (blue current, green answered,
+ * gray unanswered); clicks and hover are hit-tested here instead of through one
+ * button and listener per question, and only the cells that change are repainted.
+ */
+public class QuestionNavigator extends JComponent {
+    private static final int CELL = 40;
+    private static final int GAP = 5;
+
+    private int[] answers;
+    private final IntConsumer onSelect;
+    private int current;
+    private int hover = -1;
+
+    /**
+     * @param answers  the taker's answers (-1 = unanswered); read on every paint, never copied
+     * @param onSelect called with the index of a clicked question
+     */
+    public QuestionNavigator(int[] answers, IntConsumer onSelect) {
+        this.answers = answers;
+        this.onSelect = onSelect;
+        setFont(new Font("Arial", Font.BOLD, 12));
+        updatePreferredSize();
+        setToolTipText(""); // enables getToolTipText(MouseEvent)
+        setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = indexAt(e.getX(), e.getY());
+                if (index >= 0) {
+                    onSelect.accept(index);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHover(indexAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHover(-1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    /**
+     * Show a new answer array, e.g. when the taker panel is reused for another attempt
+     */
+    public void reset(int[] answers) {
+        this.answers = answers;
+        current = 0;
+        hover = -1;
+        updatePreferredSize();
+        revalidate();
+        repaint();
+    }
+
+    private void updatePreferredSize() {
+        setPreferredSize(new Dimension(GAP + answers.length * (CELL + GAP), CELL + 2 * GAP));
+    }
+
+    /**
+     * Move the highlight to another question
+     */
+    public void setCurrent(int index) {
+        if (index != current) {
+            int previous = current;
+            current = index;
+            repaintCell(previous);
+            repaintCell(index);
+        }
+    }
+
+    /**
+     * Repaint one cell after its answer changed
+     */
+    public void answerChanged(int index) {
+        repaintCell(index);
+    }
+
+    private void setHover(int index) {
+        if (index != hover) {
+            int previous = hover;
+            hover = index;
+            repaintCell(previous);
+            repaintCell(index);
+        }
+    }
+
+    private int originX() {
+        // Center the row when there is more room than needed, like the old FlowLayout
+        return Math.max(GAP, (getWidth() - getPreferredSize().width) / 2 + GAP);
+    }
+
+    private int indexAt(int x, int y) {
+        int offset = x - originX();
+        if (offset < 0 || y < GAP || y >= GAP + CELL) {
+            return -1;
+        }
+        int index = offset / (CELL + GAP);
+        boolean insideCell = offset % (CELL + GAP) < CELL;
+        return insideCell && index < answers.length ? index : -1;
+    }
+
+    private void repaintCell(int index) {
+        if (index >= 0 && index < answers.length) {
+            repaint(originX() + index * (CELL + GAP), GAP, CELL, CELL);
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = indexAt(e.getX(), e.getY());
+        if (index < 0) {
+            return null;
+        }
+        return "Question " + (index + 1) + (answers[index] != -1 ? " (answered)" : " (not answered)");
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setColor(getParent() != null ? getParent().getBackground() : getBackground());
+        Rectangle clip = g2.getClipBounds();
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only cells inside the clip are painted
+        int origin = originX();
+        int first = Math.max(0, (clip.x - origin) / (CELL + GAP));
+        int last = Math.min(answers.length - 1, (clip.x + clip.width - origin) / (CELL + GAP));
+        FontMetrics metrics = g2.getFontMetrics();
+        for (int i = first; i <= last; i++) {
+            int x = origin + i * (CELL + GAP);
+            Color background;
+            Color text;
+            if (i == current) {
+                background = UIHelper.CURRENT_QUESTION;
+                text = Color.WHITE;
+            } else if (answers[i] != -1) {
+                background = UIHelper.ANSWERED_QUESTION;
+                text = Color.WHITE;
+            } else {
+                background = UIHelper.UNANSWERED_QUESTION;
+                text = Color.DARK_GRAY;
+            }
+            if (i == hover && i != current) {
+                background = UIHelper.darkenColor(background, 0.15f);
+            }
+            g2.setColor(background);
+            g2.fillRect(x, GAP, CELL, CELL);
+
+            String label = String.valueOf(i + 1);
+            g2.setColor(text);
+            g2.drawString(label, x + (CELL - metrics.stringWidth(label)) / 2,
+                GAP + (CELL - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+    }
+}
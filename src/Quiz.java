@@ -1,98 +1,112 @@
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Quiz class manages a collection of questions.
  * Supports database persistence with unique ID.
+ *
+ * A Quiz is an immutable snapshot: its fields and question list are fixed when it is
+ * built, so one loaded quiz is shared by every session taking it, on any thread,
+ * without locks or copies. Quizzes are assembled with {@link Builder}.
+ *
+ * Each question carries its own marks. The total and the answer key are derived from
+ * the questions once, on first use.
  */
 public class Quiz {
-    private int id;
-    private String title;
-    private String description;
-    private String creatorName;
-    private Timestamp createdAt;
-    private List<Question> questions;
-    private static final int TOTAL_MARKS = 100;
-
-    public Quiz(String title) {
-        this.id = -1; // Not saved to database yet
+    private final int id;
+    private final String title;
+    private final String description;
+    private final String creatorName;
+    private final Timestamp createdAt;
+    private final int version;
+    private final List<Question> questions;
+    private AnswerKey answerKey; // compiled on first use; the key is immutable, so a racing compile is harmless
+
+    private Quiz(int id, String title, String description, String creatorName, Timestamp createdAt, int version,
+                 List<Question> questions) {
+        this.id = id;
         this.title = title;
-        this.description = "";
-        this.questions = new ArrayList<>();
+        this.description = description;
+        this.creatorName = creatorName;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.questions = Collections.unmodifiableList(questions);
     }
 
     public int getId() {
         return id;
     }
 
-    public void setId(int id) {
-        this.id = id;
+    /**
+     * @return a copy of this quiz under another id, sharing its questions
+     */
+    public Quiz withId(int newId) {
+        return new Quiz(newId, title, description, creatorName, createdAt, version, questions);
     }
 
-    public String getTitle() {
-        return title;
+    /**
+     * @return a copy of this quiz with the ids the database assigned to it and its questions
+     */
+    Quiz withIds(int newId, int[] questionIds) {
+        List<Question> saved = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            saved.add(questions.get(i).withId(questionIds[i]));
+        }
+        return new Quiz(newId, title, description, creatorName, createdAt, version, saved);
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    public String getTitle() {
+        return title;
     }
 
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     public String getCreatorName() {
         return creatorName;
     }
 
-    public void setCreatorName(String creatorName) {
-        this.creatorName = creatorName;
-    }
-
     public Timestamp getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(Timestamp createdAt) {
-        this.createdAt = createdAt;
-    }
-
-    public void addQuestion(Question question) {
-        questions.add(question);
-        updateMarks();
-    }
-
-    public void removeQuestion(int index) {
-        if (index >= 0 && index < questions.size()) {
-            questions.remove(index);
-            updateMarks();
-        }
-    }
-
-    private void updateMarks() {
-        if (!questions.isEmpty() && canDistributeMarksEqually()) {
-            int marksPerQuestion = getMarksPerQuestion();
-            for (Question q : questions) {
-                q.setMarks(marksPerQuestion);
-            }
-        }
+    /**
+     * @return the quiz's version in the database when it was loaded; it changes whenever
+     *         the answer key or the stored results are rewritten, e.g. by a re-grade
+     */
+    public int getVersion() {
+        return version;
     }
 
+    /**
+     * @return the questions in order; read-only
+     */
     public List<Question> getQuestions() {
         return questions;
     }
 
-    public void setQuestions(List<Question> questions) {
-        this.questions = questions;
+    /**
+     * Gets the bit-packed answer key and marks, compiling them on first use
+     * @return answer key for the questions
+     */
+    public AnswerKey getAnswerKey() {
+        AnswerKey key = answerKey;
+        if (key == null) {
+            key = AnswerKey.compile(questions);
+            answerKey = key;
+        }
+        return key;
     }
 
+    /**
+     * @return sum of the questions' marks
+     */
     public int getTotalMarks() {
-        return TOTAL_MARKS;
+        return getAnswerKey().totalMarks();
     }
 
     public int getQuestionCount() {
@@ -100,47 +114,36 @@ public class Quiz {
     }
 
     /**
-     * Validates if marks can be distributed equally among questions
-     * @return true if marks can be distributed as integers, false otherwise
-     */
-    public boolean canDistributeMarksEqually() {
-        if (questions.isEmpty()) {
-            return true;
-        }
-        return TOTAL_MARKS % questions.size() == 0;
-    }
-
-    /**
-     * Gets marks per question
-     * @return marks per question
+     * Calculates total score based on user answers
+     * @param userAnswers array of user's selected answer indices
+     * @return sum of the marks of the questions answered correctly
      */
-    public int getMarksPerQuestion() {
-        if (questions.isEmpty()) {
+    public int calculateScore(int[] userAnswers) {
+        if (userAnswers.length != questions.size()) {
             return 0;
         }
-        return TOTAL_MARKS / questions.size();
+        return getAnswerKey().score(userAnswers);
     }
 
     /**
-     * Calculates total score based on user answers
-     * @param userAnswers array of user's selected answer indices
-     * @return total score
+     * Grades a full answer sheet in one pass
+     * @param userAnswers selected choice per question (0-3), or -1 for unanswered
+     * @return graded attempt with score and per-question correctness
+     * @throws IllegalArgumentException if the sheet length or a choice index is invalid
      */
-    public int calculateScore(int[] userAnswers) {
+    public GradedAttempt grade(int[] userAnswers) {
         if (userAnswers.length != questions.size()) {
-            return 0;
+            throw new IllegalArgumentException("Expected " + questions.size()
+                + " answers but got " + userAnswers.length);
         }
-
-        int marksPerQuestion = getMarksPerQuestion();
-        int score = 0;
-
-        for (int i = 0; i < questions.size(); i++) {
-            if (questions.get(i).isCorrect(userAnswers[i])) {
-                score += marksPerQuestion;
-            }
+        AnswerKey key = getAnswerKey();
+        long[] correctMask = key.correctMask(PackedAnswers.pack(userAnswers));
+        int correctCount = 0;
+        for (long word : correctMask) {
+            correctCount += Long.bitCount(word);
         }
-
-        return score;
+        return new GradedAttempt(userAnswers, correctMask, correctCount,
+            key.score(correctMask), key.totalMarks());
     }
 
     public boolean isSaved() {
@@ -151,4 +154,114 @@ public class Quiz {
     public String toString() {
         return title + " (" + questions.size() + " questions)";
     }
+
+    /**
+     * Mutable quiz under construction, e.g. in the quiz creator or while loading rows.
+     * Not thread-safe; {@link #build()} produces the shareable snapshot.
+     * Adding questions is amortized O(1) each, so a quiz of any size builds in linear time.
+     */
+    public static class Builder {
+        private int id = -1; // Not saved to database yet
+        private String title;
+        private String description = "";
+        private String creatorName;
+        private Timestamp createdAt;
+        private int version;
+        private final ArrayList<Question> questions;
+        private int totalMarks;
+
+        public Builder(String title) {
+            this(title, 10);
+        }
+
+        /**
+         * @param expectedQuestions how many questions will be added, so the list is sized once
+         */
+        public Builder(String title, int expectedQuestions) {
+            this.title = title;
+            this.questions = new ArrayList<>(expectedQuestions);
+        }
+
+        public Builder setId(int id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder setCreatorName(String creatorName) {
+            this.creatorName = creatorName;
+            return this;
+        }
+
+        public Builder setCreatedAt(Timestamp createdAt) {
+            this.createdAt = createdAt;
+            return this;
+        }
+
+        public Builder setVersion(int version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder addQuestion(Question question) {
+            questions.add(question);
+            totalMarks += question.getMarks();
+            return this;
+        }
+
+        /**
+         * Add many questions in order with a single resize
+         */
+        public Builder addQuestions(Collection<? extends Question> added) {
+            questions.ensureCapacity(questions.size() + added.size());
+            for (Question question : added) {
+                addQuestion(question);
+            }
+            return this;
+        }
+
+        /**
+         * Remove a question; the later ones shift down, so this is O(n) in the questions after it.
+         * The total is adjusted by the removed question's marks rather than summed again.
+         */
+        public void removeQuestion(int index) {
+            if (index >= 0 && index < questions.size()) {
+                totalMarks -= questions.remove(index).getMarks();
+            }
+        }
+
+        /**
+         * @return the questions added so far; read-only
+         */
+        public List<Question> getQuestions() {
+            return Collections.unmodifiableList(questions);
+        }
+
+        public int getQuestionCount() {
+            return questions.size();
+        }
+
+        /**
+         * @return sum of the marks of the questions added so far
+         */
+        public int getTotalMarks() {
+            return totalMarks;
+        }
+
+        /**
+         * Snapshot the quiz; the builder can keep being edited afterwards
+         */
+        public Quiz build() {
+            return new Quiz(id, title, description, creatorName, createdAt, version, new ArrayList<>(questions));
+        }
+    }
 }
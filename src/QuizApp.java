@@ -1,5 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 /**
  * Main application class for Quiz Application.
@@ -25,13 +27,18 @@ public class QuizApp extends JFrame {
     private DashboardPanel dashboardPanel;
     private QuizCreatorPanel creatorPanel;
     private QuizTakerPanel takerPanel;
+    private DiagnosticsPanel diagnosticsPanel;
+    private String currentCard;
+    private String cardBeforeDiagnostics;
     private User currentUser;
+    private boolean firstFramePainted;
 
     // Panel names for CardLayout
     private static final String LOGIN_PANEL = "LOGIN";
     private static final String DASHBOARD_PANEL = "DASHBOARD";
     private static final String CREATOR_PANEL = "CREATOR";
     private static final String TAKER_PANEL = "TAKER";
+    private static final String DIAGNOSTICS_PANEL = "DIAGNOSTICS";
 
     public QuizApp() {
         initializeUI();
@@ -55,14 +62,76 @@ public class QuizApp extends JFrame {
         add(mainPanel);
 
         // Show login panel first
-        cardLayout.show(mainPanel, LOGIN_PANEL);
+        showCard(LOGIN_PANEL);
+
+        // Ctrl+Shift+E shows UI stalls recorded by the EDT monitor
+        getRootPane().registerKeyboardAction(e -> showStallReport(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+            JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        // Ctrl+Shift+D opens the hidden diagnostics card
+        getRootPane().registerKeyboardAction(e -> showDiagnostics(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+            JComponent.WHEN_IN_FOCUSED_WINDOW);
 
         // Add shutdown hook to close database
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            DatabaseManager.getInstance().close();
+            QuizService.getInstance().shutdown();
         }));
     }
 
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!firstFramePainted) {
+            firstFramePainted = true;
+            StartupTrace.mark("first-frame");
+        }
+    }
+
+    private void showCard(String name) {
+        if (DIAGNOSTICS_PANEL.equals(currentCard) && !DIAGNOSTICS_PANEL.equals(name)) {
+            diagnosticsPanel.stop();
+        }
+        currentCard = name;
+        cardLayout.show(mainPanel, name);
+    }
+
+    /**
+     * Show the diagnostics card; it refreshes only while shown
+     */
+    public void showDiagnostics() {
+        if (DIAGNOSTICS_PANEL.equals(currentCard)) {
+            return;
+        }
+        if (diagnosticsPanel == null) {
+            diagnosticsPanel = new DiagnosticsPanel(this);
+            mainPanel.add(diagnosticsPanel, DIAGNOSTICS_PANEL);
+        }
+        cardBeforeDiagnostics = currentCard;
+        showCard(DIAGNOSTICS_PANEL);
+        diagnosticsPanel.start();
+    }
+
+    /**
+     * Leave the diagnostics card for the screen it was opened from
+     */
+    public void closeDiagnostics() {
+        showCard(cardBeforeDiagnostics != null ? cardBeforeDiagnostics : LOGIN_PANEL);
+    }
+
+    /**
+     * Show event dispatch thread stalls grouped by call site
+     */
+    public void showStallReport() {
+        EdtMonitor monitor = EdtMonitor.getInstance();
+        if (monitor == null) {
+            JOptionPane.showMessageDialog(this, "The UI stall monitor is disabled.", "UI Stalls", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        new StallReportDialog(this, monitor).setVisible(true);
+    }
+
     /**
      * Set the current logged-in user
      */
@@ -85,29 +154,39 @@ public class QuizApp extends JFrame {
             dashboardPanel = new DashboardPanel(this, currentUser);
             mainPanel.add(dashboardPanel, DASHBOARD_PANEL);
         } else {
-            dashboardPanel.setCurrentUser(currentUser);
-            dashboardPanel.loadData();
+            dashboardPanel.setCurrentUser(currentUser); // reloads the tables
         }
-        cardLayout.show(mainPanel, DASHBOARD_PANEL);
+        showCard(DASHBOARD_PANEL);
     }
 
     /**
-     * Show quiz creator panel
+     * Show quiz creator panel.
+     * One creator panel is built on first use and cleared on every later visit.
      */
     public void showQuizCreator() {
-        creatorPanel = new QuizCreatorPanel(this);
-        mainPanel.add(creatorPanel, CREATOR_PANEL);
-        cardLayout.show(mainPanel, CREATOR_PANEL);
+        if (creatorPanel == null) {
+            creatorPanel = new QuizCreatorPanel(this);
+            mainPanel.add(creatorPanel, CREATOR_PANEL);
+        } else {
+            creatorPanel.reset();
+        }
+        showCard(CREATOR_PANEL);
     }
 
     /**
-     * Switches to quiz taker panel to start taking the quiz
+     * Switches to quiz taker panel to start taking the quiz.
+     * One taker panel is built on first use and reset for every later attempt,
+     * so finished attempts are not kept alive by the card layout.
      * @param quiz The quiz to be taken
      */
     public void showQuizTaker(Quiz quiz) {
-        takerPanel = new QuizTakerPanel(quiz, this);
-        mainPanel.add(takerPanel, TAKER_PANEL);
-        cardLayout.show(mainPanel, TAKER_PANEL);
+        if (takerPanel == null) {
+            takerPanel = new QuizTakerPanel(quiz, this);
+            mainPanel.add(takerPanel, TAKER_PANEL);
+        } else {
+            takerPanel.reset(quiz);
+        }
+        showCard(TAKER_PANEL);
     }
 
     /**
@@ -116,17 +195,18 @@ public class QuizApp extends JFrame {
     public void logout() {
         currentUser = null;
         loginPanel.reset();
-        cardLayout.show(mainPanel, LOGIN_PANEL);
+        showCard(LOGIN_PANEL);
     }
 
     /**
      * Return to dashboard
      */
     public void returnToDashboard() {
-        if (dashboardPanel != null) {
+        // The dashboard follows database changes itself; kiosk attempts go to the kiosk log, which publishes none
+        if (dashboardPanel != null && KioskStore.getInstance() != null) {
             dashboardPanel.loadData();
         }
-        cardLayout.show(mainPanel, DASHBOARD_PANEL);
+        showCard(DASHBOARD_PANEL);
     }
 
     /**
@@ -134,6 +214,10 @@ public class QuizApp extends JFrame {
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
+        // Open the database in the background so the login window paints first;
+        // a login attempted before it finishes simply waits for it
+        QuizService.getInstance().warmUp();
+
         // Set look and feel to system default
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -141,13 +225,34 @@ public class QuizApp extends JFrame {
             e.printStackTrace();
         }
 
-        // Initialize database
-        DatabaseManager.getInstance();
+        // Time every UI event so freezes can be traced to their call site
+        EdtMonitor.install();
 
         // Create and show the application
         SwingUtilities.invokeLater(() -> {
             QuizApp app = new QuizApp();
             app.setVisible(true);
+
+            String[] autoLogin = StartupTrace.getAutoLogin();
+            if (autoLogin != null) {
+                app.autoLogin(autoLogin[0], autoLogin[1]);
+            }
         });
     }
+
+    /**
+     * Log straight in to the dashboard; used by startup benchmarks and the AppCDS training run
+     */
+    private void autoLogin(String username, String password) {
+        QuizService.getInstance().login(username, password)
+            .whenCompleteAsync((user, error) -> {
+                if (user == null) {
+                    System.err.println("Auto-login failed for " + username
+                        + (error != null ? ": " + UIHelper.errorMessage(error) : ""));
+                    return;
+                }
+                setCurrentUser(user);
+                showDashboard();
+            }, UIHelper.EDT);
+    }
 }
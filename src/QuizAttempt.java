@@ -12,6 +12,8 @@ public class QuizAttempt {
     private int totalMarks;
     private double percentage;
     private Timestamp completedAt;
+    private GradedAttempt gradedAttempt; // only set for an attempt just submitted
+    private Quiz gradedQuiz; // likewise
 
     public QuizAttempt(int id, int userId, int quizId, String quizTitle, int score, int totalMarks, double percentage, Timestamp completedAt) {
         this.id = id;
@@ -24,6 +26,13 @@ public class QuizAttempt {
         this.completedAt = completedAt;
     }
 
+    public QuizAttempt(int id, int userId, Quiz quiz, GradedAttempt gradedAttempt) {
+        this(id, userId, quiz.getId(), quiz.getTitle(), gradedAttempt.getScore(),
+            gradedAttempt.getTotalMarks(), gradedAttempt.getPercentage(), null);
+        this.gradedAttempt = gradedAttempt;
+        this.gradedQuiz = quiz;
+    }
+
     public int getId() {
         return id;
     }
@@ -56,6 +65,21 @@ public class QuizAttempt {
         return completedAt;
     }
 
+    /**
+     * @return per-question results of a just-submitted attempt, or null for attempts loaded from history
+     */
+    public GradedAttempt getGradedAttempt() {
+        return gradedAttempt;
+    }
+
+    /**
+     * @return the quiz a just-submitted attempt was graded with, or null for attempts loaded from history.
+     *         Newer than the quiz taken if its answer key was changed while it was being taken.
+     */
+    public Quiz getGradedQuiz() {
+        return gradedQuiz;
+    }
+
     public String getGrade() {
         if (percentage >= 90) return "A+";
         if (percentage >= 80) return "A";
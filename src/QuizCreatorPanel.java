@@ -1,17 +1,21 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * QuizCreatorPanel provides GUI for creating a quiz with database persistence.
  */
 public class QuizCreatorPanel extends JPanel {
-    private Quiz quiz;
+    private static final int DEFAULT_MARKS = 10;
+
+    private Quiz.Builder quiz; // the quiz being edited; built into a snapshot when saved
     private JTextField titleField;
     private JTextArea descriptionArea;
     private JTextField questionField;
     private JTextField[] choiceFields;
     private JComboBox<String> correctAnswerCombo;
+    private JSpinner marksSpinner;
     private DefaultTableModel tableModel;
     private JTable questionsTable;
     private JButton addQuestionButton;
@@ -23,7 +27,7 @@ public class QuizCreatorPanel extends JPanel {
 
     public QuizCreatorPanel(QuizApp parentApp) {
         this.parentApp = parentApp;
-        this.quiz = new Quiz("My Quiz");
+        this.quiz = new Quiz.Builder("My Quiz");
         initializeUI();
     }
 
@@ -165,8 +169,16 @@ public class QuizCreatorPanel extends JPanel {
         correctAnswerCombo = new JComboBox<>(new String[]{"Choice 1", "Choice 2", "Choice 3", "Choice 4"});
         questionPanel.add(correctAnswerCombo, gbc);
 
+        // Marks for this question
+        gbc.gridx = 0; gbc.gridy = 6; gbc.weightx = 0;
+        questionPanel.add(new JLabel("Marks:"), gbc);
+
+        gbc.gridx = 1; gbc.weightx = 1.0;
+        marksSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_MARKS, 1, 1000, 1));
+        questionPanel.add(marksSpinner, gbc);
+
         // Add button
-        gbc.gridx = 1; gbc.gridy = 6;
+        gbc.gridx = 1; gbc.gridy = 7;
         addQuestionButton = UIHelper.createStyledButton("Add Question", UIHelper.SUCCESS_GREEN, Color.WHITE, 13, null);
         addQuestionButton.addActionListener(e -> addQuestion());
         questionPanel.add(addQuestionButton, gbc);
@@ -185,7 +197,7 @@ public class QuizCreatorPanel extends JPanel {
         ));
 
         // Title
-        JLabel tableTitle = new JLabel("Questions List (" + quiz.getQuestionCount() + " questions)");
+        JLabel tableTitle = new JLabel("Questions List (" + quiz.getQuestionCount() + " questions, " + quiz.getTotalMarks() + " marks)");
         tableTitle.setFont(new Font("Arial", Font.BOLD, 16));
         panel.add(tableTitle, BorderLayout.NORTH);
 
@@ -257,7 +269,8 @@ public class QuizCreatorPanel extends JPanel {
         int correctAnswerIndex = correctAnswerCombo.getSelectedIndex();
 
         // Add question to quiz
-        Question question = new Question(questionText, choices, correctAnswerIndex, 0);
+        int marks = (Integer) marksSpinner.getValue();
+        Question question = new Question(questionText, choices, correctAnswerIndex, marks);
         quiz.addQuestion(question);
 
         // Update table
@@ -270,14 +283,6 @@ public class QuizCreatorPanel extends JPanel {
         }
         correctAnswerCombo.setSelectedIndex(0);
         questionField.requestFocus();
-
-        // Check if marks can be distributed equally
-        if (!quiz.canDistributeMarksEqually()) {
-            JOptionPane.showMessageDialog(this,
-                "Note: " + quiz.getTotalMarks() + " marks cannot be distributed equally among " +
-                quiz.getQuestionCount() + " questions.\nConsider adjusting the number of questions for even distribution.",
-                "Mark Distribution Notice", JOptionPane.INFORMATION_MESSAGE);
-        }
     }
 
     private void deleteQuestion() {
@@ -299,16 +304,15 @@ public class QuizCreatorPanel extends JPanel {
 
     private void updateTable() {
         tableModel.setRowCount(0);
-        int marksPerQuestion = quiz.canDistributeMarksEqually() ? quiz.getMarksPerQuestion() : 0;
 
         for (int i = 0; i < quiz.getQuestions().size(); i++) {
             Question q = quiz.getQuestions().get(i);
-            String correctChoice = q.getChoices()[q.getCorrectAnswerIndex()];
+            String correctChoice = q.getCorrectAnswer();
             tableModel.addRow(new Object[]{
                 i + 1,
                 q.getQuestionText(),
                 correctChoice,
-                marksPerQuestion > 0 ? marksPerQuestion : "N/A"
+                q.getMarks()
             });
         }
 
@@ -321,7 +325,7 @@ public class QuizCreatorPanel extends JPanel {
         Component[] components = ((JPanel) questionsTable.getParent().getParent().getParent()).getComponents();
         for (Component c : components) {
             if (c instanceof JLabel) {
-                ((JLabel) c).setText("Questions List (" + quiz.getQuestionCount() + " questions)");
+                ((JLabel) c).setText("Questions List (" + quiz.getQuestionCount() + " questions, " + quiz.getTotalMarks() + " marks)");
                 break;
             }
         }
@@ -338,14 +342,6 @@ public class QuizCreatorPanel extends JPanel {
             return false;
         }
 
-        if (!quiz.canDistributeMarksEqually()) {
-            int response = JOptionPane.showConfirmDialog(this,
-                "Marks cannot be distributed equally among " + quiz.getQuestionCount() + " questions.\n" +
-                "Do you want to continue anyway?",
-                "Mark Distribution Warning", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-            return response == JOptionPane.YES_OPTION;
-        }
-
         return true;
     }
 
@@ -357,17 +353,21 @@ public class QuizCreatorPanel extends JPanel {
         quiz.setTitle(titleField.getText().trim());
         quiz.setDescription(descriptionArea.getText().trim());
 
-        int quizId = DatabaseManager.getInstance().saveQuiz(quiz, parentApp.getCurrentUser().getId());
-        if (quizId > 0) {
-            JOptionPane.showMessageDialog(this,
-                "Quiz saved successfully!\nQuiz ID: " + quizId,
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-            parentApp.returnToDashboard();
-        } else {
-            JOptionPane.showMessageDialog(this,
-                "Failed to save quiz. Please try again.",
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        setSaveButtonsEnabled(false);
+        QuizService.getInstance().saveQuiz(quiz.build(), parentApp.getCurrentUser().getId())
+            .whenCompleteAsync((quizId, error) -> {
+                setSaveButtonsEnabled(true);
+                if (error != null) {
+                    showSaveFailed(error);
+                } else if (quizId > 0) {
+                    JOptionPane.showMessageDialog(this,
+                        "Quiz saved successfully!\nQuiz ID: " + quizId,
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                    parentApp.returnToDashboard();
+                } else {
+                    showSaveFailed(null);
+                }
+            }, UIHelper.EDT);
     }
 
     private void saveAndStartQuiz() {
@@ -378,18 +378,34 @@ public class QuizCreatorPanel extends JPanel {
         quiz.setTitle(titleField.getText().trim());
         quiz.setDescription(descriptionArea.getText().trim());
 
-        int quizId = DatabaseManager.getInstance().saveQuiz(quiz, parentApp.getCurrentUser().getId());
-        if (quizId > 0) {
+        setSaveButtonsEnabled(false);
+        QuizService service = QuizService.getInstance();
+        service.saveQuiz(quiz.build(), parentApp.getCurrentUser().getId())
             // Reload the quiz from database to get proper IDs
-            Quiz savedQuiz = DatabaseManager.getInstance().loadQuiz(quizId);
-            if (savedQuiz != null) {
-                parentApp.showQuizTaker(savedQuiz);
-            }
-        } else {
-            JOptionPane.showMessageDialog(this,
-                "Failed to save quiz. Please try again.",
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            .thenCompose(quizId -> quizId > 0 ? service.loadQuiz(quizId) : CompletableFuture.completedFuture(null))
+            .whenCompleteAsync((savedQuiz, error) -> {
+                setSaveButtonsEnabled(true);
+                if (savedQuiz != null) {
+                    parentApp.showQuizTaker(savedQuiz);
+                } else {
+                    showSaveFailed(error);
+                }
+            }, UIHelper.EDT);
+    }
+
+    private void setSaveButtonsEnabled(boolean enabled) {
+        saveQuizButton.setEnabled(enabled);
+        startQuizButton.setEnabled(enabled);
+    }
+
+    /**
+     * @param error why the save failed, or null if the database only reported failure
+     */
+    private void showSaveFailed(Throwable error) {
+        JOptionPane.showMessageDialog(this,
+            "Failed to save quiz. Please try again."
+                + (error != null ? "\n" + UIHelper.errorMessage(error) : ""),
+            "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     private void goBack() {
@@ -404,7 +420,27 @@ public class QuizCreatorPanel extends JPanel {
         parentApp.returnToDashboard();
     }
 
+    /**
+     * Clear the form for a new quiz so the panel can be shown again
+     */
+    public void reset() {
+        quiz = new Quiz.Builder("My Quiz");
+        titleField.setText("My Quiz");
+        descriptionArea.setText("");
+        questionField.setText("");
+        for (JTextField field : choiceFields) {
+            field.setText("");
+        }
+        correctAnswerCombo.setSelectedIndex(0);
+        marksSpinner.setValue(DEFAULT_MARKS);
+        updateTable();
+        setSaveButtonsEnabled(true);
+    }
+
+    /**
+     * @return a snapshot of the quiz as currently edited
+     */
     public Quiz getQuiz() {
-        return quiz;
+        return quiz.build();
     }
 }
@@ -0,0 +1,92 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * QuizEvents holds the Java Flight Recorder event types for quiz lifecycle operations.
+ *
+ * Each operation creates an event, calls begin() before the work and commit() after
+ * filling in its fields. While no recording is running (or the event is disabled),
+ * commit() returns after one check and the JIT removes the allocation, so the
+ * instrumented paths cost nothing measurable. See jfr/quizapp.jfc and tools/JfrSummary.
+ */
+public final class QuizEvents {
+    private static final String CATEGORY = "Quiz Application";
+
+    private QuizEvents() {
+    }
+
+    @Name("quizapp.Login")
+    @Label("Login")
+    @Category(CATEGORY)
+    @Description("Username/password check against the users table")
+    public static class Login extends Event {
+        @Label("Username")
+        public String username;
+
+        @Label("User Id")
+        @Description("Id of the authenticated user, or -1 if the credentials were wrong")
+        public int userId = -1;
+    }
+
+    @Name("quizapp.QuizLoad")
+    @Label("Quiz Load")
+    @Category(CATEGORY)
+    @Description("Quiz and its questions read from the database")
+    public static class QuizLoad extends Event {
+        @Label("Quiz Id")
+        public int quizId;
+
+        @Label("Question Count")
+        public int questionCount;
+    }
+
+    @Name("quizapp.AttemptSubmit")
+    @Label("Attempt Submit")
+    @Category(CATEGORY)
+    @Description("Graded attempt and its answers written in one transaction")
+    public static class AttemptSubmit extends Event {
+        @Label("Quiz Id")
+        public int quizId;
+
+        @Label("Question Count")
+        public int questionCount;
+
+        @Label("Attempt Id")
+        @Description("Id of the saved attempt, or -1 if the transaction was rolled back")
+        public int attemptId = -1;
+
+        @Label("Rows Written")
+        @Description("Attempt and answer rows inserted")
+        public int rows;
+    }
+
+    @Name("quizapp.LeaderboardView")
+    @Label("Leaderboard View")
+    @Category(CATEGORY)
+    @Description("Top scores of one quiz read from the database")
+    public static class LeaderboardView extends Event {
+        @Label("Quiz Id")
+        public int quizId;
+
+        @Label("Rows")
+        public int rows;
+    }
+
+    @Name("quizapp.DashboardRefresh")
+    @Label("Dashboard Refresh")
+    @Category(CATEGORY)
+    @Description("Dashboard catalog and history fetched and shown, from request to filled tables")
+    public static class DashboardRefresh extends Event {
+        @Label("User Id")
+        public int userId;
+
+        @Label("Quiz Rows")
+        public int quizRows;
+
+        @Label("History Rows")
+        public int historyRows;
+    }
+}
@@ -0,0 +1,256 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * QuizPack is a self-contained binary file holding one quiz and its questions,
+ * for loading a quiz without the database.
+ *
+ * Layout (big-endian):
+ *   header    magic "QPAK", version, quiz id, question count, total marks, string count,
+ *             created-at millis (or -1), title/description/creator string indexes (-1 = none),
+ *             offset of the string table
+ *   questions one fixed-width record per question: id, text index, four choice indexes,
+ *             correct answer index, marks
+ *   strings   an offset per string, then each string as an int length and its UTF-8 bytes
+ *
+ * Identical strings (e.g. repeated "True"/"False" choices) are stored once. A plain
+ * pack is memory-mapped and strings are decoded only when first asked for, so opening
+ * a large quiz costs a few header reads; a pack written with compression is a gzip of
+ * the same bytes and is inflated into memory instead.
+ */
+public class QuizPack implements Question.Source {
+    private static final int MAGIC = 0x5150414B; // "QPAK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int RECORD_BYTES = 32;
+
+    private final ByteBuffer buffer;
+    private final int questionCount;
+    private final int stringCount;
+    private final int stringTableOffset;
+    private final String[] strings; // decoded on first use
+
+    private QuizPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a quiz pack");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported quiz pack version " + buffer.getInt(4));
+        }
+        questionCount = buffer.getInt(12);
+        stringCount = buffer.getInt(20);
+        stringTableOffset = buffer.getInt(44);
+        long stringsStart = stringTableOffset + 4L * stringCount;
+        if (questionCount < 0 || stringCount < 0
+            || stringTableOffset < HEADER_BYTES + (long) questionCount * RECORD_BYTES
+            || stringsStart > buffer.limit()) {
+            throw new IOException("Corrupt quiz pack header");
+        }
+        strings = new String[stringCount];
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * Open a pack; plain packs are memory-mapped, compressed ones inflated into memory
+     */
+    public static QuizPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.limit() >= 2 && (mapped.getShort(0) & 0xFFFF) == 0x1F8B) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                    return new QuizPack(ByteBuffer.wrap(in.readAllBytes()));
+                }
+            }
+            return new QuizPack(mapped);
+        }
+    }
+
+    public int getQuizId() {
+        return buffer.getInt(8);
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public int getTotalMarks() {
+        return buffer.getInt(16);
+    }
+
+    public String getTitle() {
+        return string(buffer.getInt(32));
+    }
+
+    public String getDescription() {
+        return string(buffer.getInt(36));
+    }
+
+    public String getCreatorName() {
+        return string(buffer.getInt(40));
+    }
+
+    public Timestamp getCreatedAt() {
+        long millis = buffer.getLong(24);
+        return millis < 0 ? null : new Timestamp(millis);
+    }
+
+    public int getQuestionId(int question) {
+        return buffer.getInt(record(question));
+    }
+
+    @Override
+    public String getQuestionText(int question) {
+        return string(buffer.getInt(record(question) + 4));
+    }
+
+    @Override
+    public String getChoice(int question, int choice) {
+        return string(buffer.getInt(record(question) + 8 + 4 * choice));
+    }
+
+    public int getCorrectAnswerIndex(int question) {
+        return buffer.getInt(record(question) + 24);
+    }
+
+    public int getMarks(int question) {
+        return buffer.getInt(record(question) + 28);
+    }
+
+    private int record(int question) {
+        if (question < 0 || question >= questionCount) {
+            throw new IndexOutOfBoundsException("Question " + question + " of " + questionCount);
+        }
+        return HEADER_BYTES + question * RECORD_BYTES;
+    }
+
+    /**
+     * Decode a string from the table on first use; -1 stands for null
+     */
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String value = strings[index];
+        if (value == null) {
+            int position = buffer.getInt(stringTableOffset + 4 * index);
+            byte[] bytes = new byte[buffer.getInt(position)];
+            buffer.get(position + 4, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value; // a racing decode stores an equal string
+        }
+        return value;
+    }
+
+    /**
+     * Build a quiz whose questions read their text from this pack when first shown
+     */
+    public Quiz toQuiz() {
+        Quiz.Builder quiz = new Quiz.Builder(getTitle(), questionCount)
+            .setId(getQuizId())
+            .setDescription(getDescription())
+            .setCreatorName(getCreatorName())
+            .setCreatedAt(getCreatedAt());
+        for (int i = 0; i < questionCount; i++) {
+            // Text and choices are decoded from this pack (and cached here) when first shown
+            quiz.addQuestion(Question.fromSource(getQuestionId(i), this, i, getCorrectAnswerIndex(i), getMarks(i)));
+        }
+        return quiz.build();
+    }
+
+    /**
+     * @return true if the quiz was built from a pack rather than loaded from the database
+     */
+    public static boolean isPacked(Quiz quiz) {
+        return !quiz.getQuestions().isEmpty() && quiz.getQuestions().get(0).getSource() instanceof QuizPack;
+    }
+
+    /**
+     * Tests whether a quiz from the database is the quiz a pack was exported from, unchanged:
+     * the same questions, in order, with the same text, answer key and marks. Quiz ids alone
+     * do not tell, since a pack from another installation can reuse a local quiz's id.
+     */
+    public static boolean matches(Quiz packed, Quiz stored) {
+        if (packed.getId() != stored.getId() || packed.getQuestionCount() != stored.getQuestionCount()) {
+            return false;
+        }
+        for (int i = 0; i < packed.getQuestionCount(); i++) {
+            Question p = packed.getQuestions().get(i);
+            Question s = stored.getQuestions().get(i);
+            if (p.getId() != s.getId() || p.getCorrectAnswerIndex() != s.getCorrectAnswerIndex()
+                    || p.getMarks() != s.getMarks() || !p.getQuestionText().equals(s.getQuestionText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Write a quiz to a pack file
+     * @param compress gzip the pack; smaller, but read into memory instead of mapped
+     */
+    public static void write(Quiz quiz, Path file, boolean compress) throws IOException {
+        List<Question> questions = quiz.getQuestions();
+        Map<String, Integer> index = new LinkedHashMap<>();
+        int stringTableOffset = HEADER_BYTES + questions.size() * RECORD_BYTES;
+
+        ByteBuffer records = ByteBuffer.allocate(stringTableOffset);
+        records.putInt(MAGIC).putInt(VERSION).putInt(quiz.getId()).putInt(questions.size())
+            .putInt(quiz.getTotalMarks()).putInt(0) // string count, filled in below
+            .putLong(quiz.getCreatedAt() != null ? quiz.getCreatedAt().getTime() : -1)
+            .putInt(intern(index, quiz.getTitle())).putInt(intern(index, quiz.getDescription()))
+            .putInt(intern(index, quiz.getCreatorName())).putInt(stringTableOffset);
+        for (Question q : questions) {
+            records.putInt(q.getId()).putInt(intern(index, q.getQuestionText()));
+            for (int c = 0; c < 4; c++) {
+                records.putInt(intern(index, q.getChoice(c)));
+            }
+            records.putInt(q.getCorrectAnswerIndex()).putInt(q.getMarks());
+        }
+        records.putInt(20, index.size());
+
+        // Offsets first, so any string is found without walking the ones before it
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteBuffer offsets = ByteBuffer.allocate(4 * index.size());
+        int position = stringTableOffset + offsets.capacity();
+        for (String value : index.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            offsets.putInt(position);
+            data.write(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            data.write(bytes);
+            position += 4 + bytes.length;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = compress
+                ? new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)
+                : Files.newOutputStream(temp)) {
+            out.write(records.array());
+            out.write(offsets.array());
+            data.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int intern(Map<String, Integer> index, String value) {
+        return value == null ? -1 : index.computeIfAbsent(value, key -> index.size());
+    }
+}
@@ -0,0 +1,455 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuizServer runs the Quiz Application headless as a JSON/HTTP service.
+ * Lets a whole lab of students share one machine and one database without Swing;
+ * all work goes through QuizService, the same core the desktop panels use.
+ *
+ * Endpoints:
+ *   POST /api/login                       form: username, password -> session token
+ *   GET  /api/quizzes                     quiz catalog
+ *   GET  /api/quizzes/{id}                quiz with questions (answers hidden)
+ *   POST /api/quizzes/{id}/attempts       form: answers=0,2,-1,... (Bearer token required)
+ *   GET  /api/quizzes/{id}/leaderboard    top 10 scores
+ *   GET  /api/quizzes/{id}/choices        option pick counts per question (quiz creator only)
+ *   GET  /api/ranking?top=N               overall ranking by sum of best percentages (default 10)
+ *
+ * Each request runs on its own virtual thread when the JVM supports them (Java 21+).
+ * A session token expires after -Dquiz.session.idle minutes without a request (default 30);
+ * expired sessions are swept once a minute, so abandoned logins do not pile up.
+ */
+public class QuizServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final long SESSION_IDLE_NANOS =
+        TimeUnit.MINUTES.toNanos(Long.getLong("quiz.session.idle", 30));
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final QuizService service = QuizService.getInstance();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sessionSweeper;
+
+    /**
+     * A logged-in user and when their token was last used
+     */
+    private static final class Session {
+        final User user;
+        volatile long lastUsed = System.nanoTime();
+
+        Session(User user) {
+            this.user = user;
+        }
+
+        boolean isExpired(long now) {
+            return now - lastUsed > SESSION_IDLE_NANOS;
+        }
+    }
+
+    public QuizServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/login", this::handleLogin);
+        server.createContext("/api/quizzes", this::handleQuizzes);
+        server.createContext("/api/ranking", this::handleRanking);
+        sessionSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessionSweeper.scheduleWithFixedDelay(this::removeExpiredSessions, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Creates a virtual-thread-per-request executor, or a cached pool on older JVMs
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        sessionSweeper.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ==================== HANDLERS ====================
+
+    private void handleLogin(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+            Map<String, String> form = parseForm(readBody(exchange));
+            String username = form.getOrDefault("username", "").trim();
+            String password = form.getOrDefault("password", "");
+            if (username.isEmpty() || password.isEmpty()) {
+                sendError(exchange, 400, "username and password are required");
+                return;
+            }
+
+            User user = service.login(username, password).join();
+            if (user == null) {
+                sendError(exchange, 401, "Invalid username or password");
+                return;
+            }
+
+            String token = UUID.randomUUID().toString();
+            sessions.put(token, new Session(user));
+            send(exchange, 200, "{\"token\":" + quote(token) + ",\"user\":" + userJson(user) + "}");
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleQuizzes(HttpExchange exchange) throws IOException {
+        try {
+            // Path is /api/quizzes[/{id}[/attempts|/leaderboard]]
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+
+            if (parts.length == 3) {
+                if (!"GET".equals(method)) {
+                    sendError(exchange, 405, "Use GET");
+                    return;
+                }
+                sendCatalog(exchange);
+                return;
+            }
+
+            int quizId;
+            try {
+                quizId = Integer.parseInt(parts[3]);
+            } catch (NumberFormatException e) {
+                sendError(exchange, 404, "Unknown quiz id: " + parts[3]);
+                return;
+            }
+
+            if (parts.length == 4 && "GET".equals(method)) {
+                sendQuiz(exchange, quizId);
+            } else if (parts.length == 5 && "attempts".equals(parts[4]) && "POST".equals(method)) {
+                submitAttempt(exchange, quizId);
+            } else if (parts.length == 5 && "leaderboard".equals(parts[4]) && "GET".equals(method)) {
+                sendLeaderboard(exchange, quizId);
+            } else if (parts.length == 5 && "choices".equals(parts[4]) && "GET".equals(method)) {
+                sendChoiceCounts(exchange, quizId);
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleRanking(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            int top;
+            try {
+                String query = exchange.getRequestURI().getRawQuery();
+                top = Integer.parseInt(parseForm(query != null ? query : "").getOrDefault("top", "10"));
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "top must be a number");
+                return;
+            }
+            List<GlobalRanking.Standing> ranking = service.getGlobalRanking(Math.max(1, Math.min(top, 1000))).join();
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < ranking.size(); i++) {
+                GlobalRanking.Standing standing = ranking.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"rank\":").append(standing.getRank())
+                    .append(",\"username\":").append(quote(standing.getUsername()))
+                    .append(",\"totalPercentage\":").append(standing.getTotalPercentage())
+                    .append('}');
+            }
+            send(exchange, 200, json.append(']').toString());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void sendCatalog(HttpExchange exchange) throws IOException {
+        List<QuizSummary> quizzes = service.getCatalog(-1).join();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < quizzes.size(); i++) {
+            QuizSummary quiz = quizzes.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(quiz.getQuizId())
+                .append(",\"title\":").append(quote(quiz.getTitle()))
+                .append(",\"description\":").append(quote(quiz.getDescription()))
+                .append(",\"creator\":").append(quote(quiz.getCreatorName()))
+                .append(",\"questionCount\":").append(quiz.getQuestionCount())
+                .append(",\"createdAt\":").append(quote(quiz.getCreatedAt() != null ? quiz.getCreatedAt().toString() : null))
+                .append('}');
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private void sendQuiz(HttpExchange exchange, int quizId) throws IOException {
+        Quiz quiz = service.loadQuiz(quizId).join();
+        if (quiz == null) {
+            sendError(exchange, 404, "Quiz not found");
+            return;
+        }
+
+        // Correct answers stay on the server; clients only get the text and choices
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(quiz.getId())
+            .append(",\"title\":").append(quote(quiz.getTitle()))
+            .append(",\"description\":").append(quote(quiz.getDescription()))
+            .append(",\"totalMarks\":").append(quiz.getTotalMarks())
+            .append(",\"questions\":[");
+        List<Question> questions = quiz.getQuestions();
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(q.getId())
+                .append(",\"text\":").append(quote(q.getQuestionText()))
+                .append(",\"marks\":").append(q.getMarks())
+                .append(",\"choices\":[");
+            for (int c = 0; c < q.getChoiceCount(); c++) {
+                if (c > 0) json.append(',');
+                json.append(quote(q.getChoice(c)));
+            }
+            json.append("]}");
+        }
+        send(exchange, 200, json.append("]}").toString());
+    }
+
+    private void submitAttempt(HttpExchange exchange, int quizId) throws IOException {
+        User user = authenticate(exchange);
+        if (user == null) {
+            sendError(exchange, 401, "Missing or invalid session token");
+            return;
+        }
+
+        Quiz quiz = service.loadQuiz(quizId).join();
+        if (quiz == null) {
+            sendError(exchange, 404, "Quiz not found");
+            return;
+        }
+
+        int[] answers;
+        try {
+            answers = parseAnswers(parseForm(readBody(exchange)).getOrDefault("answers", ""));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "answers must be a comma-separated list of choice indices");
+            return;
+        }
+        if (answers.length != quiz.getQuestionCount()) {
+            sendError(exchange, 400, "Expected " + quiz.getQuestionCount() + " answers but got " + answers.length);
+            return;
+        }
+
+        QuizAttempt attempt = service.submitAttempt(user, quiz, answers).join();
+        if (attempt.getId() < 0) {
+            sendError(exchange, 500, "Failed to save attempt");
+            return;
+        }
+
+        send(exchange, 201, "{\"attemptId\":" + attempt.getId()
+            + ",\"score\":" + attempt.getScore()
+            + ",\"totalMarks\":" + attempt.getTotalMarks()
+            + ",\"percentage\":" + attempt.getPercentage()
+            + ",\"grade\":" + quote(attempt.getGrade()) + "}");
+    }
+
+    private void sendLeaderboard(HttpExchange exchange, int quizId) throws IOException {
+        List<LeaderboardEntry> leaderboard = service.getLeaderboard(quizId).join();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < leaderboard.size(); i++) {
+            LeaderboardEntry entry = leaderboard.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"rank\":").append(entry.getRank())
+                .append(",\"username\":").append(quote(entry.getUsername()))
+                .append(",\"bestScore\":").append(entry.getBestScore())
+                .append(",\"bestPercentage\":").append(entry.getBestPercentage())
+                .append('}');
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private void sendChoiceCounts(HttpExchange exchange, int quizId) throws IOException {
+        User user = authenticate(exchange);
+        Quiz quiz = service.loadQuiz(quizId).join();
+        if (quiz == null) {
+            sendError(exchange, 404, "Quiz not found");
+            return;
+        }
+        // Pick rates hint at the answer key, so only the author may see them
+        if (user == null || !user.getUsername().equals(quiz.getCreatorName())) {
+            sendError(exchange, 403, "Only the quiz creator can view pick counts");
+            return;
+        }
+
+        Map<Integer, long[]> counts = service.getPickCounts(quizId).join();
+        StringBuilder json = new StringBuilder("[");
+        List<Question> questions = quiz.getQuestions();
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            long[] picks = counts.getOrDefault(q.getId(), new long[ChoiceCounters.SLOTS]);
+            if (i > 0) json.append(',');
+            json.append("{\"questionId\":").append(q.getId())
+                .append(",\"blank\":").append(picks[0])
+                .append(",\"picks\":[").append(picks[1]).append(',').append(picks[2])
+                .append(',').append(picks[3]).append(',').append(picks[4]).append("]}");
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    // ==================== REQUEST HELPERS ====================
+
+    private User authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = header.substring("Bearer ".length()).trim();
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (session.isExpired(now)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsed = now;
+        return session.user;
+    }
+
+    private void removeExpiredSessions() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> session.isExpired(now));
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            form.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return form;
+    }
+
+    private static int[] parseAnswers(String csv) {
+        if (csv.isBlank()) {
+            return new int[0];
+        }
+        String[] parts = csv.split(",");
+        int[] answers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            answers[i] = Integer.parseInt(parts[i].trim());
+            if (answers[i] < -1 || answers[i] > 3) {
+                throw new NumberFormatException("Choice index out of range: " + answers[i]);
+            }
+        }
+        return answers;
+    }
+
+    // ==================== RESPONSE HELPERS ====================
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + quote(message) + "}");
+    }
+
+    private static String userJson(User user) {
+        return "{\"id\":" + user.getId() + ",\"username\":" + quote(user.getUsername()) + "}";
+    }
+
+    /**
+     * Encodes a string as a JSON string literal (null becomes JSON null)
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Starts the headless server
+     * @param args optional port number (default 8080)
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        // Open the database before accepting requests
+        DatabaseManager.getInstance();
+
+        QuizServer quizServer = new QuizServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            quizServer.stop();
+            QuizService.getInstance().shutdown();
+        }));
+        quizServer.start();
+        System.out.println("Quiz server listening on http://localhost:" + quizServer.getPort() + "/api");
+    }
+}
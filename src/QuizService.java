@@ -0,0 +1,450 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * QuizService is the display-independent core of the Quiz Application.
+ * The Swing panels, the HTTP server and command-line tools all go through it,
+ * so login, catalog, quiz loading and attempt submission share one code path.
+ *
+ * Every operation runs in the background and returns a CompletableFuture: on its own
+ * virtual thread when the JVM supports them (Java 21+), so callers that block on the
+ * result (one HTTP request per virtual thread, say) do not queue behind a few workers;
+ * otherwise on a small pool of daemon threads.
+ * This class must never reference AWT/Swing so headless use never loads them.
+ *
+ * Another process (a {@link RegradeJob}, say) may rewrite a quiz's answer key or
+ * stored results while this one holds them in memory. Each such change bumps the
+ * quiz's version in the database, so the cached quiz and everything derived from
+ * it are checked against that version before use and dropped when it moved on.
+ */
+public class QuizService {
+    private static final int STALE_RETRIES = 3;
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private static QuizService instance;
+
+    private final ExecutorService executor;
+    private final Map<Integer, Quiz> quizCache = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> quizVersions = new ConcurrentHashMap<>(); // last version seen per quiz
+    private final AtomicLong rankingVersion = new AtomicLong(-1); // sum of all versions when last checked
+    private final KioskStore kiosk = KioskStore.getInstance(); // null unless in kiosk mode
+
+    /**
+     * Outcome of a registration request
+     */
+    public enum Registration {
+        REGISTERED,
+        USERNAME_TAKEN,
+        FAILED
+    }
+
+    private QuizService() {
+        this.executor = createExecutor();
+        AttemptRollups.getInstance(); // starts hourly-to-daily compaction
+        ChangeBus.getInstance().subscribe(ChangeBus.QuizDeleted.class, event -> {
+            quizCache.remove(event.getQuizId());
+            quizVersions.remove(event.getQuizId());
+        });
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor, or a fixed daemon pool on older JVMs
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "quiz-service-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+    }
+
+    /**
+     * Get singleton instance of QuizService
+     */
+    public static synchronized QuizService getInstance() {
+        if (instance == null) {
+            instance = new QuizService();
+        }
+        return instance;
+    }
+
+    private DatabaseManager db() {
+        return DatabaseManager.getInstance();
+    }
+
+    /**
+     * Run database work in the background, recording how long it took (excluding queueing) for diagnostics
+     */
+    private <T> CompletableFuture<T> query(String operation, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                Diagnostics.getInstance().recordDbLatency(operation, System.nanoTime() - start);
+            }
+        }, executor);
+    }
+
+    /**
+     * Open the database (driver, connection, schema) in the background, so
+     * the caller can show UI meanwhile. Requests made before it finishes wait on
+     * the DatabaseManager lock instead of opening a second connection.
+     */
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(() -> {
+            db();
+            StartupTrace.mark("db-ready");
+        }, executor);
+    }
+
+    // ==================== USERS ====================
+
+    /**
+     * Authenticate a user
+     * @return future completing with the user, or null if the credentials are wrong;
+     *         it fails if the database could not be read
+     */
+    public CompletableFuture<User> login(String username, String password) {
+        return query("authenticateUser", () -> db().authenticateUser(username, password));
+    }
+
+    /**
+     * Register a new user if the username is free
+     */
+    public CompletableFuture<Registration> register(String username, String password, String email) {
+        return query("registerUser", () -> {
+            if (db().usernameExists(username)) {
+                return Registration.USERNAME_TAKEN;
+            }
+            return db().registerUser(username, password, email) ? Registration.REGISTERED : Registration.FAILED;
+        });
+    }
+
+    // ==================== QUIZZES ====================
+
+    /**
+     * Get the quiz catalog with question counts and the user's best attempts.
+     * Uses three queries in total regardless of how many quizzes exist.
+     * @param userId the viewing user, or a non-positive id for an anonymous catalog
+     */
+    public CompletableFuture<List<QuizSummary>> getCatalog(int userId) {
+        if (kiosk != null) {
+            return CompletableFuture.completedFuture(kiosk.getCatalog());
+        }
+        return query("getCatalog", () -> summarize(db().getAllQuizzes(), userId));
+    }
+
+    /**
+     * Get the quizzes created by a user, with question counts
+     */
+    public CompletableFuture<List<QuizSummary>> getQuizzesByCreator(int creatorId) {
+        return query("getQuizzesByCreator", () -> summarize(db().getQuizzesByUser(creatorId), -1));
+    }
+
+    private List<QuizSummary> summarize(List<Quiz> quizzes, int userId) {
+        Map<Integer, Integer> questionCounts = db().getQuestionCounts();
+        Map<Integer, QuizAttempt> bestAttempts = userId > 0 ? db().getBestAttemptsByUser(userId) : Collections.emptyMap();
+        List<QuizSummary> summaries = new ArrayList<>(quizzes.size());
+        for (Quiz quiz : quizzes) {
+            summaries.add(new QuizSummary(quiz,
+                questionCounts.getOrDefault(quiz.getId(), 0),
+                bestAttempts.get(quiz.getId())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Load a complete quiz with questions, served from cache while its version is unchanged
+     * @return future completing with the quiz, or null if it does not exist
+     */
+    public CompletableFuture<Quiz> loadQuiz(int quizId) {
+        if (kiosk != null) {
+            return CompletableFuture.completedFuture(kiosk.getQuiz(quizId));
+        }
+        return query("loadQuiz", () -> currentQuiz(quizId));
+    }
+
+    /**
+     * Get the cached quiz if the database still has its version (one primary-key read), otherwise load it again
+     */
+    private Quiz currentQuiz(int quizId) {
+        Quiz cached = quizCache.get(quizId);
+        Diagnostics.getInstance().recordCacheLookup("quiz", cached != null);
+        if (cached != null && checkVersion(quizId) == cached.getVersion()) {
+            return cached;
+        }
+        Quiz quiz = db().loadQuiz(quizId);
+        if (quiz != null) {
+            noteVersion(quizId, quiz.getVersion());
+            quizCache.put(quizId, quiz);
+        }
+        return quiz;
+    }
+
+    /**
+     * Save a new quiz
+     * @return future completing with the new quiz id, or -1 on failure
+     */
+    public CompletableFuture<Integer> saveQuiz(Quiz quiz, int creatorId) {
+        return query("saveQuiz", () -> db().saveQuiz(quiz, creatorId));
+    }
+
+    /**
+     * Delete a quiz; caches drop it when the deletion is published on the {@link ChangeBus}
+     */
+    public CompletableFuture<Boolean> deleteQuiz(int quizId) {
+        return query("deleteQuiz", () -> db().deleteQuiz(quizId));
+    }
+
+    /**
+     * Drop a quiz and everything derived from its results, so each is read from the database on next use
+     */
+    public void invalidateQuiz(int quizId) {
+        quizCache.remove(quizId);
+        ScoreDistributions.getInstance().invalidate(quizId);
+        ItemAnalysis.getInstance().invalidate(quizId);
+        AttemptColumns.getInstance().invalidate();
+        GlobalRanking.getInstance().invalidate();
+    }
+
+    /**
+     * Compare a quiz's version in the database with the last one seen here
+     * @return the current version
+     */
+    private int checkVersion(int quizId) {
+        return noteVersion(quizId, db().getQuizVersion(quizId));
+    }
+
+    /**
+     * Record a quiz's current version, dropping whatever was cached for an older one
+     */
+    private int noteVersion(int quizId, int version) {
+        Integer seen = quizVersions.put(quizId, version);
+        if (seen != null && seen != version) {
+            invalidateQuiz(quizId);
+        }
+        return version;
+    }
+
+    /**
+     * Drop the global ranking if any quiz's version changed since the last check
+     */
+    private void checkRankingVersion() {
+        long total = db().getVersionTotal();
+        long seen = rankingVersion.getAndSet(total);
+        if (seen >= 0 && seen != total) {
+            GlobalRanking.getInstance().invalidate();
+        }
+    }
+
+    // ==================== QUIZ PACKS ====================
+
+    /**
+     * Write a quiz to a pack file
+     */
+    public CompletableFuture<Boolean> exportQuizPack(int quizId, Path file, boolean compress) {
+        return query("exportQuizPack", () -> db().exportQuizPack(quizId, file, compress));
+    }
+
+    /**
+     * Add the quiz in a pack file to the database as a new quiz
+     * @return future completing with the new quiz id, or -1 on failure
+     */
+    public CompletableFuture<Integer> importQuizPack(Path file, int creatorId) {
+        return query("importQuizPack", () -> db().importQuizPack(file, creatorId));
+    }
+
+    /**
+     * Open a pack file for taking without the database; question text is read as it is shown
+     */
+    public CompletableFuture<Quiz> openQuizPack(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return QuizPack.open(file).toQuiz();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e.getMessage(), e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Find the database copy of a quiz opened from a pack
+     * @return future completing with the stored quiz if it matches the pack (see {@link QuizPack#matches}), otherwise null
+     */
+    public CompletableFuture<Quiz> findPackedQuiz(Quiz packed) {
+        return loadQuiz(packed.getId())
+            .thenApply(stored -> stored != null && QuizPack.matches(packed, stored) ? stored : null);
+    }
+
+    // ==================== ATTEMPTS ====================
+
+    /**
+     * Grade a set of answers and record the attempt.
+     * The answers are graded once; the same result is saved and returned for display,
+     * unless the quiz's answer key changed since it was loaded: the answers are then
+     * graded again with the current quiz (see {@link QuizAttempt#getGradedQuiz()}).
+     * The attempt is only persisted for a logged-in user on a saved quiz;
+     * otherwise the returned attempt has id -1. In kiosk mode the attempt goes to the
+     * kiosk log instead, and the future fails if it could not be written.
+     * @param userAnswers selected choice per question, -1 for unanswered
+     */
+    public CompletableFuture<QuizAttempt> submitAttempt(User user, Quiz quiz, int[] userAnswers) {
+        return query("submitAttempt", () -> {
+            GradedAttempt graded = quiz.grade(userAnswers);
+
+            if (kiosk != null && user != null) {
+                try {
+                    return kiosk.record(user, quiz, userAnswers, graded);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e.getMessage(), e);
+                }
+            }
+
+            int attemptId = -1;
+            int userId = user != null ? user.getId() : -1;
+            Quiz gradedQuiz = quiz;
+            if (user != null && quiz.isSaved()) {
+                for (int tries = 1; ; tries++) {
+                    try {
+                        attemptId = db().saveQuizAttempt(userId, gradedQuiz, graded);
+                        break;
+                    } catch (DatabaseManager.StaleQuizException e) {
+                        Quiz current = tries < STALE_RETRIES ? currentQuiz(quiz.getId()) : null;
+                        if (current == null) {
+                            throw e;
+                        }
+                        gradedQuiz = current;
+                        graded = current.grade(userAnswers);
+                    }
+                }
+            }
+            return new QuizAttempt(attemptId, userId, gradedQuiz, graded);
+        });
+    }
+
+    /**
+     * Get all attempts by a user, newest first
+     */
+    public CompletableFuture<List<QuizAttempt>> getHistory(int userId) {
+        if (kiosk != null) {
+            return query("getHistory", () -> kiosk.getAttempts(userId));
+        }
+        return query("getHistory", () -> db().getAttemptsByUser(userId));
+    }
+
+    /**
+     * Get the top 10 leaderboard for a quiz
+     */
+    public CompletableFuture<List<LeaderboardEntry>> getLeaderboard(int quizId) {
+        return query("getLeaderboard", () -> db().getQuizLeaderboard(quizId));
+    }
+
+    /**
+     * Get the top users across all quizzes by the sum of their best percentages
+     */
+    public CompletableFuture<List<GlobalRanking.Standing>> getGlobalRanking(int limit) {
+        return query("getGlobalRanking", () -> {
+            checkRankingVersion();
+            List<GlobalRanking.Standing> top = GlobalRanking.getInstance().getTop(limit);
+            List<Integer> userIds = new ArrayList<>(top.size());
+            for (GlobalRanking.Standing standing : top) {
+                userIds.add(standing.getUserId());
+            }
+            Map<Integer, String> names = db().getUsernames(userIds);
+            List<GlobalRanking.Standing> named = new ArrayList<>(top.size());
+            for (GlobalRanking.Standing standing : top) {
+                named.add(standing.withUsername(names.get(standing.getUserId())));
+            }
+            return named;
+        });
+    }
+
+    /**
+     * Get a user's place in the global ranking
+     * @return future completing with the standing, or null if the user has no points yet
+     */
+    public CompletableFuture<GlobalRanking.Standing> getGlobalStanding(int userId) {
+        return query("getGlobalStanding", () -> {
+            checkRankingVersion();
+            return GlobalRanking.getInstance().getStanding(userId);
+        });
+    }
+
+    /**
+     * Get difficulty, discrimination and option pick counts for every question of a quiz.
+     * Only attempts recorded since the previous call are read from the database.
+     */
+    public CompletableFuture<List<ItemStatistic>> getItemAnalysis(int quizId) {
+        return loadQuiz(quizId).thenApplyAsync(quiz -> quiz == null ? List.<ItemStatistic>of()
+            : ItemAnalysis.getInstance().analyze(quiz, ChoiceCounters.getInstance().getPickCounts(quizId)), executor);
+    }
+
+    /**
+     * Get a snapshot of a quiz's score distribution for percentile and grade lookups
+     */
+    public CompletableFuture<ScoreHistogram> getScoreHistogram(int quizId) {
+        return query("getScoreHistogram", () -> {
+            checkVersion(quizId);
+            return ScoreDistributions.getInstance().getHistogram(quizId);
+        });
+    }
+
+    /**
+     * Get attempt count, score sum and passes per day for the last {@code days} days
+     * @param quizId quiz to summarize, or a non-positive id for all quizzes
+     */
+    public CompletableFuture<List<AttemptRollup>> getDailyActivity(int quizId, int days) {
+        return query("getDailyActivity", () -> AttemptRollups.getInstance().getDaily(quizId, days));
+    }
+
+    /**
+     * Get option pick counts for every question of a quiz
+     * @return counts per question id, indexed by choice + 1 (0 = blank, 1-4 = A-D)
+     */
+    public CompletableFuture<Map<Integer, long[]>> getPickCounts(int quizId) {
+        return query("getPickCounts", () -> ChoiceCounters.getInstance().getPickCounts(quizId));
+    }
+
+    /**
+     * Stop the background executor, flush counters, close the database and flush the log.
+     * Submissions still running get up to {@link #SHUTDOWN_WAIT_SECONDS} seconds to finish first,
+     * so their attempts and pick counts are not cut off by the database closing.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                Log.warn("QuizService", -1, -1, "Background tasks still running at shutdown; closing the database anyway");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        AttemptRollups.getInstance().shutdown();
+        ChoiceCounters.getInstance().shutdown();
+        db().close();
+        Log.shutdown();
+    }
+}
@@ -0,0 +1,56 @@
+import java.sql.Timestamp;
+
+/**
+ * QuizSummary is one row of the quiz catalog as seen by a particular user.
+ * Carries the question count and the user's best attempt without loading the questions.
+ */
+public class QuizSummary {
+    private int quizId;
+    private String title;
+    private String description;
+    private String creatorName;
+    private Timestamp createdAt;
+    private int questionCount;
+    private QuizAttempt bestAttempt;
+
+    public QuizSummary(Quiz quiz, int questionCount, QuizAttempt bestAttempt) {
+        this.quizId = quiz.getId();
+        this.title = quiz.getTitle();
+        this.description = quiz.getDescription();
+        this.creatorName = quiz.getCreatorName();
+        this.createdAt = quiz.getCreatedAt();
+        this.questionCount = questionCount;
+        this.bestAttempt = bestAttempt;
+    }
+
+    public int getQuizId() {
+        return quizId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCreatorName() {
+        return creatorName;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    /**
+     * @return the user's best attempt, or null if they have not taken the quiz
+     */
+    public QuizAttempt getBestAttempt() {
+        return bestAttempt;
+    }
+}
@@ -1,6 +1,7 @@
 import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
-import java.awt.event.*;
+import java.util.Arrays;
 
 /**
  * QuizTakerPanel provides GUI for taking a quiz with result persistence.
@@ -9,6 +10,7 @@ public class QuizTakerPanel extends JPanel {
     private Quiz quiz;
     private int currentQuestionIndex;
     private int[] userAnswers;
+    private JLabel titleLabel;
     private JLabel questionNumberLabel;
     private JLabel questionTextLabel;
     private ButtonGroup choiceGroup;
@@ -20,21 +22,45 @@ public class QuizTakerPanel extends JPanel {
     private JLabel progressLabel;
     private JProgressBar progressBar;
     private QuizApp parentApp;
-    private JButton[] questionButtons; // Store question number buttons
+    private QuestionNavigator navigator;
+    private int answeredCount;
 
     public QuizTakerPanel(Quiz quiz, QuizApp parentApp) {
         this.quiz = quiz;
         this.parentApp = parentApp;
         this.currentQuestionIndex = 0;
-        this.userAnswers = new int[quiz.getQuestionCount()];
-        this.questionButtons = new JButton[quiz.getQuestionCount()];
-        for (int i = 0; i < userAnswers.length; i++) {
-            userAnswers[i] = -1; // -1 means no answer selected
-        }
+        this.userAnswers = newAnswers(quiz.getQuestionCount());
         initializeUI();
         displayQuestion(currentQuestionIndex);
     }
 
+    /**
+     * Start a new attempt, possibly at another quiz, reusing every component.
+     * Nothing from the previous attempt stays reachable from the panel.
+     */
+    public void reset(Quiz quiz) {
+        this.quiz = quiz;
+        this.currentQuestionIndex = 0;
+        this.userAnswers = newAnswers(quiz.getQuestionCount());
+        this.answeredCount = 0;
+        titleLabel.setText(quiz.getTitle());
+        marksLabel.setText(marksText());
+        progressBar.setMaximum(quiz.getQuestionCount());
+        navigator.reset(userAnswers);
+        finishButton.setEnabled(true);
+        displayQuestion(currentQuestionIndex);
+    }
+
+    private static int[] newAnswers(int questionCount) {
+        int[] answers = new int[questionCount];
+        Arrays.fill(answers, -1); // -1 means no answer selected
+        return answers;
+    }
+
+    private String marksText() {
+        return "Total: " + quiz.getTotalMarks() + " marks | " + quiz.getQuestionCount() + " questions";
+    }
+
     private void initializeUI() {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
@@ -59,7 +85,7 @@ public class QuizTakerPanel extends JPanel {
         panel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
 
         // Quiz title
-        JLabel titleLabel = new JLabel(quiz.getTitle(), SwingConstants.LEFT);
+        titleLabel = new JLabel(quiz.getTitle(), SwingConstants.LEFT);
         titleLabel.setFont(new Font("Arial", Font.BOLD, 22));
         titleLabel.setForeground(Color.WHITE);
         panel.add(titleLabel, BorderLayout.WEST);
@@ -68,7 +94,7 @@ public class QuizTakerPanel extends JPanel {
         JPanel infoPanel = new JPanel(new GridLayout(2, 1, 0, 5));
         infoPanel.setOpaque(false);
 
-        marksLabel = new JLabel("Total: " + quiz.getTotalMarks() + " marks | " + quiz.getMarksPerQuestion() + " marks per question", SwingConstants.RIGHT);
+        marksLabel = new JLabel(marksText(), SwingConstants.RIGHT);
         marksLabel.setFont(new Font("Arial", Font.PLAIN, 13));
         marksLabel.setForeground(Color.WHITE);
         infoPanel.add(marksLabel);
@@ -139,9 +165,12 @@ public class QuizTakerPanel extends JPanel {
 
             final int choiceIndex = i;
             choiceButtons[i].addActionListener(e -> {
+                if (userAnswers[currentQuestionIndex] == -1) {
+                    answeredCount++;
+                }
                 userAnswers[currentQuestionIndex] = choiceIndex;
                 updateProgress();
-                updateQuestionButtons(); // Update button colors when answer is selected
+                navigator.answerChanged(currentQuestionIndex);
             });
 
             choiceGroup.add(choiceButtons[i]);
@@ -156,36 +185,14 @@ public class QuizTakerPanel extends JPanel {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBackground(new Color(245, 245, 250));
 
-        // Question navigator (numbered buttons)
-        JPanel dotsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 5));
+        // Question navigator (one painted component, not a button per question)
+        JPanel dotsPanel = new JPanel(new BorderLayout());
         dotsPanel.setBackground(new Color(245, 245, 250));
-        dotsPanel.setBorder(BorderFactory.createEmptyBorder(5, 0, 10, 0));
-
-        for (int i = 0; i < quiz.getQuestionCount(); i++) {
-            JButton dotButton = new JButton(String.valueOf(i + 1));
-            dotButton.setPreferredSize(new Dimension(40, 40));
-            dotButton.setFont(new Font("Arial", Font.BOLD, 12));
-            dotButton.setFocusPainted(false);
-            dotButton.setOpaque(true);
-            dotButton.setBorderPainted(false);
-            dotButton.putClientProperty("JButton.buttonType", "square");
-
-            // Initial color - gray for unanswered
-            dotButton.setBackground(UIHelper.UNANSWERED_QUESTION);
-            dotButton.setForeground(Color.DARK_GRAY);
-
-            final int index = i;
-            dotButton.addActionListener(e -> {
-                currentQuestionIndex = index;
-                displayQuestion(currentQuestionIndex);
-            });
-
-            // Add hover effect for question buttons
-            addQuestionButtonHoverEffect(dotButton, index);
-
-            questionButtons[i] = dotButton;
-            dotsPanel.add(dotButton);
-        }
+        navigator = new QuestionNavigator(userAnswers, index -> {
+            currentQuestionIndex = index;
+            displayQuestion(currentQuestionIndex);
+        });
+        dotsPanel.add(navigator, BorderLayout.CENTER);
 
         JScrollPane dotsScroll = new JScrollPane(dotsPanel);
         dotsScroll.setBorder(null);
@@ -225,67 +232,6 @@ public class QuizTakerPanel extends JPanel {
         return panel;
     }
 
-    /**
-     * Add hover effect for question number buttons
-     */
-    private void addQuestionButtonHoverEffect(JButton button, int questionIndex) {
-        button.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                if (questionIndex != currentQuestionIndex) {
-                    // Darken current color on hover
-                    Color currentColor = getQuestionButtonColor(questionIndex);
-                    button.setBackground(UIHelper.darkenColor(currentColor, 0.15f));
-                }
-            }
-
-            @Override
-            public void mouseExited(MouseEvent e) {
-                // Restore original color based on state
-                updateSingleQuestionButton(questionIndex);
-            }
-        });
-    }
-
-    /**
-     * Get the appropriate color for a question button based on its state
-     */
-    private Color getQuestionButtonColor(int index) {
-        if (index == currentQuestionIndex) {
-            return UIHelper.CURRENT_QUESTION; // Blue for current
-        } else if (userAnswers[index] != -1) {
-            return UIHelper.ANSWERED_QUESTION; // Green for answered
-        } else {
-            return UIHelper.UNANSWERED_QUESTION; // Gray for unanswered
-        }
-    }
-
-    /**
-     * Update a single question button's appearance
-     */
-    private void updateSingleQuestionButton(int index) {
-        if (questionButtons[index] != null) {
-            Color bgColor = getQuestionButtonColor(index);
-            questionButtons[index].setBackground(bgColor);
-
-            // Set text color based on background
-            if (index == currentQuestionIndex || userAnswers[index] != -1) {
-                questionButtons[index].setForeground(Color.WHITE);
-            } else {
-                questionButtons[index].setForeground(Color.DARK_GRAY);
-            }
-        }
-    }
-
-    /**
-     * Update all question button colors
-     */
-    private void updateQuestionButtons() {
-        for (int i = 0; i < questionButtons.length; i++) {
-            updateSingleQuestionButton(i);
-        }
-    }
-
     private void displayQuestion(int index) {
         if (index < 0 || index >= quiz.getQuestionCount()) {
             return;
@@ -298,10 +244,9 @@ public class QuizTakerPanel extends JPanel {
         questionTextLabel.setText("<html><div style='width:500px;'>" + question.getQuestionText() + "</div></html>");
 
         // Update choices
-        String[] choices = question.getChoices();
         String[] letters = {"A", "B", "C", "D"};
         for (int i = 0; i < 4; i++) {
-            choiceButtons[i].setText(letters[i] + ". " + choices[i]);
+            choiceButtons[i].setText(letters[i] + ". " + question.getChoice(i));
         }
 
         // Restore user's previous selection if any
@@ -314,20 +259,16 @@ public class QuizTakerPanel extends JPanel {
         previousButton.setEnabled(index > 0);
         nextButton.setEnabled(index < quiz.getQuestionCount() - 1);
 
-        // Update question number buttons to highlight current
-        updateQuestionButtons();
+        // Move the navigator highlight
+        navigator.setCurrent(index);
 
         // Update progress
         updateProgress();
     }
 
     private void updateProgress() {
-        int answered = 0;
-        for (int answer : userAnswers) {
-            if (answer != -1) answered++;
-        }
-        progressBar.setValue(answered);
-        progressLabel.setText("Progress: " + answered + "/" + quiz.getQuestionCount());
+        progressBar.setValue(answeredCount);
+        progressLabel.setText("Progress: " + answeredCount + "/" + quiz.getQuestionCount());
     }
 
     private void previousQuestion() {
@@ -378,29 +319,35 @@ public class QuizTakerPanel extends JPanel {
             }
         }
 
-        // Calculate score
-        int score = quiz.calculateScore(userAnswers);
-        double percentage = (double) score / quiz.getTotalMarks() * 100;
-
-        // Save attempt to database
-        User currentUser = parentApp.getCurrentUser();
-        if (currentUser != null && quiz.getId() > 0) {
-            DatabaseManager.getInstance().saveQuizAttempt(
-                currentUser.getId(),
-                quiz.getId(),
-                score,
-                quiz.getTotalMarks(),
-                percentage,
-                userAnswers,
-                quiz
-            );
-        }
-
-        // Show results
-        showResults(score, percentage);
+        // Score and save the attempt off the EDT, then show results with the class standing
+        finishButton.setEnabled(false);
+        QuizService service = QuizService.getInstance();
+        Quiz takenQuiz = quiz; // the panel may be reset for another quiz before the results arrive
+        service.submitAttempt(parentApp.getCurrentUser(), takenQuiz, userAnswers.clone())
+            .whenCompleteAsync((attempt, error) -> {
+                finishButton.setEnabled(true);
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Failed to submit quiz: " + UIHelper.errorMessage(error),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                Quiz gradedQuiz = attempt.getGradedQuiz() != null ? attempt.getGradedQuiz() : takenQuiz;
+                if (attempt.getId() < 0) {
+                    showResults(gradedQuiz, attempt, null);
+                    return;
+                }
+                service.getScoreHistogram(gradedQuiz.getId()).whenCompleteAsync((histogram, histogramError) ->
+                    showResults(gradedQuiz, attempt, histogram), UIHelper.EDT);
+            }, UIHelper.EDT);
     }
 
-    private void showResults(int score, double percentage) {
+    /**
+     * @param histogram score distribution including this attempt, or null if the attempt was not saved
+     */
+    private void showResults(Quiz quiz, QuizAttempt attempt, ScoreHistogram histogram) {
+        int score = attempt.getScore();
+        double percentage = attempt.getPercentage();
         // Create results dialog
         JDialog resultsDialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Quiz Results", true);
         resultsDialog.setLayout(new BorderLayout());
@@ -412,7 +359,8 @@ public class QuizTakerPanel extends JPanel {
         resultsPanel.setBackground(new Color(245, 245, 250));
 
         // Score header
-        JPanel scorePanel = new JPanel(new GridLayout(3, 1, 5, 5));
+        boolean showStanding = histogram != null && histogram.getTotal() > 1;
+        JPanel scorePanel = new JPanel(new GridLayout(showStanding ? 4 : 3, 1, 5, 5));
         scorePanel.setBackground(Color.WHITE);
         scorePanel.setBorder(BorderFactory.createCompoundBorder(
             BorderFactory.createLineBorder(new Color(200, 200, 200)),
@@ -429,13 +377,23 @@ public class QuizTakerPanel extends JPanel {
         scoreLabel.setForeground(getScoreColor(percentage));
         scorePanel.add(scoreLabel);
 
-        String grade = getGrade(percentage);
+        String grade = attempt.getGrade();
         JLabel gradeLabel = new JLabel(String.format("%.1f%% - Grade: %s", percentage, grade), SwingConstants.CENTER);
         gradeLabel.setFont(new Font("Arial", Font.BOLD, 24));
         gradeLabel.setForeground(getScoreColor(percentage));
         scorePanel.add(gradeLabel);
 
-        resultsPanel.add(scorePanel, BorderLayout.NORTH);
+        JPanel headerPanel = new JPanel(new BorderLayout(15, 15));
+        headerPanel.setOpaque(false);
+        headerPanel.add(scorePanel, BorderLayout.CENTER);
+        if (showStanding) {
+            JLabel standingLabel = new JLabel(String.format("You beat %.0f%% of %d attempts",
+                histogram.getPercentBeaten(percentage), histogram.getTotal()), SwingConstants.CENTER);
+            standingLabel.setFont(new Font("Arial", Font.PLAIN, 16));
+            scorePanel.add(standingLabel);
+            headerPanel.add(new GradeChart(histogram, grade), BorderLayout.EAST);
+        }
+        resultsPanel.add(headerPanel, BorderLayout.NORTH);
 
         // Detailed results table
         JPanel detailsPanel = new JPanel(new BorderLayout(5, 5));
@@ -449,26 +407,7 @@ public class QuizTakerPanel extends JPanel {
         detailsTitle.setFont(new Font("Arial", Font.BOLD, 18));
         detailsPanel.add(detailsTitle, BorderLayout.NORTH);
 
-        String[] columnNames = {"#", "Question", "Your Answer", "Correct Answer", "Status", "Marks"};
-        Object[][] data = new Object[quiz.getQuestionCount()][6];
-
-        int marksPerQuestion = quiz.getMarksPerQuestion();
-        for (int i = 0; i < quiz.getQuestionCount(); i++) {
-            Question q = quiz.getQuestions().get(i);
-            String yourAnswer = userAnswers[i] == -1 ? "Not answered" : q.getChoices()[userAnswers[i]];
-            String correctAnswer = q.getChoices()[q.getCorrectAnswerIndex()];
-            boolean isCorrect = userAnswers[i] != -1 && q.isCorrect(userAnswers[i]);
-
-            data[i][0] = i + 1;
-            data[i][1] = q.getQuestionText().length() > 50 ?
-                q.getQuestionText().substring(0, 47) + "..." : q.getQuestionText();
-            data[i][2] = yourAnswer.length() > 30 ? yourAnswer.substring(0, 27) + "..." : yourAnswer;
-            data[i][3] = correctAnswer.length() > 30 ? correctAnswer.substring(0, 27) + "..." : correctAnswer;
-            data[i][4] = isCorrect ? "Correct" : "Wrong";
-            data[i][5] = isCorrect ? marksPerQuestion : 0;
-        }
-
-        JTable resultsTable = new JTable(data, columnNames);
+        JTable resultsTable = new JTable(new ResultsTableModel(quiz, attempt.getGradedAttempt()));
         resultsTable.setFont(new Font("Arial", Font.PLAIN, 12));
         resultsTable.setRowHeight(28);
         resultsTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
@@ -492,10 +431,19 @@ public class QuizTakerPanel extends JPanel {
         JButton retryButton = UIHelper.createStyledButton("Try Again", UIHelper.WARNING_ORANGE, Color.WHITE, new Dimension(140, 40));
         retryButton.addActionListener(e -> {
             resultsDialog.dispose();
-            Quiz reloadedQuiz = DatabaseManager.getInstance().loadQuiz(quiz.getId());
-            if (reloadedQuiz != null) {
-                parentApp.showQuizTaker(reloadedQuiz);
+            if (QuizPack.isPacked(quiz)) {
+                parentApp.showQuizTaker(quiz); // a pack never changes, so nothing to reload
+                return;
             }
+            QuizService.getInstance().loadQuiz(quiz.getId())
+                .whenCompleteAsync((reloadedQuiz, error) -> {
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(this, "Could not reload the quiz: " + UIHelper.errorMessage(error),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    } else if (reloadedQuiz != null) {
+                        parentApp.showQuizTaker(reloadedQuiz);
+                    }
+                }, UIHelper.EDT);
         });
         buttonPanel.add(retryButton);
 
@@ -517,18 +465,106 @@ public class QuizTakerPanel extends JPanel {
         resultsDialog.setVisible(true);
     }
 
+    /**
+     * Read-only view of a graded attempt for the results table.
+     * Cells are produced on demand from the grading result, so nothing is copied
+     * or re-checked against the questions.
+     */
+    private static class ResultsTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"#", "Question", "Your Answer", "Correct Answer", "Status", "Marks"};
+
+        private final Quiz quiz;
+        private final GradedAttempt graded;
+
+        ResultsTableModel(Quiz quiz, GradedAttempt graded) {
+            this.quiz = quiz;
+            this.graded = graded;
+        }
+
+        @Override
+        public int getRowCount() {
+            return graded.getQuestionCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Question q = quiz.getQuestions().get(row);
+            int answer = graded.getAnswer(row);
+            return switch (column) {
+                case 0 -> row + 1;
+                case 1 -> truncate(q.getQuestionText(), 50);
+                case 2 -> answer == -1 ? "Not answered" : truncate(q.getChoice(answer), 30);
+                case 3 -> truncate(q.getCorrectAnswer(), 30);
+                case 4 -> graded.isCorrect(row) ? "Correct" : "Wrong";
+                default -> graded.isCorrect(row) ? q.getMarks() : 0;
+            };
+        }
+
+        private static String truncate(String text, int max) {
+            return text.length() > max ? text.substring(0, max - 3) + "..." : text;
+        }
+    }
+
+    /**
+     * Bar chart of how many attempts earned each grade, highlighting the taker's grade
+     */
+    private static class GradeChart extends JPanel {
+        private final ScoreHistogram histogram;
+        private final String highlightGrade;
+
+        GradeChart(ScoreHistogram histogram, String highlightGrade) {
+            this.histogram = histogram;
+            this.highlightGrade = highlightGrade;
+            setPreferredSize(new Dimension(240, 0));
+            setBackground(Color.WHITE);
+            setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200)));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            String[] grades = ScoreHistogram.GRADES;
+            long max = 1;
+            for (int i = 0; i < grades.length; i++) {
+                max = Math.max(max, histogram.getGradeCount(i));
+            }
+
+            int top = 28;
+            int bottom = getHeight() - 22;
+            int slot = (getWidth() - 20) / grades.length;
+            g2.setFont(new Font("Arial", Font.BOLD, 12));
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString("Grades of all attempts", 10, 18);
+
+            for (int i = 0; i < grades.length; i++) {
+                // Lowest grade on the left
+                int column = grades.length - 1 - i;
+                int x = 10 + column * slot;
+                int barHeight = (int) ((bottom - top) * histogram.getGradeCount(i) / max);
+                g2.setColor(grades[i].equals(highlightGrade) ? UIHelper.PRIMARY_BLUE : new Color(190, 190, 210));
+                g2.fillRect(x + 4, bottom - barHeight, slot - 8, barHeight);
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawString(grades[i], x + slot / 2 - g2.getFontMetrics().stringWidth(grades[i]) / 2, bottom + 15);
+            }
+        }
+    }
+
     private Color getScoreColor(double percentage) {
         if (percentage >= 80) return new Color(46, 125, 50);  // Green
         if (percentage >= 60) return new Color(255, 152, 0);  // Orange
         return new Color(211, 47, 47);  // Red
     }
-
-    private String getGrade(double percentage) {
-        if (percentage >= 90) return "A+";
-        if (percentage >= 80) return "A";
-        if (percentage >= 70) return "B";
-        if (percentage >= 60) return "C";
-        if (percentage >= 50) return "D";
-        return "F";
-    }
 }
@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * RegradeJob repairs stored results after a question's correct answer was fixed.
+ *
+ * Only the user_answers rows for the changed questions are read and rewritten.
+ * Affected attempts are processed in chunks: each chunk is re-graded in parallel,
+ * then its is_correct flags, attempt scores and the job checkpoint are written in
+ * one bounded transaction. If the job is interrupted, running it again with the
+ * same quiz and questions resumes after the last committed chunk. The job ends
+ * with a last pass that holds the database lock, so an attempt saved in this
+ * process while the chunks ran cannot be missed. Other processes are covered by
+ * the quiz's version: changing the key bumps it, and they refuse to save attempts
+ * graded with an older copy (see {@link DatabaseManager#updateCorrectAnswer}).
+ *
+ * Leaderboards, history and dashboard statistics are all computed from
+ * quiz_attempts, so they are consistent as soon as the job finishes; the score
+ * histogram, time rollups and per-user bests behind the global ranking are
+ * recounted, while cached item analysis and the column snapshot are dropped and
+ * rebuilt on next use. Finally the quiz's version is bumped again so running
+ * servers and GUIs drop what they derived from the old results as well.
+ */
+public class RegradeJob {
+    private static final int CHUNK_ATTEMPTS = 500;
+
+    private final int quizId;
+    private final int[] questionIds;
+
+    private int lastAttemptId;
+    private int done;
+    private int rescored;
+
+    /**
+     * Receives progress after every committed chunk
+     */
+    public interface ProgressListener {
+        void onProgress(int attemptsDone, int attemptsTotal);
+    }
+
+    /**
+     * @param quizId      quiz whose answer key changed
+     * @param questionIds ids of the questions whose correct answer changed
+     */
+    public RegradeJob(int quizId, int[] questionIds) {
+        this.quizId = quizId;
+        this.questionIds = IntStream.of(questionIds).distinct().sorted().toArray();
+    }
+
+    /**
+     * Runs (or resumes) the job
+     * @return number of attempts whose score changed
+     * @throws IllegalArgumentException if the quiz or a question does not exist
+     * @throws IllegalStateException if the database rejects a chunk; rerun to resume
+     */
+    public int run(ProgressListener listener) {
+        DatabaseManager db = DatabaseManager.getInstance();
+        Quiz quiz = db.loadQuiz(quizId);
+        if (quiz == null) {
+            throw new IllegalArgumentException("Quiz " + quizId + " not found");
+        }
+
+        // Current key and marks for the changed questions only
+        Map<Integer, Integer> correctByQuestion = new HashMap<>();
+        Map<Integer, Integer> marksByQuestion = new HashMap<>();
+        for (Question q : quiz.getQuestions()) {
+            correctByQuestion.put(q.getId(), q.getCorrectAnswerIndex());
+            marksByQuestion.put(q.getId(), q.getMarks());
+        }
+        for (int questionId : questionIds) {
+            if (!correctByQuestion.containsKey(questionId)) {
+                throw new IllegalArgumentException("Question " + questionId + " is not part of quiz " + quizId);
+            }
+        }
+        correctByQuestion.keySet().retainAll(IntStream.of(questionIds).boxed().toList());
+
+        String jobKey = Arrays.toString(questionIds).replaceAll("[\\[\\] ]", "");
+        int[] job = db.openRegradeJob(quizId, jobKey);
+        if (job == null) {
+            throw new IllegalStateException("Could not open re-grade job");
+        }
+        int jobId = job[0];
+        lastAttemptId = job[1];
+        done = 0;
+        rescored = 0;
+
+        int total = db.countAttemptsAnswering(quizId, questionIds, lastAttemptId);
+        listener.onProgress(done, total);
+        regradeRemaining(db, jobId, quiz, correctByQuestion, marksByQuestion, listener, total);
+        synchronized (db.lockFor(quizId)) {
+            // Attempts saved since the last chunk was read; none can be added until the job is finished
+            regradeRemaining(db, jobId, quiz, correctByQuestion, marksByQuestion, listener, total);
+            db.finishRegradeJob(jobId);
+        }
+
+        db.rebuildScoreBuckets(quizId);
+        db.rebuildBestScores(quizId); // also drops the global ranking so it reloads
+        AttemptRollups.getInstance().rebuild(quizId);
+        QuizService.getInstance().invalidateQuiz(quizId);
+        db.bumpQuizVersion(quizId); // other processes drop their histogram, item analysis and ranking
+        return rescored;
+    }
+
+    /**
+     * Re-grade chunk by chunk until no affected attempt is left after {@link #lastAttemptId}
+     */
+    private void regradeRemaining(DatabaseManager db, int jobId, Quiz quiz, Map<Integer, Integer> correctByQuestion,
+                                  Map<Integer, Integer> marksByQuestion, ProgressListener listener, int total) {
+        while (true) {
+            Chunk chunk = db.readRegradeChunk(quizId, questionIds, lastAttemptId, CHUNK_ATTEMPTS);
+            if (chunk == null) {
+                throw new IllegalStateException("Could not read answers after attempt " + lastAttemptId);
+            }
+            if (chunk.size() == 0) {
+                return;
+            }
+            chunk.regrade(correctByQuestion, marksByQuestion, quiz.getTotalMarks());
+            if (!db.applyRegradeChunk(jobId, chunk)) {
+                throw new IllegalStateException("Re-grade stopped after attempt " + lastAttemptId + "; run again to resume");
+            }
+            lastAttemptId = chunk.getUpperAttemptId();
+            done += chunk.getAttemptCount();
+            rescored += chunk.getRescoredCount();
+            listener.onProgress(done, Math.max(done, total)); // attempts may arrive while the job runs
+        }
+    }
+
+    /**
+     * One transaction's worth of answers to re-grade, ordered by attempt id
+     */
+    public static class Chunk {
+        private final int upperAttemptId;
+        private int size;
+        private int[] answerIds = new int[256];
+        private int[] attemptIds = new int[256];
+        private int[] questionIds = new int[256];
+        private int[] selected = new int[256];
+        private boolean[] oldCorrect = new boolean[256];
+        private int[] scores = new int[256];
+        private int[] totalMarks = new int[256];
+
+        private boolean[] newCorrect;
+        private int attemptCount;
+        private int rescoredCount;
+        private int[] rescoredAttemptIds;
+        private int[] rescoredScores;
+        private double[] rescoredPercentages;
+
+        Chunk(int upperAttemptId) {
+            this.upperAttemptId = upperAttemptId;
+        }
+
+        void add(int answerId, int attemptId, int questionId, int selectedIndex, boolean correct, int score, int total) {
+            if (size == answerIds.length) {
+                int capacity = size * 2;
+                answerIds = Arrays.copyOf(answerIds, capacity);
+                attemptIds = Arrays.copyOf(attemptIds, capacity);
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                selected = Arrays.copyOf(selected, capacity);
+                oldCorrect = Arrays.copyOf(oldCorrect, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                totalMarks = Arrays.copyOf(totalMarks, capacity);
+            }
+            answerIds[size] = answerId;
+            attemptIds[size] = attemptId;
+            questionIds[size] = questionId;
+            selected[size] = selectedIndex;
+            oldCorrect[size] = correct;
+            scores[size] = score;
+            totalMarks[size] = total;
+            size++;
+        }
+
+        /**
+         * Recomputes correctness per answer and the score of every attempt in the chunk
+         * @param quizTotalMarks current total of the quiz; attempts saved against another total are scaled to theirs
+         */
+        void regrade(Map<Integer, Integer> correctByQuestion, Map<Integer, Integer> marksByQuestion, int quizTotalMarks) {
+            newCorrect = new boolean[size];
+            IntStream.range(0, size).parallel().forEach(i ->
+                newCorrect[i] = selected[i] == correctByQuestion.get(questionIds[i]));
+
+            // Rows are ordered by attempt id, so each attempt is a contiguous run
+            int[] starts = new int[size + 1];
+            int groups = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || attemptIds[i] != attemptIds[i - 1]) {
+                    starts[groups++] = i;
+                }
+            }
+            starts[groups] = size;
+            attemptCount = groups;
+
+            int[] newScores = new int[groups];
+            boolean[] changed = new boolean[groups];
+            IntStream.range(0, groups).parallel().forEach(g -> {
+                int delta = 0;
+                for (int i = starts[g]; i < starts[g + 1]; i++) {
+                    delta += ((newCorrect[i] ? 1 : 0) - (oldCorrect[i] ? 1 : 0)) * marksByQuestion.get(questionIds[i]);
+                }
+                int first = starts[g];
+                if (quizTotalMarks > 0 && totalMarks[first] != quizTotalMarks) {
+                    delta = (int) Math.round((double) delta * totalMarks[first] / quizTotalMarks);
+                }
+                newScores[g] = Math.max(0, Math.min(totalMarks[first], scores[first] + delta));
+                changed[g] = delta != 0;
+            });
+
+            rescoredAttemptIds = new int[groups];
+            rescoredScores = new int[groups];
+            rescoredPercentages = new double[groups];
+            for (int g = 0; g < groups; g++) {
+                if (changed[g]) {
+                    int first = starts[g];
+                    rescoredAttemptIds[rescoredCount] = attemptIds[first];
+                    rescoredScores[rescoredCount] = newScores[g];
+                    rescoredPercentages[rescoredCount] = totalMarks[first] > 0
+                        ? (double) newScores[g] / totalMarks[first] * 100 : 0;
+                    rescoredCount++;
+                }
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getUpperAttemptId() {
+            return upperAttemptId;
+        }
+
+        public int getAnswerId(int row) {
+            return answerIds[row];
+        }
+
+        public boolean isNewCorrect(int row) {
+            return newCorrect[row];
+        }
+
+        public boolean isChanged(int row) {
+            return newCorrect[row] != oldCorrect[row];
+        }
+
+        public int getAttemptCount() {
+            return attemptCount;
+        }
+
+        public int getRescoredCount() {
+            return rescoredCount;
+        }
+
+        public int getRescoredAttemptId(int index) {
+            return rescoredAttemptIds[index];
+        }
+
+        public int getRescoredScore(int index) {
+            return rescoredScores[index];
+        }
+
+        public double getRescoredPercentage(int index) {
+            return rescoredPercentages[index];
+        }
+    }
+
+    /**
+     * Command-line entry point
+     * @param args quiz id, then question ids; write {@code 12=C} to also set question 12's correct answer to C
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2) {
+            System.err.println("Usage: RegradeJob <quizId> <questionId>[=<A-D>]...");
+            System.exit(1);
+        }
+        int quizId = Integer.parseInt(args[0]);
+        int[] questionIds = new int[args.length - 1];
+        DatabaseManager db = DatabaseManager.getInstance();
+        for (int i = 1; i < args.length; i++) {
+            String[] parts = args[i].split("=");
+            questionIds[i - 1] = Integer.parseInt(parts[0].trim());
+            if (parts.length == 2) {
+                int correct = "ABCD".indexOf(Character.toUpperCase(parts[1].trim().charAt(0)));
+                if (correct < 0 || !db.updateCorrectAnswer(questionIds[i - 1], correct)) {
+                    System.err.println("Could not set the correct answer of question " + questionIds[i - 1]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        int rescored = new RegradeJob(quizId, questionIds).run((done, total) ->
+            System.out.printf("\rRe-graded %d/%d attempts (%.0f%%)", done, total, total == 0 ? 100.0 : done * 100.0 / total));
+        System.out.printf("%n%d attempt score(s) changed in %.2f s%n", rescored, (System.nanoTime() - start) / 1e9);
+        QuizService.getInstance().shutdown();
+    }
+}
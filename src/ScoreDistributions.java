@@ -0,0 +1,82 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ScoreDistributions keeps each quiz's score histogram in memory.
+ *
+ * A quiz's buckets are loaded from the score_buckets table on first use and then
+ * kept current from {@link ChangeBus.AttemptSaved} events, which are published after
+ * every commit. The database installs the loaded buckets while holding the same lock
+ * it publishes those events under, so a loaded histogram never misses or double-counts
+ * an attempt. A deleted quiz's histogram is dropped.
+ */
+public class ScoreDistributions {
+    private static ScoreDistributions instance;
+
+    private final Map<Integer, long[]> buckets = new ConcurrentHashMap<>();
+
+    private ScoreDistributions() {
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(ChangeBus.AttemptSaved.class, this::record);
+        bus.subscribe(ChangeBus.QuizDeleted.class, event -> invalidate(event.getQuizId()));
+    }
+
+    /**
+     * Get singleton instance of ScoreDistributions
+     */
+    public static synchronized ScoreDistributions getInstance() {
+        if (instance == null) {
+            instance = new ScoreDistributions();
+        }
+        return instance;
+    }
+
+    /**
+     * Get a snapshot of a quiz's score distribution
+     */
+    public ScoreHistogram getHistogram(int quizId) {
+        long[] counts = buckets.get(quizId);
+        Diagnostics.getInstance().recordCacheLookup("score histogram", counts != null);
+        while (counts == null) {
+            // Installed under the database lock; retried if a rebuild dropped it straight away
+            DatabaseManager.getInstance().loadScoreBuckets(this, quizId);
+            counts = buckets.get(quizId);
+        }
+        synchronized (counts) {
+            return new ScoreHistogram(counts);
+        }
+    }
+
+    /**
+     * Count committed attempts; a quiz that has not been loaded yet is skipped
+     * since loading reads the committed buckets anyway
+     */
+    private void record(ChangeBus.AttemptSaved event) {
+        long[] counts = buckets.get(event.getQuiz().getId());
+        if (counts != null) {
+            synchronized (counts) {
+                for (int i = 0; i < event.size(); i++) {
+                    counts[ScoreHistogram.bucketOf(event.getAttempt(i).getPercentage())]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Install a quiz's committed buckets. Called by the database under its lock.
+     */
+    void load(int quizId, long[] counts) {
+        buckets.putIfAbsent(quizId, counts);
+    }
+
+    boolean isLoaded(int quizId) {
+        return buckets.containsKey(quizId);
+    }
+
+    /**
+     * Drop a quiz's histogram so it is reloaded on next use
+     */
+    void invalidate(int quizId) {
+        buckets.remove(quizId);
+    }
+}
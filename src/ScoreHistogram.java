@@ -0,0 +1,66 @@
+/**
+ * ScoreHistogram is an immutable snapshot of a quiz's score distribution.
+ * Attempts are counted in 101 fixed buckets, one per whole percent (0-100).
+ * Cumulative counts are computed once when the snapshot is taken, so
+ * percentile and grade lookups are constant time.
+ */
+public class ScoreHistogram {
+    public static final int BUCKETS = 101;
+    public static final String[] GRADES = {"A+", "A", "B", "C", "D", "F"};
+    private static final int[] GRADE_FLOORS = {90, 80, 70, 60, 50, 0};
+
+    private final long[] counts;
+    private final long[] below;
+    private final long[] gradeCounts;
+    private final long total;
+
+    /**
+     * @param counts attempts per whole-percent bucket; copied
+     */
+    public ScoreHistogram(long[] counts) {
+        this.counts = counts.clone();
+        this.below = new long[BUCKETS + 1];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            below[bucket + 1] = below[bucket] + this.counts[bucket];
+        }
+        this.total = below[BUCKETS];
+
+        this.gradeCounts = new long[GRADES.length];
+        int upper = BUCKETS;
+        for (int g = 0; g < GRADES.length; g++) {
+            gradeCounts[g] = below[upper] - below[GRADE_FLOORS[g]];
+            upper = GRADE_FLOORS[g];
+        }
+    }
+
+    /**
+     * Maps a percentage to its bucket
+     */
+    public static int bucketOf(double percentage) {
+        int bucket = (int) Math.floor(percentage + 1e-9);
+        return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * @return share of attempts (0-100) that scored strictly lower than the given percentage
+     */
+    public double getPercentBeaten(double percentage) {
+        return total == 0 ? 0 : (double) below[bucketOf(percentage)] / total * 100;
+    }
+
+    /**
+     * @param gradeIndex index into {@link #GRADES}
+     * @return number of attempts with that grade
+     */
+    public long getGradeCount(int gradeIndex) {
+        return gradeCounts[gradeIndex];
+    }
+}
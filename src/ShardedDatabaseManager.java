@@ -0,0 +1,406 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * ShardedDatabaseManager spreads quizzes, questions, attempts and answers (and the
+ * per-quiz tables derived from them) over several SQLite files, so submissions to
+ * quizzes on different shards are written in parallel instead of queueing behind
+ * one connection.
+ *
+ * Users stay in the catalog file (quizapp.db), which this manager itself holds and
+ * which also hands out quiz ids. A quiz lives in the shard its id hashes to; every
+ * shard is a DatabaseManager with its own connection and lock. Each shard numbers
+ * its questions, attempts and re-grade jobs from shardIndex * {@link #ID_SPAN}, so
+ * those ids name their shard too. Reads that span quizzes query all shards in
+ * parallel and merge the results.
+ *
+ * Enabled with -Dquiz.shards=N. Existing data in a single-file database is not
+ * moved into the shards.
+ */
+public class ShardedDatabaseManager extends DatabaseManager {
+    /** Ids available to each shard; ints leave room for {@link #MAX_SHARDS} shards */
+    static final int ID_SPAN = 100_000_000;
+    static final int MAX_SHARDS = Integer.MAX_VALUE / ID_SPAN;
+
+    private final DatabaseManager[] shards;
+    private final ExecutorService readers;
+
+    /**
+     * @param catalogUrl JDBC URL of the catalog; shard k is stored next to it as &lt;name&gt;-shard-k.db
+     */
+    ShardedDatabaseManager(String catalogUrl, int shardCount) {
+        super(catalogUrl, Role.CATALOG, 0);
+        int count = Math.min(shardCount, MAX_SHARDS);
+        String base = catalogUrl.endsWith(".db") ? catalogUrl.substring(0, catalogUrl.length() - 3) : catalogUrl;
+        shards = new DatabaseManager[count];
+        for (int k = 0; k < count; k++) {
+            shards[k] = new DatabaseManager(base + "-shard-" + k + ".db", Role.SHARD, k);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        readers = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, "shard-reader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ==================== ROUTING ====================
+
+    /**
+     * Shard holding a quiz; the id is mixed first so consecutive ids spread evenly
+     */
+    private int shardIndexOf(int quizId) {
+        int h = quizId * 0x9E3779B1;
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    private DatabaseManager shardOf(int quizId) {
+        return shards[shardIndexOf(quizId)];
+    }
+
+    /**
+     * Shard that assigned a question, attempt or re-grade job id
+     */
+    private DatabaseManager shardOfRowId(int rowId) {
+        return shards[Math.min(Math.max(rowId, 0) / ID_SPAN, shards.length - 1)];
+    }
+
+    /**
+     * Run a read on every shard in parallel
+     * @return one result per shard, in shard order
+     */
+    private <T> List<T> fanOut(Function<DatabaseManager, T> read) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.length);
+        for (DatabaseManager shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> read.apply(shard), readers));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Merge lists that are each already sorted into one sorted list
+     */
+    private static <T> List<T> mergeSorted(List<List<T>> lists, Comparator<T> order) {
+        int total = 0;
+        for (List<T> list : lists) {
+            total += list.size();
+        }
+        List<T> merged = new ArrayList<>(total);
+        // Heap of {list index, position}; each list contributes its next unmerged element
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, lists.size()),
+            (a, b) -> order.compare(lists.get(a[0]).get(a[1]), lists.get(b[0]).get(b[1])));
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> list = lists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static <T> Comparator<T> newestFirst(Function<T, Timestamp> time) {
+        return Comparator.comparing(time, Comparator.nullsLast(Comparator.<Timestamp>naturalOrder().reversed()));
+    }
+
+    // ==================== QUIZ OPERATIONS ====================
+
+    @Override
+    public int saveQuiz(Quiz quiz, int creatorId) {
+        int quizId = reserveQuizId();
+        if (quizId <= 0) {
+            return -1;
+        }
+        return shardOf(quizId).saveQuiz(quiz, creatorId, quizId);
+    }
+
+    @Override
+    public List<Quiz> getAllQuizzes() {
+        return mergeSorted(fanOut(DatabaseManager::getAllQuizzes), newestFirst(Quiz::getCreatedAt));
+    }
+
+    @Override
+    public List<Quiz> getQuizzesByUser(int userId) {
+        return mergeSorted(fanOut(shard -> shard.getQuizzesByUser(userId)), newestFirst(Quiz::getCreatedAt));
+    }
+
+    @Override
+    public Map<Integer, Integer> getQuestionCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        fanOut(DatabaseManager::getQuestionCounts).forEach(counts::putAll);
+        return counts;
+    }
+
+    @Override
+    public Quiz loadQuiz(int quizId) {
+        return shardOf(quizId).loadQuiz(quizId);
+    }
+
+    @Override
+    public boolean deleteQuiz(int quizId) {
+        return shardOf(quizId).deleteQuiz(quizId);
+    }
+
+    // ==================== QUIZ VERSION OPERATIONS ====================
+
+    @Override
+    public int getQuizVersion(int quizId) {
+        return shardOf(quizId).getQuizVersion(quizId);
+    }
+
+    @Override
+    public long getVersionTotal() {
+        long total = 0;
+        for (long shardTotal : fanOut(DatabaseManager::getVersionTotal)) {
+            if (shardTotal < 0) {
+                return -1;
+            }
+            total += shardTotal;
+        }
+        return total;
+    }
+
+    @Override
+    public boolean bumpQuizVersion(int quizId) {
+        return shardOf(quizId).bumpQuizVersion(quizId);
+    }
+
+    @Override
+    Object lockFor(int quizId) {
+        return shardOf(quizId);
+    }
+
+    // ==================== QUIZ ATTEMPT OPERATIONS ====================
+
+    @Override
+    public int saveQuizAttempt(int userId, Quiz quiz, GradedAttempt attempt) {
+        return shardOf(quiz.getId()).saveQuizAttempt(userId, quiz, attempt);
+    }
+
+    @Override
+    public int saveQuizAttempts(Quiz quiz, int[] userIds, GradedAttempt[] attempts) {
+        return shardOf(quiz.getId()).saveQuizAttempts(quiz, userIds, attempts);
+    }
+
+    @Override
+    public int[] mergeKioskAttempts(Quiz quiz, String[] clientIds, int[] userIds, long[] completedAt,
+                                    GradedAttempt[] attempts) {
+        // A client id belongs to one quiz, so checking it in the quiz's shard is enough
+        return shardOf(quiz.getId()).mergeKioskAttempts(quiz, clientIds, userIds, completedAt, attempts);
+    }
+
+    @Override
+    public List<QuizAttempt> getAttemptsByUser(int userId) {
+        return mergeSorted(fanOut(shard -> shard.getAttemptsByUser(userId)), newestFirst(QuizAttempt::getCompletedAt));
+    }
+
+    @Override
+    public QuizAttempt getBestAttempt(int userId, int quizId) {
+        return shardOf(quizId).getBestAttempt(userId, quizId);
+    }
+
+    @Override
+    public Map<Integer, QuizAttempt> getBestAttemptsByUser(int userId) {
+        Map<Integer, QuizAttempt> best = new HashMap<>();
+        fanOut(shard -> shard.getBestAttemptsByUser(userId)).forEach(best::putAll);
+        return best;
+    }
+
+    @Override
+    public List<LeaderboardEntry> getQuizLeaderboard(int quizId) {
+        return shardOf(quizId).getQuizLeaderboard(quizId);
+    }
+
+    // ==================== DERIVED DATA OPERATIONS ====================
+
+    @Override
+    public int streamItemResponses(int quizId, int afterAttemptId, ItemAnalysis.ResponseConsumer consumer) {
+        return shardOf(quizId).streamItemResponses(quizId, afterAttemptId, consumer);
+    }
+
+    @Override
+    public long[] getScoreBuckets(int quizId) {
+        return shardOf(quizId).getScoreBuckets(quizId);
+    }
+
+    @Override
+    void loadScoreBuckets(ScoreDistributions distributions, int quizId) {
+        shardOf(quizId).loadScoreBuckets(distributions, quizId);
+    }
+
+    @Override
+    public boolean rebuildScoreBuckets(int quizId) {
+        return shardOf(quizId).rebuildScoreBuckets(quizId);
+    }
+
+    @Override
+    public boolean rebuildBestScores(int quizId) {
+        return shardOf(quizId).rebuildBestScores(quizId);
+    }
+
+    @Override
+    public List<AttemptRollup> getDailyRollups(int quizId, long from, long to) {
+        if (quizId > 0) {
+            return shardOf(quizId).getDailyRollups(quizId, from, to);
+        }
+        return sumRollups(fanOut(shard -> shard.getDailyRollups(quizId, from, to)));
+    }
+
+    @Override
+    public List<AttemptRollup> getHourlyRollups(int quizId, long from, long to) {
+        if (quizId > 0) {
+            return shardOf(quizId).getHourlyRollups(quizId, from, to);
+        }
+        return sumRollups(fanOut(shard -> shard.getHourlyRollups(quizId, from, to)));
+    }
+
+    /**
+     * Add up the shards' rollups period by period
+     */
+    private static List<AttemptRollup> sumRollups(List<List<AttemptRollup>> perShard) {
+        Map<Long, long[]> sums = new TreeMap<>();
+        for (List<AttemptRollup> rollups : perShard) {
+            for (AttemptRollup rollup : rollups) {
+                long[] sum = sums.computeIfAbsent(rollup.getPeriodStart(), start -> new long[3]);
+                sum[0] += rollup.getAttempts();
+                sum[1] += rollup.getScoreSum();
+                sum[2] += rollup.getPasses();
+            }
+        }
+        List<AttemptRollup> merged = new ArrayList<>(sums.size());
+        sums.forEach((start, sum) -> merged.add(new AttemptRollup(start, sum[0], sum[1], sum[2])));
+        return merged;
+    }
+
+    @Override
+    public boolean compactRollups(long cutoff) {
+        return !fanOut(shard -> shard.compactRollups(cutoff)).contains(false);
+    }
+
+    @Override
+    public boolean rebuildRollups(int quizId, long cutoff) {
+        return shardOf(quizId).rebuildRollups(quizId, cutoff);
+    }
+
+    @Override
+    public int[][] getAttemptIdRanges() {
+        int[][] ranges = new int[shards.length][];
+        for (int k = 0; k < shards.length; k++) {
+            ranges[k] = new int[]{k * ID_SPAN + 1, k == shards.length - 1 ? Integer.MAX_VALUE : (k + 1) * ID_SPAN};
+        }
+        return ranges;
+    }
+
+    @Override
+    public int streamAttemptsAfter(int afterAttemptId, AttemptColumns.AttemptConsumer consumer) {
+        // Streams one shard: the one whose range continues after the given id
+        return shardOfRowId(afterAttemptId + 1).streamAttemptsAfter(afterAttemptId, consumer);
+    }
+
+    @Override
+    public void streamAnswersAfter(int afterAttemptId, int upToAttemptId, AttemptColumns.AnswerConsumer consumer) {
+        shardOfRowId(afterAttemptId + 1).streamAnswersAfter(afterAttemptId, upToAttemptId, consumer);
+    }
+
+    @Override
+    public Map<Integer, long[]> getChoiceCounts(int quizId) {
+        return shardOf(quizId).getChoiceCounts(quizId);
+    }
+
+    /**
+     * Add pick count deltas, one transaction per shard
+     */
+    @Override
+    public boolean addChoiceCounts(List<int[]> keys, List<Long> deltas) {
+        List<List<int[]>> shardKeys = new ArrayList<>();
+        List<List<Long>> shardDeltas = new ArrayList<>();
+        for (int k = 0; k < shards.length; k++) {
+            shardKeys.add(new ArrayList<>());
+            shardDeltas.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            int k = shardIndexOf(keys.get(i)[0]);
+            shardKeys.get(k).add(keys.get(i));
+            shardDeltas.get(k).add(deltas.get(i));
+        }
+        boolean ok = true;
+        for (int k = 0; k < shards.length; k++) {
+            if (!shardKeys.get(k).isEmpty()) {
+                ok &= shards[k].addChoiceCounts(shardKeys.get(k), shardDeltas.get(k));
+            }
+        }
+        return ok;
+    }
+
+    // ==================== RE-GRADE OPERATIONS ====================
+
+    @Override
+    public boolean updateCorrectAnswer(int questionId, int correctAnswerIndex) {
+        return shardOfRowId(questionId).updateCorrectAnswer(questionId, correctAnswerIndex);
+    }
+
+    @Override
+    public int[] openRegradeJob(int quizId, String questionIds) {
+        return shardOf(quizId).openRegradeJob(quizId, questionIds);
+    }
+
+    @Override
+    public int countAttemptsAnswering(int quizId, int[] questionIds, int afterAttemptId) {
+        return shardOf(quizId).countAttemptsAnswering(quizId, questionIds, afterAttemptId);
+    }
+
+    @Override
+    public RegradeJob.Chunk readRegradeChunk(int quizId, int[] questionIds, int afterAttemptId, int maxAttempts) {
+        return shardOf(quizId).readRegradeChunk(quizId, questionIds, afterAttemptId, maxAttempts);
+    }
+
+    @Override
+    public boolean applyRegradeChunk(int jobId, RegradeJob.Chunk chunk) {
+        return shardOfRowId(jobId).applyRegradeChunk(jobId, chunk);
+    }
+
+    @Override
+    public void finishRegradeJob(int jobId) {
+        shardOfRowId(jobId).finishRegradeJob(jobId);
+    }
+
+    // ==================== CONNECTIONS ====================
+
+    @Override
+    public List<DatabaseManager> getDatabases() {
+        List<DatabaseManager> databases = new ArrayList<>(shards.length + 1);
+        databases.add(this);
+        databases.addAll(List.of(shards));
+        return databases;
+    }
+
+    @Override
+    public void close() {
+        readers.shutdown();
+        for (DatabaseManager shard : shards) {
+            shard.close();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,122 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * StallReportDialog lists event dispatch thread stalls recorded by EdtMonitor,
+ * grouped by call site, with the worst stack of the selected site and export to a file.
+ * Opened with Ctrl+Shift+E from anywhere in the application.
+ */
+public class StallReportDialog extends JDialog {
+    private final EdtMonitor monitor;
+    private final DefaultTableModel model;
+    private final JTable table;
+    private final JTextArea stackArea;
+    private final JLabel summaryLabel;
+    private List<StallSite> stalls = List.of();
+
+    public StallReportDialog(Window owner, EdtMonitor monitor) {
+        super(owner, "UI Stalls", Dialog.ModalityType.MODELESS);
+        this.monitor = monitor;
+        setLayout(new BorderLayout(10, 10));
+        setSize(900, 550);
+        setLocationRelativeTo(owner);
+
+        JPanel contentPanel = new JPanel(new BorderLayout(10, 10));
+        contentPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        summaryLabel = new JLabel();
+        summaryLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        contentPanel.add(summaryLabel, BorderLayout.NORTH);
+
+        String[] columns = {"Call site", "Stalls", "Total ms", "Avg ms", "Max ms"};
+        model = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(450);
+        table.getSelectionModel().addListSelectionListener(e -> showStack());
+
+        stackArea = new JTextArea();
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), new JScrollPane(stackArea));
+        split.setResizeWeight(0.5);
+        contentPanel.add(split, BorderLayout.CENTER);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            monitor.reset();
+            refresh();
+        });
+        JButton exportButton = new JButton("Export...");
+        exportButton.addActionListener(e -> export());
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(resetButton);
+        buttonPanel.add(exportButton);
+        buttonPanel.add(closeButton);
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(contentPanel);
+        refresh();
+    }
+
+    private void refresh() {
+        stalls = monitor.getStalls();
+        summaryLabel.setText(String.format("%d events dispatched, %d over %d ms",
+            monitor.getEventCount(), monitor.getStallCount(), monitor.getThresholdMillis()));
+        model.setRowCount(0);
+        for (StallSite site : stalls) {
+            model.addRow(new Object[]{
+                site.getCallSite(),
+                site.getCount(),
+                site.getTotalMillis(),
+                String.format("%.0f", site.getAverageMillis()),
+                site.getMaxMillis()
+            });
+        }
+        stackArea.setText("");
+    }
+
+    private void showStack() {
+        int row = table.getSelectedRow();
+        if (row < 0 || row >= stalls.size()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (StackTraceElement frame : stalls.get(row).getWorstStack()) {
+            text.append("at ").append(frame).append('\n');
+        }
+        stackArea.setText(text.length() > 0 ? text.toString() : "No stack was captured for this stall.");
+        stackArea.setCaretPosition(0);
+    }
+
+    private void export() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("edt-stalls.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            monitor.export(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Export failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
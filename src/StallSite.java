@@ -0,0 +1,46 @@
+/**
+ * StallSite summarizes the event dispatch thread stalls attributed to one call site.
+ */
+public class StallSite {
+    private String callSite;
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+    private StackTraceElement[] worstStack;
+
+    /**
+     * @param callSite   first application frame on the EDT stack, or the event type if no stack was caught
+     * @param worstStack EDT stack captured during the longest stall (may be empty)
+     */
+    public StallSite(String callSite, long count, long totalMillis, long maxMillis, StackTraceElement[] worstStack) {
+        this.callSite = callSite;
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.worstStack = worstStack;
+    }
+
+    public String getCallSite() {
+        return callSite;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public double getAverageMillis() {
+        return count == 0 ? 0 : (double) totalMillis / count;
+    }
+
+    public StackTraceElement[] getWorstStack() {
+        return worstStack.clone();
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StartupTrace prints startup milestones (first frame, database ready, dashboard)
+ * for tools/StartupBenchmark. It does nothing unless the JVM is started with
+ * -Dquiz.startup.trace=true, so normal launches pay one boolean check per milestone.
+ *
+ * Each milestone is printed once, as "startup <milestone> <epoch millis>".
+ * With -Dquiz.startup.exitAfter=<milestone> the application exits as soon as that
+ * milestone is reached, which is also how the AppCDS training run ends.
+ */
+public class StartupTrace {
+    private static final boolean ENABLED = Boolean.getBoolean("quiz.startup.trace");
+    private static final String EXIT_AFTER = System.getProperty("quiz.startup.exitAfter");
+    private static final Set<String> reached = ConcurrentHashMap.newKeySet();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Record that a milestone has been reached; later calls for the same milestone are ignored
+     */
+    public static void mark(String milestone) {
+        if (!ENABLED && EXIT_AFTER == null) {
+            return;
+        }
+        if (!reached.add(milestone)) {
+            return;
+        }
+        if (ENABLED) {
+            System.out.println("startup " + milestone + " " + System.currentTimeMillis());
+            System.out.flush();
+        }
+        if (milestone.equals(EXIT_AFTER)) {
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Credentials to log in with automatically, from -Dquiz.startup.login=username:password.
+     * Only honoured while tracing, so it cannot bypass the login screen in normal use.
+     * @return username and password, or null
+     */
+    public static String[] getAutoLogin() {
+        String login = System.getProperty("quiz.startup.login");
+        if (!ENABLED || login == null || login.indexOf(':') < 0) {
+            return null;
+        }
+        int colon = login.indexOf(':');
+        return new String[]{login.substring(0, colon), login.substring(colon + 1)};
+    }
+}
@@ -1,6 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * UIHelper provides utility methods for creating styled UI components.
@@ -131,6 +133,20 @@ public class UIHelper {
         addHoverEffect(button, bgColor);
     }
 
+    /**
+     * Executor that runs tasks on the Swing event dispatch thread.
+     * Use with CompletableFuture.*Async to hand background results back to the UI.
+     */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    /**
+     * Message for a background task that failed, without the CompletionException wrapper
+     */
+    public static String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
     // Common colors
     public static final Color PRIMARY_BLUE = new Color(63, 81, 181);
     public static final Color SUCCESS_GREEN = new Color(76, 175, 80);
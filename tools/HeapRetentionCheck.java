@@ -0,0 +1,93 @@
+import javax.swing.*;
+import java.awt.CardLayout;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that repeated quiz attempts do not grow the heap. Each round opens a
+ * fresh 50-question quiz in the taker card, the way QuizApp.showQuizTaker does,
+ * once by adding a new panel per attempt (the old behaviour) and once by
+ * resetting a single panel. After every batch of rounds the heap is collected
+ * and the used heap and the number of earlier quizzes still reachable are printed.
+ * Runs headless; no database is needed.
+ *
+ * Usage (from the project root, after compiling src into bin):
+ *   java -Djava.awt.headless=true -cp bin tools/HeapRetentionCheck.java [rounds]
+ */
+public class HeapRetentionCheck {
+    private static final int QUESTIONS = 50;
+    private static final int BATCH = 100;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        SwingUtilities.invokeAndWait(() -> { }); // start the EDT before the first sample
+
+        System.out.println("New panel per attempt:");
+        long[] rebuilt = run(rounds, false);
+        System.out.println("Single panel, reset per attempt:");
+        long[] reused = run(rounds, true);
+
+        long rebuiltGrowth = rebuilt[rebuilt.length - 1] - rebuilt[0];
+        long reusedGrowth = reused[reused.length - 1] - reused[0];
+        System.out.printf("Heap growth after the first batch: %,d KB with new panels, %,d KB with reuse%n",
+            rebuiltGrowth / 1024, reusedGrowth / 1024);
+        // Allow some noise from class loading and JIT, but not a panel per attempt
+        boolean flat = reusedGrowth < 2L * 1024 * 1024;
+        System.out.println(flat ? "PASS: heap stays flat across attempts" : "FAIL: heap grows across attempts");
+        System.exit(flat ? 0 : 1);
+    }
+
+    /**
+     * @return used heap after each batch, in bytes
+     */
+    private static long[] run(int rounds, boolean reuse) throws Exception {
+        JPanel cards = new JPanel(new CardLayout());
+        QuizTakerPanel[] taker = new QuizTakerPanel[1];
+        List<WeakReference<Quiz>> taken = new ArrayList<>();
+        long[] samples = new long[Math.max(1, rounds / BATCH)];
+
+        for (int round = 0; round < rounds; round++) {
+            Quiz quiz = buildQuiz(round);
+            taken.add(new WeakReference<>(quiz));
+            SwingUtilities.invokeAndWait(() -> {
+                if (taker[0] == null || !reuse) {
+                    taker[0] = new QuizTakerPanel(quiz, null);
+                    cards.add(taker[0], "TAKER");
+                } else {
+                    taker[0].reset(quiz);
+                }
+                ((CardLayout) cards.getLayout()).show(cards, "TAKER");
+            });
+
+            if ((round + 1) % BATCH == 0 && (round + 1) / BATCH <= samples.length) {
+                long used = usedHeapAfterGc();
+                samples[(round + 1) / BATCH - 1] = used;
+                long alive = taken.stream().filter(ref -> ref.get() != null).count();
+                System.out.printf("  %5d attempts: %,8d KB used, %4d quizzes still reachable, %4d panels%n",
+                    round + 1, used / 1024, alive, cards.getComponentCount());
+            }
+        }
+        return samples;
+    }
+
+    private static Quiz buildQuiz(int round) {
+        Quiz.Builder quiz = new Quiz.Builder("Quiz " + round, QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            quiz.addQuestion(new Question("Question " + i + " of round " + round,
+                new String[]{"Choice A " + i, "Choice B " + i, "Choice C " + i, "Choice D " + i}, i % 4, 1));
+        }
+        return quiz.build();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,109 @@
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the quiz lifecycle events (quizapp.*) of a Flight Recorder file:
+ * count and duration percentiles per event type, the slowest quizzes by load and
+ * submit time, and the GC pause total over the same recording for context.
+ *
+ * Usage:
+ *   java tools/JfrSummary.java quizapp.jfr
+ */
+public class JfrSummary {
+    private static final String PREFIX = "quizapp.";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: java tools/JfrSummary.java <recording.jfr>");
+            System.exit(1);
+        }
+
+        Map<String, List<Long>> byType = new TreeMap<>();
+        Map<String, Long> rowsByType = new TreeMap<>();
+        Map<Integer, List<Long>> byQuiz = new TreeMap<>();
+        long gcPauses = 0;
+        Duration gcPauseTotal = Duration.ZERO;
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            String name = event.getEventType().getName();
+            if (name.equals("jdk.GarbageCollection")) {
+                gcPauses++;
+                gcPauseTotal = gcPauseTotal.plus(event.getDuration("sumOfPauses"));
+                continue;
+            }
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+            String type = name.substring(PREFIX.length());
+            long micros = event.getDuration().toNanos() / 1000;
+            byType.computeIfAbsent(type, k -> new ArrayList<>()).add(micros);
+            rowsByType.merge(type, rows(event), Long::sum);
+            if (event.hasField("quizId") && (type.equals("QuizLoad") || type.equals("AttemptSubmit"))) {
+                byQuiz.computeIfAbsent(event.getInt("quizId"), k -> new ArrayList<>()).add(micros);
+            }
+        }
+
+        if (byType.isEmpty()) {
+            System.out.println("No quizapp.* events in " + args[0]);
+            return;
+        }
+
+        System.out.printf("%-18s %7s %10s %10s %10s %10s %10s%n", "event", "count", "p50 ms", "p95 ms", "p99 ms", "max ms", "rows");
+        for (Map.Entry<String, List<Long>> entry : byType.entrySet()) {
+            List<Long> durations = entry.getValue();
+            durations.sort(null);
+            System.out.printf("%-18s %7d %10.2f %10.2f %10.2f %10.2f %10d%n", entry.getKey(), durations.size(),
+                percentile(durations, 50), percentile(durations, 95), percentile(durations, 99),
+                durations.get(durations.size() - 1) / 1000.0, rowsByType.get(entry.getKey()));
+        }
+
+        if (!byQuiz.isEmpty()) {
+            System.out.println();
+            System.out.println("Slowest quizzes (load + submit, total ms):");
+            byQuiz.entrySet().stream()
+                .sorted((a, b) -> Long.compare(sum(b.getValue()), sum(a.getValue())))
+                .limit(10)
+                .forEach(entry -> System.out.printf("  quiz %-6d %6d events %10.2f ms%n",
+                    entry.getKey(), entry.getValue().size(), sum(entry.getValue()) / 1000.0));
+        }
+
+        System.out.println();
+        System.out.printf("GC: %d collections, %.1f ms paused in total%n", gcPauses, gcPauseTotal.toNanos() / 1e6);
+    }
+
+    /**
+     * Row count carried by an event: rows, questionCount or quizRows + historyRows
+     */
+    private static long rows(RecordedEvent event) {
+        if (event.hasField("rows")) {
+            return event.getInt("rows");
+        }
+        if (event.hasField("historyRows")) {
+            return event.getInt("quizRows") + event.getInt("historyRows");
+        }
+        if (event.hasField("questionCount")) {
+            return event.getInt("questionCount");
+        }
+        return 0;
+    }
+
+    private static double percentile(List<Long> sortedMicros, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedMicros.size()) - 1;
+        return sortedMicros.get(Math.max(0, index)) / 1000.0;
+    }
+
+    private static long sum(List<Long> values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures what logging adds to the attempt submission path. Each operation grades
+ * one 50-question answer sheet (the CPU part of a submission) and then logs it:
+ *   none          - no logging
+ *   Log filtered  - Log.debug while the level is INFO (the common case for detail logs)
+ *   Log enabled   - Log.info with user_id, quiz_id and elapsed, written by the async writer
+ *   stderr-style  - string concatenation and println on a shared autoflush PrintStream,
+ *                   the way DatabaseManager used System.err
+ * Runs with 1, 4 and 8 threads so contention on the shared stream shows up.
+ *
+ * Usage (from the project root, after compiling src into bin):
+ *   java -cp bin tools/LoggingBenchmark.java
+ */
+public class LoggingBenchmark {
+    private static final int QUESTIONS = 50;
+    private static final int OPERATIONS = 200_000;
+    private static final int[] THREADS = {1, 4, 8};
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("quiz-log-bench");
+        System.setProperty("quiz.log.dir", dir.toString());
+        System.setProperty("quiz.log.level", "INFO");
+        PrintStream stderrStyle = new PrintStream(new FileOutputStream(dir.resolve("stderr.log").toFile()), true);
+
+        Quiz.Builder builder = new Quiz.Builder("Benchmark", QUESTIONS);
+        Random random = new Random(7);
+        for (int i = 0; i < QUESTIONS; i++) {
+            builder.addQuestion(new Question("Q" + i, new String[]{"A", "B", "C", "D"}, random.nextInt(4), 1));
+        }
+        Quiz quiz = builder.build();
+        int[][] sheets = new int[1024][QUESTIONS];
+        for (int[] sheet : sheets) {
+            for (int i = 0; i < QUESTIONS; i++) {
+                sheet[i] = random.nextInt(5) - 1;
+            }
+        }
+
+        String[] modes = {"none", "Log filtered", "Log enabled", "stderr-style"};
+        System.out.printf("%-14s", "threads");
+        for (String mode : modes) {
+            System.out.printf(" %14s", mode);
+        }
+        System.out.println();
+        System.out.println("(ns per submission, grading included; log files in " + dir + ")");
+
+        for (int threads : THREADS) {
+            System.out.printf("%-14d", threads);
+            for (int mode = 0; mode < modes.length; mode++) {
+                run(quiz, sheets, threads, mode, stderrStyle); // warm-up
+                run(quiz, sheets, threads, mode, stderrStyle);
+                System.out.printf(" %14.0f", run(quiz, sheets, threads, mode, stderrStyle));
+            }
+            System.out.println();
+        }
+        Log.shutdown();
+        System.out.println("Async entries dropped (buffer full): " + Log.getDropped());
+    }
+
+    /**
+     * @return average wall-clock nanoseconds per submission across all threads
+     */
+    private static double run(Quiz quiz, int[][] sheets, int threads, int mode, PrintStream stderrStyle) throws Exception {
+        int perThread = OPERATIONS / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int userId = t + 1;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                for (int i = 0; i < perThread; i++) {
+                    long begin = System.nanoTime();
+                    GradedAttempt attempt = quiz.grade(sheets[i & (sheets.length - 1)]);
+                    local += attempt.getScore();
+                    long elapsed = System.nanoTime() - begin;
+                    switch (mode) {
+                        case 1 -> Log.debug("saveQuizAttempt", userId, 42, elapsed, "Attempt saved");
+                        case 2 -> Log.info("saveQuizAttempt", userId, 42, elapsed, "Attempt saved");
+                        case 3 -> stderrStyle.println("Attempt saved: user " + userId + " quiz 42 in " + elapsed + " ns");
+                        default -> { }
+                    }
+                }
+                sink += local;
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return (double) (System.nanoTime() - begin) / (perThread * threads);
+    }
+}
@@ -0,0 +1,183 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local load test for QuizServer.
+ * Simulates a lab of students browsing the catalog, opening quizzes, submitting
+ * attempts and checking leaderboards, then reports requests per second and tail latency.
+ *
+ * Usage (from the project root, with the server already running):
+ *   java tools/QuizServerLoadTest.java http://localhost:8080 username password [clients] [seconds]
+ */
+public class QuizServerLoadTest {
+    private static final Pattern QUIZ_ID = Pattern.compile("\"id\":(\\d+),\"title\"");
+    private static final Pattern CHOICES = Pattern.compile("\"choices\":\\[");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: QuizServerLoadTest <baseUrl> <username> <password> [clients] [seconds]");
+            System.exit(1);
+        }
+        String baseUrl = args[0].replaceAll("/$", "");
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+
+        HttpClient http = HttpClient.newHttpClient();
+        String token = login(http, baseUrl, args[1], args[2]);
+        List<Integer> quizIds = fetchQuizIds(http, baseUrl);
+        if (quizIds.isEmpty()) {
+            System.err.println("The server has no quizzes to test against.");
+            System.exit(1);
+        }
+        int[] questionCounts = new int[quizIds.size()];
+        for (int i = 0; i < quizIds.size(); i++) {
+            String body = get(http, baseUrl + "/api/quizzes/" + quizIds.get(i)).body();
+            Matcher m = CHOICES.matcher(body);
+            while (m.find()) questionCounts[i]++;
+        }
+
+        System.out.printf("Running %d clients for %d s against %s (%d quizzes)%n", clients, seconds, baseUrl, quizIds.size());
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Worker[] workers = new Worker[clients];
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Worker(http, baseUrl, token, quizIds, questionCounts, deadline);
+            threads[i] = new Thread(workers[i], "load-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        report(workers, seconds);
+    }
+
+    private static void report(Worker[] workers, int seconds) {
+        int total = 0;
+        int errors = 0;
+        for (Worker w : workers) {
+            total += w.count;
+            errors += w.errors;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (Worker w : workers) {
+            System.arraycopy(w.latencies, 0, all, pos, w.count);
+            pos += w.count;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("Requests: %d  Errors: %d  Throughput: %.1f req/s%n", total, errors, total / (double) seconds);
+        System.out.printf("Latency ms  p50=%.2f  p90=%.2f  p99=%.2f  p99.9=%.2f  max=%.2f%n",
+            percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+            all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String login(HttpClient http, String baseUrl, String username, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString("username=" + username + "&password=" + password))
+            .build();
+        String body = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        Matcher m = TOKEN.matcher(body);
+        if (!m.find()) {
+            throw new IllegalStateException("Login failed: " + body);
+        }
+        return m.group(1);
+    }
+
+    private static List<Integer> fetchQuizIds(HttpClient http, String baseUrl) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        Matcher m = QUIZ_ID.matcher(get(http, baseUrl + "/api/quizzes").body());
+        while (m.find()) ids.add(Integer.parseInt(m.group(1)));
+        return ids;
+    }
+
+    private static HttpResponse<String> get(HttpClient http, String url) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * One simulated student issuing a weighted mix of requests until the deadline
+     */
+    private static class Worker implements Runnable {
+        private final HttpClient http;
+        private final String baseUrl;
+        private final String token;
+        private final List<Integer> quizIds;
+        private final int[] questionCounts;
+        private final long deadline;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Worker(HttpClient http, String baseUrl, String token, List<Integer> quizIds, int[] questionCounts, long deadline) {
+            this.http = http;
+            this.baseUrl = baseUrl;
+            this.token = token;
+            this.quizIds = quizIds;
+            this.questionCounts = questionCounts;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                int q = random.nextInt(quizIds.size());
+                int roll = random.nextInt(100);
+                HttpRequest request;
+                if (roll < 30) {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/quizzes")).GET().build();
+                } else if (roll < 60) {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/quizzes/" + quizIds.get(q))).GET().build();
+                } else if (roll < 80) {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/quizzes/" + quizIds.get(q) + "/leaderboard")).GET().build();
+                } else {
+                    StringBuilder answers = new StringBuilder();
+                    for (int i = 0; i < questionCounts[q]; i++) {
+                        if (i > 0) answers.append(',');
+                        answers.append(random.nextInt(4));
+                    }
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/quizzes/" + quizIds.get(q) + "/attempts"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .header("Authorization", "Bearer " + token)
+                        .POST(HttpRequest.BodyPublishers.ofString("answers=" + answers))
+                        .build();
+                }
+
+                long start = System.nanoTime();
+                try {
+                    int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 400) errors++;
+                } catch (Exception e) {
+                    errors++;
+                }
+                record(System.nanoTime() - start);
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares per-question scoring (a loop of Question.isCorrect calls) with the
+ * bit-packed AnswerKey popcount path for quizzes of 10 to 10,000 questions.
+ *
+ * Usage (from the project root, after compiling src into bin):
+ *   java -cp bin tools/ScoringBenchmark.java
+ */
+public class ScoringBenchmark {
+    private static final int[] SIZES = {10, 100, 1_000, 10_000};
+    private static final int SHEETS = 256;
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%9s %15s %15s %15s %15s %8s%n",
+            "questions", "isCorrect loop", "flat key", "pack+popcount", "popcount only", "speedup");
+        System.out.println("(ns per answer sheet; speedup is isCorrect loop vs popcount on pre-packed sheets)");
+        for (int size : SIZES) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) {
+        Random random = new Random(42);
+        Quiz.Builder builder = new Quiz.Builder("Benchmark", size);
+        for (int i = 0; i < size; i++) {
+            builder.addQuestion(new Question("Q" + i, new String[]{"A", "B", "C", "D"}, random.nextInt(4), 1));
+        }
+        Quiz quiz = builder.build();
+        List<Question> questions = quiz.getQuestions();
+        AnswerKey key = quiz.getAnswerKey();
+
+        int[][] sheets = new int[SHEETS][size];
+        PackedAnswers[] packed = new PackedAnswers[SHEETS];
+        for (int s = 0; s < SHEETS; s++) {
+            for (int i = 0; i < size; i++) {
+                sheets[s][i] = random.nextInt(5) - 1;
+            }
+            packed[s] = PackedAnswers.pack(sheets[s]);
+        }
+
+        // Scale iterations so every size does roughly the same amount of work
+        int iterations = Math.max(20, 2_000_000 / size);
+        double loop = measure(iterations, () -> {
+            long total = 0;
+            for (int[] sheet : sheets) {
+                for (int i = 0; i < sheet.length; i++) {
+                    if (questions.get(i).isCorrect(sheet[i])) total++;
+                }
+            }
+            return total;
+        });
+        double flatKey = measure(iterations, () -> {
+            long total = 0;
+            for (int[] sheet : sheets) {
+                total += key.countCorrect(sheet);
+            }
+            return total;
+        });
+        double packAndCount = measure(iterations, () -> {
+            long total = 0;
+            for (int[] sheet : sheets) {
+                total += key.countCorrect(PackedAnswers.pack(sheet));
+            }
+            return total;
+        });
+        double countOnly = measure(iterations, () -> {
+            long total = 0;
+            for (PackedAnswers sheet : packed) {
+                total += key.countCorrect(sheet);
+            }
+            return total;
+        });
+
+        System.out.printf("%9d %15.1f %15.1f %15.1f %15.1f %7.1fx%n", size, loop, flatKey, packAndCount, countOnly, loop / countOnly);
+    }
+
+    private static double measure(int iterations, java.util.function.LongSupplier body) {
+        // Warm up so the JIT has compiled the hot loop before timing
+        for (int i = 0; i < iterations; i++) {
+            sink += body.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += body.getAsLong();
+        }
+        return (System.nanoTime() - start) / (double) iterations / SHEETS;
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures cold-start time of the desktop application: time from process launch
+ * to the first painted frame and, if credentials are given, to a filled dashboard.
+ * Each launch is a fresh JVM; runs with and without the AppCDS archive
+ * (quizapp.jsa, see tools/build-cds.sh) are reported side by side.
+ *
+ * Needs a display. Usage (from the project root, after tools/build-cds.sh):
+ *   java tools/StartupBenchmark.java [runs] [username password]
+ */
+public class StartupBenchmark {
+    private static final String ARCHIVE = "quizapp.jsa";
+    private static final String[] MILESTONES = {"first-frame", "db-ready", "dashboard"};
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String login = args.length > 2 ? args[1] + ":" + args[2] : null;
+        String classPath = System.getProperty("quiz.classpath",
+            "quizapp.jar" + File.pathSeparator + "lib" + File.separator + "*");
+
+        System.out.printf("%-12s %14s %14s %14s%n", "mode", "first-frame", "db-ready", "dashboard");
+        System.out.println("(median ms from process launch over " + runs + " runs)");
+        report("default", runs, classPath, login, null);
+        if (new File(ARCHIVE).exists()) {
+            report("appcds", runs, classPath, login, "-XX:SharedArchiveFile=" + ARCHIVE);
+        } else {
+            System.out.println("(no " + ARCHIVE + "; run tools/build-cds.sh to compare with AppCDS)");
+        }
+    }
+
+    private static void report(String mode, int runs, String classPath, String login, String vmOption) throws Exception {
+        Map<String, List<Long>> samples = new HashMap<>();
+        for (int run = 0; run < runs; run++) {
+            launch(classPath, login, vmOption).forEach((milestone, millis) ->
+                samples.computeIfAbsent(milestone, k -> new ArrayList<>()).add(millis));
+        }
+        StringBuilder line = new StringBuilder(String.format("%-12s", mode));
+        for (String milestone : MILESTONES) {
+            List<Long> values = samples.get(milestone);
+            line.append(values == null ? String.format(" %14s", "-") : String.format(" %14d", median(values)));
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Start the application once and collect its milestones
+     * @return milliseconds from launch per milestone
+     */
+    private static Map<String, Long> launch(String classPath, String login, String vmOption) throws Exception {
+        List<String> command = new ArrayList<>(Arrays.asList(
+            System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+            "-Dquiz.startup.trace=true",
+            "-Dquiz.startup.exitAfter=" + (login != null ? "dashboard" : "first-frame")));
+        if (login != null) {
+            command.add("-Dquiz.startup.login=" + login);
+        }
+        if (vmOption != null) {
+            command.add(vmOption);
+        }
+        command.addAll(Arrays.asList("-cp", classPath, "QuizApp"));
+
+        long launched = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, Long> milestones = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length == 3 && parts[0].equals("startup")) {
+                    milestones.put(parts[1], Long.parseLong(parts[2]) - launched);
+                }
+            }
+        }
+        process.waitFor();
+        return milestones;
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,28 @@
+#!/bin/sh
+# Builds quizapp.jar and an AppCDS archive (quizapp.jsa) for faster cold starts.
+# The archive is recorded by a training run that opens the login window and,
+# when credentials are given, logs in and loads the dashboard before exiting.
+# Needs JDK 13+ and a display. Run from the project root:
+#   sh tools/build-cds.sh [username password]
+# Then start the application with the archive:
+#   java -XX:SharedArchiveFile=quizapp.jsa -cp "quizapp.jar:lib/*" QuizApp
+set -e
+
+rm -rf bin
+mkdir bin
+javac -cp "lib/*" -d bin src/*.java
+# The tools run from source, but must keep compiling against the application classes
+rm -rf build/tools
+javac -cp bin -d build/tools tools/*.java
+# CDS only archives classes loaded from jars, not from class directories
+jar --create --file quizapp.jar --main-class QuizApp -C bin .
+
+if [ $# -ge 2 ]; then
+    TRAINING="-Dquiz.startup.login=$1:$2 -Dquiz.startup.exitAfter=dashboard"
+else
+    TRAINING="-Dquiz.startup.exitAfter=first-frame"
+fi
+
+rm -f quizapp.jsa
+java -XX:ArchiveClassesAtExit=quizapp.jsa -Dquiz.startup.trace=true $TRAINING -cp "quizapp.jar:lib/*" QuizApp
+echo "Wrote quizapp.jsa"